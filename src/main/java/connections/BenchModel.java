@@ -0,0 +1,322 @@
+package connections;
+
+import model.Receiver;
+import model.Stand;
+import packet.Command;
+import packet.Packet;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static model.Receiver.MAX_LEVEL;
+import static model.Stand.MAX_RECEIVER_ADC_VOLTAGE_MCV;
+import static packet.Command.*;
+
+/**
+ * Behaviour model of receiver and stand, used by {@link SimulatedBench}.
+ * <p>
+ * <p> Level of receiver channel is calculated from stand voltage and receiver gain like real device does:
+ * level = voltage * 10^((gain + cascade gain) / 20) / max ADC voltage * max level,
+ * with the same constants as {@link Receiver} and {@link Stand},
+ * multiplied by magnitude response of channel filter (bandpass with quality factor {@link #FILTER_Q}).
+ * After any change of settings levels come to new values with exponential transient process.
+ */
+class BenchModel {
+
+    static final int CHANNELS_COUNT = 4;
+
+    private static final double FILTER_Q = 7.0;
+    private static final double EXT_SENSOR_REJECTION = 3.0;
+    private static final int[] IFF_FREQUENCY_HZ = {1024, 8192};
+    private static final int MAX_GAIN_DB = 60;
+
+    /* Indexes of receiver settings, the same as ordinals of Receiver and Device enums */
+    private static final int BS_TYPE_WB = 1;
+    private static final int MODE_INT_IFF = 4;
+    private static final int EXT_SENSOR_INT = 0;
+    private static final int EXT_SENSORS_COUNT = 4;
+
+    private static final byte CONFIRMATION_SUCCESS = 0;
+    private static final byte CONFIRMATION_FAIL = 1;
+
+    private final Random random;
+
+    /* Deviation of channel gain from nominal, like deviation of real components */
+    private final double[] channelMismatch = new double[CHANNELS_COUNT];
+
+    private volatile double noise = 0.002;
+    private volatile long transientTimeNs = 20000000L;
+    private volatile long transientDelayNs = 0;
+    private volatile double standOutputGain = 1.0;
+
+    /* Receiver settings */
+    private int receiverFrequency_Hz = 512;
+    private int receiverGain_dB = 20;
+    private int receiverMode = 0;
+    private int bottomSensorType = 0;
+    private int signalType = 0;
+    private int receiverID = 1;
+    private byte[] calibrationCoeffs;
+
+    /* Stand settings */
+    private int standFrequency_Hz = 512;
+    private int standVoltage_mcV = 0;
+    private int standExtSensor = EXT_SENSOR_INT;
+    private int standSignalType = 0;
+
+    /* Transient process: output moves from start values to values of current settings */
+    private double[] transientStart = new double[CHANNELS_COUNT + IFF_FREQUENCY_HZ.length];
+    private long transientStartNs = System.nanoTime();
+
+    BenchModel(long seed) {
+        random = new Random(seed);
+        for (int i = 0; i < CHANNELS_COUNT; i++) {
+            channelMismatch[i] = 1.0 + (random.nextDouble() - 0.5) * 0.02;
+        }
+
+        float[] coeffs = new float[2 * Receiver.FREQUENCY_HZ.size()];
+        Arrays.fill(coeffs, 1.0f);
+        calibrationCoeffs = toByteArray(coeffs);
+    }
+
+    /**
+     * @param noise relative standard deviation of levels
+     */
+    void setNoise(double noise) {
+        this.noise = noise;
+    }
+
+    /**
+     * @param transientTimeMs time constant of transient process after change of settings
+     */
+    void setTransientTimeMs(long transientTimeMs) {
+        this.transientTimeNs = transientTimeMs * 1000000L;
+    }
+
+    /**
+     * @param transientDelayMs time after change of settings, during which output doesn't change yet
+     */
+    void setTransientDelayMs(long transientDelayMs) {
+        this.transientDelayNs = transientDelayMs * 1000000L;
+    }
+
+    /**
+     * @param outputError_dB deviation of stand output voltage from set one
+     */
+    void setStandOutputError(double outputError_dB) {
+        this.standOutputGain = Math.pow(10, outputError_dB / 20.0);
+    }
+
+    /**
+     * Execute request as receiver or stand does it
+     *
+     * @return response packet, or null if command has no response
+     */
+    synchronized Packet execute(Packet request) {
+
+        Command command = request.getCommand();
+        if (command == null)
+            return new Packet(INVALID_CMD_DEVICE);
+
+        switch (command) {
+            case FREQUENCY_DEVICE:
+            case GAIN_DEVICE:
+            case TYPE_OF_SIGNAL_DEVICE:
+            case BOTTOM_SENSOR_DEVICE:
+            case MODE_DEVICE:
+            case FREQUENCY_STAND:
+            case VOLTAGE_STAND:
+            case TYPE_OF_SIGNAL_STAND:
+            case EXT_SENSOR_STAND:
+                return confirmation(command, changeSetting(command, request.getDataAsInt()));
+
+            case SOUND_DEVICE:
+            case BACKLIGHT_DEVICE:
+                return confirmation(command, true);
+
+            case WRITE_CALIBR_COEFFS_DEVICE:
+                calibrationCoeffs = request.getData();
+                return confirmation(command, true);
+
+            case WRITE_PCB_ID_DEVICE:
+                receiverID = request.getDataAsInt();
+                return confirmation(command, true);
+
+            case CHECK_CONNECTION_DEVICE:
+            case CHECK_CONNECTION_STAND:
+                return new Packet(command, request.getData());
+
+            case GET_INFO_DEVICE:
+                return new Packet(command, ("AP-019 1.0 A " + receiverID).getBytes(StandardCharsets.US_ASCII));
+
+            case GET_INFO_STAND:
+                return new Packet(command, "1.0 A 1".getBytes(StandardCharsets.US_ASCII));
+
+            case GET_EXT_SENSOR_DEVICE:
+                return new Packet(command, toByteArray(new short[]{(short) standExtSensor}));
+
+            case GET_GAIN_DEVICE:
+                return new Packet(command, toByteArray(new short[]{(short) receiverGain_dB}));
+
+            case GET_LEVELS_DEVICE:
+                return new Packet(command, toByteArray(getOutput(0, CHANNELS_COUNT)));
+
+            case GET_MAGNITUDES_DEVICE:
+                return new Packet(command, toByteArray(receiverMode == MODE_INT_IFF ?
+                        getOutput(CHANNELS_COUNT, IFF_FREQUENCY_HZ.length) :
+                        new short[IFF_FREQUENCY_HZ.length]));
+
+            case GET_CALIBR_COEFFS_DEVICE:
+                return new Packet(command, calibrationCoeffs);
+
+            case CHECK_DISPLAY_DEVICE:
+            case CHECK_KEYBOARD_DEVICE:
+                return null;
+
+            default:
+                return new Packet(command.isStandCommand() ? INVALID_CMD_STAND : INVALID_CMD_DEVICE);
+        }
+    }
+
+    private boolean changeSetting(Command command, int value) {
+
+        // Output is continuous: new transient process starts from current values
+        transientStart = getOutput(System.nanoTime());
+        transientStartNs = System.nanoTime();
+
+        switch (command) {
+            case FREQUENCY_DEVICE:
+                if (!Receiver.FREQUENCY_HZ.contains(value))
+                    return false;
+                receiverFrequency_Hz = value;
+                return true;
+
+            case GAIN_DEVICE:
+                if (value < 0 || value > MAX_GAIN_DB)
+                    return false;
+                receiverGain_dB = value;
+                return true;
+
+            case TYPE_OF_SIGNAL_DEVICE:
+                signalType = value;
+                return true;
+
+            case BOTTOM_SENSOR_DEVICE:
+                bottomSensorType = value;
+                return true;
+
+            case MODE_DEVICE:
+                receiverMode = value;
+                return true;
+
+            case FREQUENCY_STAND:
+                if (value <= 0)
+                    return false;
+                standFrequency_Hz = value;
+                return true;
+
+            case VOLTAGE_STAND:
+                if (value < 0)
+                    return false;
+                standVoltage_mcV = value;
+                return true;
+
+            case TYPE_OF_SIGNAL_STAND:
+                standSignalType = value;
+                return true;
+
+            case EXT_SENSOR_STAND:
+                if (value < 0 || value >= EXT_SENSORS_COUNT)
+                    return false;
+                standExtSensor = value;
+                return true;
+        }
+
+        return false;
+    }
+
+    private short[] getOutput(int from, int count) {
+
+        double[] output = getOutput(System.nanoTime());
+
+        short[] result = new short[count];
+        for (int i = 0; i < count; i++) {
+            double level = output[from + i] * (1.0 + noise * random.nextGaussian());
+            result[i] = (short) Math.round(Math.max(0, Math.min(level, MAX_LEVEL)));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return levels of channels and magnitudes of IFF frequencies at given moment of transient process
+     */
+    private double[] getOutput(long nowNs) {
+
+        double[] target = getSteadyOutput();
+        long elapsedNs = nowNs - transientStartNs - transientDelayNs;
+        double decay = elapsedNs < 0 ? 1 :
+                transientTimeNs > 0 ? Math.exp(-(double) elapsedNs / transientTimeNs) : 0;
+
+        for (int i = 0; i < target.length; i++) {
+            target[i] += (transientStart[i] - target[i]) * decay;
+        }
+
+        return target;
+    }
+
+    private double[] getSteadyOutput() {
+
+        double cascadeGain_dB = Stand.getNominalCascadeGain(receiverFrequency_Hz);
+        double input = standVoltage_mcV * standOutputGain * Math.pow(10, (receiverGain_dB + cascadeGain_dB) / 20.0) *
+                MAX_LEVEL / MAX_RECEIVER_ADC_VOLTAGE_MCV;
+
+        double[] output = new double[CHANNELS_COUNT + IFF_FREQUENCY_HZ.length];
+        for (int i = 0; i < CHANNELS_COUNT; i++) {
+
+            // Wideband bottom sensor: channel #4 has no filter
+            boolean wideband = bottomSensorType == BS_TYPE_WB && i == CHANNELS_COUNT - 1;
+            output[i] = input * channelMismatch[i] * (wideband ? 1.0 : getFilterResponse(standFrequency_Hz, receiverFrequency_Hz));
+        }
+
+        // External sensor is connected to channel #4 through divider
+        if (standExtSensor != EXT_SENSOR_INT)
+            output[CHANNELS_COUNT - 1] /= EXT_SENSOR_REJECTION;
+
+        for (int i = 0; i < IFF_FREQUENCY_HZ.length; i++) {
+            output[CHANNELS_COUNT + i] = input * getFilterResponse(standFrequency_Hz, IFF_FREQUENCY_HZ[i]);
+        }
+
+        return output;
+    }
+
+    /**
+     * Magnitude response of bandpass filter
+     *
+     * @param frequency_Hz frequency of signal
+     * @param center_Hz    center frequency of filter
+     */
+    static double getFilterResponse(int frequency_Hz, int center_Hz) {
+        double detuning = (double) frequency_Hz / center_Hz - (double) center_Hz / frequency_Hz;
+        return 1.0 / Math.sqrt(1.0 + FILTER_Q * FILTER_Q * detuning * detuning);
+    }
+
+    private static Packet confirmation(Command command, boolean success) {
+        return new Packet(command, new byte[]{success ? CONFIRMATION_SUCCESS : CONFIRMATION_FAIL});
+    }
+
+    private static byte[] toByteArray(short[] data) {
+        byte[] result = new byte[data.length * Short.SIZE / Byte.SIZE];
+        ByteBuffer.wrap(result).order(ByteOrder.BIG_ENDIAN).asShortBuffer().put(data);
+        return result;
+    }
+
+    private static byte[] toByteArray(float[] data) {
+        byte[] result = new byte[data.length * Float.SIZE / Byte.SIZE];
+        ByteBuffer.wrap(result).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(data);
+        return result;
+    }
+}
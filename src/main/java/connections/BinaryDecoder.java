@@ -0,0 +1,89 @@
+package connections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming decoder of {@link BinaryProtocol} frames.
+ * <p>
+ * <p> Bytes from start of frame are kept until frame is checked by {@link BinaryProtocol#checkFrame(byte[], int, int)}.
+ * Invalid frame is dropped and decoder resynchronises on next start of frame after its first byte,
+ * so false start of frame doesn't swallow the real frames behind it.
+ */
+class BinaryDecoder implements FrameDecoder {
+
+    private final byte[] pending = new byte[BinaryProtocol.HEADER_LENGTH + BinaryProtocol.MAX_DATA_LENGTH];
+
+    /* Number of kept bytes, the first of them is start of frame */
+    private int count = 0;
+    private int droppedFrames = 0;
+
+    @Override
+    public List<byte[]> decode(byte[] data, int offset, int length) {
+
+        List<byte[]> frames = Collections.emptyList();
+
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+
+            if (count == 0 && b != BinaryProtocol.START_OF_FRAME)
+                continue;
+
+            pending[count++] = b;
+            frames = checkPending(frames);
+        }
+
+        return frames;
+    }
+
+    private List<byte[]> checkPending(List<byte[]> frames) {
+        while (count > 0) {
+            int frameLength = BinaryProtocol.checkFrame(pending, 0, count);
+
+            if (frameLength == BinaryProtocol.INCOMPLETE_FRAME)
+                break;
+
+            if (frameLength == BinaryProtocol.INVALID_FRAME) {
+                droppedFrames++;
+                drop(1);
+                continue;
+            }
+
+            byte[] decoded = new byte[frameLength - BinaryProtocol.HEADER_LENGTH];
+            System.arraycopy(pending, BinaryProtocol.HEADER_LENGTH, decoded, 0, decoded.length);
+
+            if (frames.isEmpty())
+                frames = new ArrayList<>(1);
+            frames.add(decoded);
+
+            drop(frameLength);
+        }
+
+        return frames;
+    }
+
+    /**
+     * Drop first bytes and bytes before next start of frame
+     */
+    private void drop(int length) {
+        int next = length;
+        while (next < count && pending[next] != BinaryProtocol.START_OF_FRAME)
+            next++;
+
+        System.arraycopy(pending, next, pending, 0, count - next);
+        count -= next;
+    }
+
+    @Override
+    public void reset() {
+        if (count > 0)
+            droppedFrames++;
+        count = 0;
+    }
+
+    @Override
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+}
@@ -0,0 +1,128 @@
+package connections;
+
+import exception.InvalidProtocol;
+import packet.CRC16;
+import packet.Packet;
+
+/**
+ * Class BinaryProtocol used for wrapping transmitted data by binary header (RTU-style framing).
+ * <p>
+ * <p> Frame structure:
+ * <p>  | SOF | LENGTH | DATA |
+ * <p>
+ * <p>  1) SOF (const value with const size 1 byte) - start of frame (0xa5)
+ * <p>  2) LENGTH (var value with const size 2 bytes) - length of data array
+ * <p>  3) DATA (var value with var size N bytes) - data array as is
+ * <p>
+ * <p> Unlike {@link ModBus} data bytes aren't coded by ASCII symbols, so frame is about half as long.
+ * Data integrity is checked by packet CRC16.
+ * <p>
+ * <p> Start of frame may be met inside data too, so frame is accepted only if length of packet inside it and CRC16
+ * agree with header (see {@link #checkFrame(byte[], int, int)}). Otherwise frame is searched again from the next byte.
+ */
+public class BinaryProtocol implements Protocol {
+
+    static final byte START_OF_FRAME = (byte) 0xA5;
+    static final int HEADER_LENGTH = 3;
+
+    static final int MIN_DATA_LENGTH = Packet.DATA_COUNT_LENGTH + Packet.MIN_FRAME_LENGTH;
+    static final int MAX_DATA_LENGTH = Packet.DATA_COUNT_LENGTH + Packet.MAX_FRAME_LENGTH;
+
+    /* Results of frame checking, besides length of valid frame */
+    static final int INVALID_FRAME = -1;
+    static final int INCOMPLETE_FRAME = 0;
+
+    private static final int CRC16_LENGTH = 2;
+    private static final int COMMAND_LENGTH = 2;
+
+    static boolean isValidDataLength(int length) {
+        return length >= MIN_DATA_LENGTH && length <= MAX_DATA_LENGTH;
+    }
+
+    /**
+     * Check frame, which begins by start of frame.
+     *
+     * @param buffer received bytes
+     * @param start  position of start of frame
+     * @param count  number of received bytes in buffer
+     * @return length of valid frame (with header), {@link #INCOMPLETE_FRAME} - frame isn't received completely yet,
+     * {@link #INVALID_FRAME} - bytes from start aren't frame
+     */
+    static int checkFrame(byte[] buffer, int start, int count) {
+        if (start + HEADER_LENGTH > count)
+            return INCOMPLETE_FRAME;
+
+        int length = getShort(buffer, start + 1);
+        if (!isValidDataLength(length))
+            return INVALID_FRAME;
+
+        int end = start + HEADER_LENGTH + length;
+        if (end > count)
+            return INCOMPLETE_FRAME;
+
+        // Length of packet counts command, data and CRC16 of packet
+        int dataStart = start + HEADER_LENGTH;
+        if (getShort(buffer, dataStart) != length - Packet.DATA_COUNT_LENGTH)
+            return INVALID_FRAME;
+
+        int packetDataStart = dataStart + Packet.DATA_COUNT_LENGTH + COMMAND_LENGTH;
+        int packetDataLength = end - CRC16_LENGTH - packetDataStart;
+        if ((short) getShort(buffer, end - CRC16_LENGTH) != CRC16.calculate(buffer, packetDataStart, packetDataLength))
+            return INVALID_FRAME;
+
+        return HEADER_LENGTH + length;
+    }
+
+    private static int getShort(byte[] buffer, int index) {
+        return (buffer[index] & 0xFF) << 8 | (buffer[index + 1] & 0xFF);
+    }
+
+    @Override
+    public String toString() {
+        return "BinaryProtocol{}";
+    }
+
+    @Override
+    public byte[] wrap(byte[] data) {
+
+        byte[] result = new byte[HEADER_LENGTH + data.length];
+
+        result[0] = START_OF_FRAME;
+        result[1] = (byte) (data.length >> 8);
+        result[2] = (byte) data.length;
+        System.arraycopy(data, 0, result, HEADER_LENGTH, data.length);
+
+        return result;
+    }
+
+    @Override
+    public byte[] unwrap(byte[] code) throws InvalidProtocol {
+
+        if (code.length < HEADER_LENGTH || code[0] != START_OF_FRAME)
+            throw new InvalidProtocol("The binary protocol is broken: no start of frame");
+
+        int length = getShort(code, 1);
+        if (length != code.length - HEADER_LENGTH)
+            throw new InvalidProtocol("The binary protocol is broken: " +
+                    "expected " + length + " data bytes, actual " + (code.length - HEADER_LENGTH));
+
+        byte[] data = new byte[length];
+        System.arraycopy(code, HEADER_LENGTH, data, 0, length);
+        return data;
+    }
+
+    @Override
+    public FrameDecoder createDecoder() {
+        return new BinaryDecoder();
+    }
+
+    @Override
+    public FrameScanner createScanner() {
+        return new LengthPrefixScanner();
+    }
+
+    @Override
+    public int getWireLength(int dataLength) {
+        return HEADER_LENGTH + dataLength;
+    }
+}
@@ -0,0 +1,235 @@
+package connections;
+
+import packet.Command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free per-command metrics of connection: counters of packets, bytes and failures,
+ * histograms of round trip latency (request sent - response received) and device operation latency.
+ */
+public class CommandMetrics {
+
+    private static final Command[] COMMANDS = Command.values();
+
+    private final AtomicLongArray requests = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray responses = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray bytesOut = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray bytesIn = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray errorReplies = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray confirmationFailures = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray crcErrors = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray droppedFrames = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray timeouts = new AtomicLongArray(COMMANDS.length);
+    private final AtomicLongArray cachedSettings = new AtomicLongArray(COMMANDS.length);
+
+    private final LatencyHistogram[] roundTrips = new LatencyHistogram[COMMANDS.length];
+    private final LatencyHistogram[] operations = new LatencyHistogram[COMMANDS.length];
+
+    public CommandMetrics() {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            roundTrips[i] = new LatencyHistogram();
+            operations[i] = new LatencyHistogram();
+        }
+    }
+
+    void recordRequest(Command command, int length) {
+        int i = command.ordinal();
+        requests.incrementAndGet(i);
+        bytesOut.addAndGet(i, length);
+    }
+
+    void recordResponse(Command command, int length) {
+        int i = command.ordinal();
+        responses.incrementAndGet(i);
+        bytesIn.addAndGet(i, length);
+    }
+
+    /**
+     * @param command     command of request
+     * @param roundTripNs time from sending of request to receiving of response, which has been matched to it
+     */
+    void recordRoundTrip(Command command, long roundTripNs) {
+        roundTrips[command.ordinal()].record(roundTripNs);
+    }
+
+    /**
+     * @param command command of request, which has been answered by error information
+     */
+    void recordErrorReply(Command command) {
+        errorReplies.incrementAndGet(command.ordinal());
+    }
+
+    void recordCrcError(Command command) {
+        crcErrors.incrementAndGet(command.ordinal());
+    }
+
+    void recordDroppedFrames(Command command, int count) {
+        droppedFrames.addAndGet(command.ordinal(), count);
+    }
+
+    void recordTimeout(Command command) {
+        timeouts.incrementAndGet(command.ordinal());
+    }
+
+    public void recordConfirmationFailure(Command command) {
+        confirmationFailures.incrementAndGet(command.ordinal());
+    }
+
+    /**
+     * @param command setting, which isn't sent, because device already has the same value
+     */
+    public void recordCachedSetting(Command command) {
+        cachedSettings.incrementAndGet(command.ordinal());
+    }
+
+    /**
+     * @param command   command of device operation
+     * @param latencyNs time of operation execution (request, response and its check)
+     */
+    public void recordOperation(Command command, long latencyNs) {
+        operations[command.ordinal()].record(latencyNs);
+    }
+
+    public void reset() {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            requests.set(i, 0);
+            responses.set(i, 0);
+            bytesOut.set(i, 0);
+            bytesIn.set(i, 0);
+            errorReplies.set(i, 0);
+            confirmationFailures.set(i, 0);
+            crcErrors.set(i, 0);
+            droppedFrames.set(i, 0);
+            timeouts.set(i, 0);
+            cachedSettings.set(i, 0);
+            roundTrips[i].reset();
+            operations[i].reset();
+        }
+    }
+
+    /**
+     * @return metrics of commands, which have been sent or received
+     */
+    public List<Snapshot> getSnapshots() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (int i = 0; i < COMMANDS.length; i++) {
+            if (requests.get(i) == 0 && responses.get(i) == 0 && cachedSettings.get(i) == 0)
+                continue;
+
+            snapshots.add(new Snapshot(COMMANDS[i],
+                    requests.get(i), responses.get(i), bytesOut.get(i), bytesIn.get(i),
+                    errorReplies.get(i), confirmationFailures.get(i), crcErrors.get(i), droppedFrames.get(i), timeouts.get(i),
+                    cachedSettings.get(i), roundTrips[i].getSnapshot(), operations[i].getSnapshot()));
+        }
+
+        return Collections.unmodifiableList(snapshots);
+    }
+
+    /**
+     * Immutable metrics of one command
+     */
+    public static class Snapshot {
+
+        private final Command command;
+        private final long requests;
+        private final long responses;
+        private final long bytesOut;
+        private final long bytesIn;
+        private final long errorReplies;
+        private final long confirmationFailures;
+        private final long crcErrors;
+        private final long droppedFrames;
+        private final long timeouts;
+        private final long cachedSettings;
+        private final LatencyHistogram.Snapshot roundTrip;
+        private final LatencyHistogram.Snapshot operation;
+
+        Snapshot(Command command, long requests, long responses, long bytesOut, long bytesIn,
+                 long errorReplies, long confirmationFailures, long crcErrors, long droppedFrames, long timeouts,
+                 long cachedSettings, LatencyHistogram.Snapshot roundTrip, LatencyHistogram.Snapshot operation) {
+            this.command = command;
+            this.requests = requests;
+            this.responses = responses;
+            this.bytesOut = bytesOut;
+            this.bytesIn = bytesIn;
+            this.errorReplies = errorReplies;
+            this.confirmationFailures = confirmationFailures;
+            this.crcErrors = crcErrors;
+            this.droppedFrames = droppedFrames;
+            this.timeouts = timeouts;
+            this.cachedSettings = cachedSettings;
+            this.roundTrip = roundTrip;
+            this.operation = operation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s req %6d  resp %6d  out %8d B  in %8d B  " +
+                            "rtt p50 %7.2f p99 %7.2f max %7.2f ms  op total %9.1f ms  " +
+                            "err %d  conf fail %d  crc %d  dropped %d  timeout %d  cached %d",
+                    command, requests, responses, bytesOut, bytesIn,
+                    roundTrip.getPercentile(50) / 1e6, roundTrip.getPercentile(99) / 1e6, roundTrip.getMax() / 1e6,
+                    operation.getMean() * operation.getCount() / 1e6,
+                    errorReplies, confirmationFailures, crcErrors, droppedFrames, timeouts, cachedSettings);
+        }
+
+        public Command getCommand() {
+            return command;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getResponses() {
+            return responses;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        public long getErrorReplies() {
+            return errorReplies;
+        }
+
+        public long getConfirmationFailures() {
+            return confirmationFailures;
+        }
+
+        public long getCrcErrors() {
+            return crcErrors;
+        }
+
+        public long getDroppedFrames() {
+            return droppedFrames;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * @return count of settings, which weren't sent, because device already had the same value
+         */
+        public long getCachedSettings() {
+            return cachedSettings;
+        }
+
+        public LatencyHistogram.Snapshot getRoundTrip() {
+            return roundTrip;
+        }
+
+        public LatencyHistogram.Snapshot getOperation() {
+            return operation;
+        }
+    }
+}
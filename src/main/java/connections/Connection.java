@@ -9,9 +9,22 @@ public interface Connection {
 
     byte[] read() throws Exception;
 
+    /**
+     * Read one frame, waiting for it no longer than timeout
+     *
+     * @param timeoutMs deadline of this read call (ms)
+     * @return received frame
+     */
+    byte[] read(long timeoutMs) throws Exception;
+
     boolean write(byte[] data) throws Exception;
 
     boolean close() throws Exception;
 
     boolean isOpened();
+
+    /**
+     * Set protocol of frames transmitted by this connection
+     */
+    void setProtocol(Protocol protocol);
 }
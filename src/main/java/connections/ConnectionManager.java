@@ -1,18 +1,80 @@
 package connections;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import exception.InvalidCRC;
+import exception.InvalidProtocol;
+import packet.Command;
 import packet.Packet;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
 /**
  * Class for management connections, protocols and packets.
  */
 public class ConnectionManager {
 
+    private static final long RECEIVE_TIMEOUT_MS = 1000;
+
+    /* Max count of outstanding requests: frames of short requests fit device receive buffer */
+    public static final int DEFAULT_WINDOW = 8;
+
+    private static final ThreadFactory THREAD_FACTORY_OPERATIONS = new ThreadFactoryBuilder().setNameFormat("ConnectionManager-%d").setDaemon(true).build();
+
     private Connection connection;
     private Protocol protocol;
 
+    /* Continuous byte stream decoder and frames decoded from stream, but not received yet */
+    private final FrameDecoder decoder;
+    private final Deque<byte[]> decodedFrames = new ArrayDeque<>();
+
+    /* Fused single pass codec and decoder, which unpacks frame straight to packet, used when protocol is ModBus */
+    private final ModBusCodec codec;
+    private final ModBusDecoder modBusDecoder;
+
+    /* Thread of operations: request and its response are one operation, so operations don't interleave */
+    private final ListeningExecutorService executor;
+    private volatile Thread executorThread;
+
+    private final CommandMetrics metrics = new CommandMetrics();
+
+    /* Max count of requests without response, which are kept for matching: the oldest of them are forgotten */
+    private static final int MAX_OUTSTANDING = 64;
+
+    /* Requests without response in order of sending: response and failure of receiving are counted for them */
+    private final Deque<SentRequest> outstanding = new ArrayDeque<>();
+    private long nextSequence = 0;
+
+    /* Request, which the last received response has been matched to (null - response isn't expected) */
+    private SentRequest lastMatchedRequest;
+
     public ConnectionManager(Connection connection, Protocol protocol) {
         this.connection = connection;
         this.protocol = protocol;
+        this.decoder = protocol.createDecoder();
+        this.codec = (protocol instanceof ModBus) ? new ModBusCodec() : null;
+        this.modBusDecoder = (decoder instanceof ModBusDecoder) ? (ModBusDecoder) decoder : null;
+
+        this.executor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = THREAD_FACTORY_OPERATIONS.newThread(runnable);
+                executorThread = thread;
+                return thread;
+            }
+        }));
+
+        connection.setProtocol(protocol);
     }
 
     @Override
@@ -27,26 +89,295 @@ public class ConnectionManager {
         return connection;
     }
 
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Execute operation with connection on thread of operations.
+     * Operation submitted from this thread (nested operation) is executed immediately.
+     *
+     * @param operation sending and receiving packets
+     * @return future result of operation
+     */
+    public <T> ListenableFuture<T> submit(Callable<T> operation) {
+        if (Thread.currentThread() == executorThread) {
+            try {
+                return Futures.immediateFuture(operation.call());
+            } catch (Exception e) {
+                return Futures.immediateFailedFuture(e);
+            }
+        }
+
+        return executor.submit(operation);
+    }
+
+    /**
+     * Stop thread of operations, pending operations are cancelled. Connection isn't closed.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Receive response. Response is matched to the oldest request without response with the same command,
+     * error information is matched to the oldest request. Response, which doesn't match any request
+     * (late response to forgotten request), is dropped and next response is received.
+     * Broken or missing response is counted for the oldest request, which won't be answered.
+     *
+     * @return new packet for every response, because callers keep responses
+     */
     public Packet receivePacket() throws Exception {
 
-        Packet receivedPacket = new Packet();
+        while (true) {
+            Packet receivedPacket = new Packet();
+            int droppedFrames = decoder.getDroppedFrames();
+            Command expectedCommand = getExpectedCommand();
+            lastMatchedRequest = null;
+
+            try {
+                byte[] unwrappedData = receiveFrame(receivedPacket);
+                if (unwrappedData != null)
+                    receivedPacket.unpack(unwrappedData);
+            } catch (InvalidCRC e) {
+                lastMatchedRequest = matchRequest(null);
+                metrics.recordCrcError(expectedCommand);
+                throw e;
+            } finally {
+                droppedFrames = decoder.getDroppedFrames() - droppedFrames;
+                if (droppedFrames > 0)
+                    metrics.recordDroppedFrames(expectedCommand, droppedFrames);
+            }
+
+            Command command = receivedPacket.getCommand();
+            if (command == null) {
+                // Unknown command answers the oldest request like error information
+                lastMatchedRequest = matchRequest(null);
+                if (lastMatchedRequest != null)
+                    metrics.recordErrorReply(lastMatchedRequest.command);
+                return receivedPacket;
+            }
+
+            long receivedNs = System.nanoTime();
+            metrics.recordResponse(command, protocol.getWireLength(receivedPacket.getPackedLength()));
+
+            SentRequest request = matchRequest(command);
+            if (request == null && !command.isErrorReply()) {
+                metrics.recordDroppedFrames(command, 1);
+                continue;
+            }
+            lastMatchedRequest = request;
+
+            if (command.isErrorReply())
+                metrics.recordErrorReply(request != null ? request.command : command);
+            else
+                metrics.recordRoundTrip(request.command, receivedNs - request.sentNs);
+
+            return receivedPacket;
+        }
+    }
+
+    private boolean hasOutstanding() {
+        synchronized (outstanding) {
+            return !outstanding.isEmpty();
+        }
+    }
+
+    /**
+     * @return command of the oldest request without response, {@link Command#NO_COMMAND} - there isn't such request
+     */
+    private Command getExpectedCommand() {
+        synchronized (outstanding) {
+            SentRequest oldest = outstanding.peek();
+            return (oldest != null) ? oldest.command : Command.NO_COMMAND;
+        }
+    }
+
+    /**
+     * Remove request, which is answered by response with given command
+     *
+     * @param command command of response, null - response is lost, the oldest request is removed
+     * @return matched request, null - there isn't request with command of response or,
+     * for error information and lost response, there isn't request without response at all
+     */
+    private SentRequest matchRequest(Command command) {
+        synchronized (outstanding) {
+            if (command == null || command.isErrorReply())
+                return outstanding.poll();
 
-        byte[] readData = connection.read();
-        byte[] unwrappedData = protocol.unwrap(readData);
-        receivedPacket.unpack(unwrappedData);
+            Iterator<SentRequest> it = outstanding.iterator();
+            while (it.hasNext()) {
+                SentRequest request = it.next();
+                if (request.command == command) {
+                    it.remove();
+                    return request;
+                }
+            }
 
-        return receivedPacket;
+            return null;
+        }
+    }
+
+    /**
+     * Read byte stream from connection until decoder emits frame or receive timeout is elapsed.
+     * Broken frames are skipped by decoder, so next valid frame is received by the same call.
+     *
+     * @param packet packet, to which frame is unpacked directly, if it is the only frame of ModBus completed by read
+     * @return decoded frame, or null if read frame has been already decoded to packet
+     */
+    private byte[] receiveFrame(Packet packet) throws Exception {
+
+        long deadlineMs = System.currentTimeMillis() + RECEIVE_TIMEOUT_MS;
+
+        while (decodedFrames.isEmpty()) {
+            long leftMs = Math.max(deadlineMs - System.currentTimeMillis(), 0);
+
+            byte[] readData;
+            try {
+                readData = connection.read(leftMs);
+            } catch (Exception e) {
+                // Rest of frame is lost: don't take bytes of next frame as its continuation
+                decoder.reset();
+                metrics.recordTimeout(getExpectedCommand());
+                lastMatchedRequest = matchRequest(null);
+                throw e;
+            }
+
+            // Common case: read completes one frame of ModBus, which is unpacked without copy
+            if (modBusDecoder != null) {
+                if (modBusDecoder.decode(readData, 0, readData.length, packet, decodedFrames))
+                    return null;
+            } else {
+                decodedFrames.addAll(decoder.decode(readData, 0, readData.length));
+            }
+
+            if (decodedFrames.isEmpty() && leftMs == 0) {
+                metrics.recordTimeout(getExpectedCommand());
+                lastMatchedRequest = matchRequest(null);
+                throw new InvalidProtocol("No complete frame of " + protocol + " has been received from " + connection);
+            }
+        }
+
+        return decodedFrames.poll();
     }
 
     public boolean sendPacket(Packet packet) throws Exception {
 
         boolean result = false;
         if (packet != null) {
-            byte[] packedData = packet.pack();
-            byte[] wrappedData = protocol.wrap(packedData);
+            byte[] wrappedData = (codec != null) ?
+                    codec.encode(packet) :
+                    protocol.wrap(packet.pack());
+
+            metrics.recordRequest(packet.getCommand(), wrappedData.length);
+
+            long sentNs = System.nanoTime();
             result = connection.write(wrappedData);
+
+            if (result) {
+                synchronized (outstanding) {
+                    if (outstanding.size() >= MAX_OUTSTANDING)
+                        outstanding.poll();
+                    outstanding.add(new SentRequest(packet.getCommand(), sentNs, nextSequence++));
+                }
+            }
         }
 
         return result;
     }
+
+    /**
+     * Send requests pipelined: up to {@code window} requests are outstanding, next request is sent
+     * as soon as response to one of them is received. Every request must be answered by exactly one response.
+     * <p>
+     * <p> Frames have no sequence numbers, so response is matched to request like by {@link #receivePacket()}.
+     * Responses to requests sent before are drained first. If transaction fails, responses to its requests
+     * in flight are drained too, so they aren't taken for responses of next operation.
+     *
+     * @param requests packets to send
+     * @param window   max count of outstanding requests, from 1 to {@link #MAX_OUTSTANDING}
+     * @return responses in order of requests
+     */
+    public List<Packet> transact(List<Packet> requests, int window) throws Exception {
+
+        if (window < 1 || window > MAX_OUTSTANDING)
+            throw new IllegalArgumentException("Window of outstanding requests must be from 1 to " + MAX_OUTSTANDING + ": " + window);
+
+        if (hasOutstanding())
+            drainOutstanding();
+
+        long firstSequence;
+        synchronized (outstanding) {
+            firstSequence = nextSequence;
+        }
+
+        Packet[] responses = new Packet[requests.size()];
+        int sent = 0;
+        int received = 0;
+        try {
+            while (received < requests.size()) {
+
+                if (sent < requests.size() && sent - received < window) {
+                    if (!sendPacket(requests.get(sent)))
+                        throw new InvalidProtocol("Can't send " + requests.get(sent).getCommand() + " to " + connection);
+                    sent++;
+                    continue;
+                }
+
+                Packet response = receivePacket();
+                if (lastMatchedRequest == null)
+                    throw new InvalidProtocol("Response " + response.getCommand() + " doesn't match any request to " + connection);
+
+                responses[(int) (lastMatchedRequest.sequence - firstSequence)] = response;
+                received++;
+            }
+        } catch (Exception e) {
+            drainOutstanding();
+            throw e;
+        }
+
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * Receive responses to outstanding requests until all of them are answered or lost, but no longer than
+     * receive timeout. Requests left without response are forgotten, so their late responses are dropped,
+     * and decoder starts from clean state.
+     */
+    private void drainOutstanding() {
+        long deadlineMs = System.currentTimeMillis() + RECEIVE_TIMEOUT_MS;
+
+        while (hasOutstanding() && System.currentTimeMillis() < deadlineMs) {
+            try {
+                receivePacket();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception ignored) {
+                // Broken or lost response is counted for its request
+            }
+        }
+
+        synchronized (outstanding) {
+            outstanding.clear();
+        }
+        decodedFrames.clear();
+        decoder.reset();
+    }
+
+    /**
+     * Request, which has been sent and waits for response
+     */
+    private static class SentRequest {
+
+        private final Command command;
+        private final long sentNs;
+        private final long sequence;
+
+        SentRequest(Command command, long sentNs, long sequence) {
+            this.command = command;
+            this.sentNs = sentNs;
+            this.sequence = sequence;
+        }
+    }
 }
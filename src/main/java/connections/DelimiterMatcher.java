@@ -0,0 +1,93 @@
+package connections;
+
+/**
+ * Byte by byte matcher of start and end of frame sequences (used by {@link ModBus}).
+ * <p>
+ * <p> The only framing rules of ModBus: streaming decoder, receive scanner and codec feed bytes to matcher,
+ * so all of them find the same frames. Start of frame is searched everywhere: inside other frame it means that
+ * previous frame is broken. End of frame is searched inside frame only, its sequence mustn't be interrupted.
+ */
+class DelimiterMatcher {
+
+    /**
+     * Meaning of byte in stream
+     */
+    enum Match {
+        /* Byte outside of frame */
+        OUTSIDE,
+        /* Byte is part of start or end of frame sequence, sequence isn't complete yet */
+        DELIMITER,
+        /* Start of frame sequence is complete: new frame begins */
+        OPENED,
+        /* Start of frame sequence is complete inside other frame: previous frame is broken, new frame begins */
+        REOPENED,
+        /* Byte of code inside frame */
+        CODE,
+        /* End of frame sequence is complete: frame is over */
+        CLOSED,
+        /* End of frame sequence is interrupted by other byte: frame is broken */
+        BROKEN
+    }
+
+    private final byte[] openCodeSeq;
+    private final byte[] closeCodeSeq;
+
+    private boolean inFrame = false;
+    private int openMatched = 0;
+    private int closeMatched = 0;
+
+    DelimiterMatcher(byte[] openCodeSeq, byte[] closeCodeSeq) {
+        this.openCodeSeq = openCodeSeq;
+        this.closeCodeSeq = closeCodeSeq;
+    }
+
+    Match next(byte b) {
+        if (b == openCodeSeq[openMatched]) {
+            if (++openMatched < openCodeSeq.length)
+                return Match.DELIMITER;
+
+            boolean reopened = inFrame;
+            openMatched = 0;
+            closeMatched = 0;
+            inFrame = true;
+            return reopened ? Match.REOPENED : Match.OPENED;
+        }
+        openMatched = 0;
+
+        if (!inFrame)
+            return Match.OUTSIDE;
+
+        if (b == closeCodeSeq[closeMatched]) {
+            if (++closeMatched < closeCodeSeq.length)
+                return Match.DELIMITER;
+
+            endFrame();
+            return Match.CLOSED;
+        }
+
+        if (closeMatched > 0) {
+            endFrame();
+            return Match.BROKEN;
+        }
+
+        return Match.CODE;
+    }
+
+    /**
+     * Leave frame, which is dropped because of its code, bytes till next start of frame are outside of frame
+     */
+    void endFrame() {
+        inFrame = false;
+        closeMatched = 0;
+    }
+
+    int getOpenLength() {
+        return openCodeSeq.length;
+    }
+
+    void reset() {
+        inFrame = false;
+        openMatched = 0;
+        closeMatched = 0;
+    }
+}
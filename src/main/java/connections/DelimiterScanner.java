@@ -0,0 +1,65 @@
+package connections;
+
+/**
+ * Scanner of frames bounded by start and end of frame sequences (used by {@link ModBus}).
+ * <p>
+ * <p> Frame boundaries are found by {@link DelimiterMatcher}, like by streaming decoder. Start of frame inside
+ * other frame means that previous frame is broken: scanner resynchronises on it.
+ */
+class DelimiterScanner implements FrameScanner {
+
+    private final DelimiterMatcher matcher;
+
+    private int frameStart = -1;
+    private int frameEnd = -1;
+    private int scanned = 0;
+
+    DelimiterScanner(byte[] openCodeSeq, byte[] closeCodeSeq) {
+        this.matcher = new DelimiterMatcher(openCodeSeq, closeCodeSeq);
+    }
+
+    @Override
+    public boolean scan(byte[] buffer, int count) {
+        while (frameEnd < 0 && scanned < count) {
+            int position = scanned++;
+
+            switch (matcher.next(buffer[position])) {
+                case OPENED:
+                case REOPENED:
+                    frameStart = position + 1 - matcher.getOpenLength();
+                    break;
+
+                case CLOSED:
+                    frameEnd = position + 1;
+                    break;
+
+                case BROKEN:
+                    frameStart = -1;
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return frameEnd >= 0;
+    }
+
+    @Override
+    public int getFrameStart() {
+        return frameStart;
+    }
+
+    @Override
+    public int getFrameEnd() {
+        return frameEnd;
+    }
+
+    @Override
+    public void reset() {
+        matcher.reset();
+        frameStart = -1;
+        frameEnd = -1;
+        scanned = 0;
+    }
+}
@@ -0,0 +1,31 @@
+package connections;
+
+import java.util.List;
+
+/**
+ * Stateful streaming decoder of protocol frames.
+ * <p>
+ * <p> Takes any slices of continuous byte stream and keeps partial frame between calls.
+ */
+public interface FrameDecoder {
+
+    /**
+     * Decode next slice of byte stream
+     *
+     * @param data   byte stream slice
+     * @param offset offset of first byte in slice
+     * @param length number of bytes in slice
+     * @return frames completed by this slice (may be empty list)
+     */
+    List<byte[]> decode(byte[] data, int offset, int length);
+
+    /**
+     * Drop partial frame state
+     */
+    void reset();
+
+    /**
+     * @return number of broken frames dropped since decoder creation
+     */
+    int getDroppedFrames();
+}
@@ -0,0 +1,33 @@
+package connections;
+
+/**
+ * Finds frame boundaries in receive buffer of connection while bytes arrive.
+ * <p>
+ * <p> Scanner keeps position of last scanning, so every arrived byte is checked only once.
+ */
+public interface FrameScanner {
+
+    /**
+     * Continue scanning buffer from last scanned position.
+     *
+     * @param buffer receive buffer
+     * @param count  number of received bytes in buffer
+     * @return true if complete frame is found: its bounds are {@link #getFrameStart()} and {@link #getFrameEnd()}
+     */
+    boolean scan(byte[] buffer, int count);
+
+    /**
+     * @return position of first byte of found frame
+     */
+    int getFrameStart();
+
+    /**
+     * @return position after last byte of found frame
+     */
+    int getFrameEnd();
+
+    /**
+     * Start scanning from the beginning of buffer
+     */
+    void reset();
+}
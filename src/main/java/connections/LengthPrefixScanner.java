@@ -0,0 +1,56 @@
+package connections;
+
+/**
+ * Scanner of {@link BinaryProtocol} frames: start of frame followed by valid length, packet length and CRC16.
+ * <p>
+ * <p> While frame from the first start of frame isn't received completely, next starts of frame are checked too,
+ * so false start of frame doesn't hide complete frame behind it.
+ */
+class LengthPrefixScanner implements FrameScanner {
+
+    private int frameStart = -1;
+    private int frameEnd = -1;
+    /* Position of the first byte, which may be start of frame */
+    private int scanned = 0;
+
+    @Override
+    public boolean scan(byte[] buffer, int count) {
+        for (int i = scanned; frameEnd < 0 && i < count; i++) {
+
+            if (buffer[i] != BinaryProtocol.START_OF_FRAME) {
+                if (i == scanned)
+                    scanned++;
+                continue;
+            }
+
+            int frameLength = BinaryProtocol.checkFrame(buffer, i, count);
+
+            if (frameLength == BinaryProtocol.INVALID_FRAME) {
+                if (i == scanned)
+                    scanned++;
+            } else if (frameLength != BinaryProtocol.INCOMPLETE_FRAME) {
+                frameStart = i;
+                frameEnd = i + frameLength;
+            }
+        }
+
+        return frameEnd >= 0;
+    }
+
+    @Override
+    public int getFrameStart() {
+        return frameStart;
+    }
+
+    @Override
+    public int getFrameEnd() {
+        return frameEnd;
+    }
+
+    @Override
+    public void reset() {
+        frameStart = -1;
+        frameEnd = -1;
+        scanned = 0;
+    }
+}
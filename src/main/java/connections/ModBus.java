@@ -47,6 +47,21 @@ public class ModBus implements Protocol {
         return ASCIICodeArrayToByteArray(subarray);
     }
 
+    @Override
+    public FrameDecoder createDecoder() {
+        return new ModBusDecoder();
+    }
+
+    @Override
+    public FrameScanner createScanner() {
+        return new DelimiterScanner(OPEN_CODE_SEQ, CLOSE_CODE_SEQ);
+    }
+
+    @Override
+    public int getWireLength(int dataLength) {
+        return OPEN_CODE_SEQ.length + 2 * dataLength + CLOSE_CODE_SEQ.length;
+    }
+
     private static byte[] ASCIICodeArrayToByteArray(byte[] code) {
 
         byte[] data = new byte[code.length / 2];
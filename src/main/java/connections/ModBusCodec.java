@@ -0,0 +1,58 @@
+package connections;
+
+import exception.InvalidPacketSize;
+import packet.Packet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fused Packet + ModBus codec.
+ * <p>
+ * <p> Encodes packet straight to wire bytes (frame delimiters, ASCII code of length, command, data and CRC16)
+ * in a single pass over packed packet. Wire bytes are decoded to packet by
+ * {@link ModBusDecoder#decode(byte[], int, int, Packet, java.util.Collection)}.
+ * Codec keeps packing buffer, so one instance must not be shared between threads.
+ */
+public class ModBusCodec {
+
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    /* Framing of wire frame is defined by protocol, codec only encodes without intermediate arrays */
+    private static final ModBus PROTOCOL = new ModBus();
+
+    private final ByteBuffer packed = ByteBuffer.allocate(Packet.DATA_COUNT_LENGTH + Packet.MAX_FRAME_LENGTH);
+
+    /**
+     * Pack packet to reusable buffer and code it to wire frame, without intermediate arrays. CRC16 of packet is updated.
+     *
+     * @return wire frame
+     */
+    public byte[] encode(Packet packet) throws InvalidPacketSize {
+
+        packed.clear();
+        packet.pack(packed);
+
+        byte[] packedArray = packed.array();
+        int packedLength = packed.position();
+
+        byte[] wire = new byte[PROTOCOL.getWireLength(packedLength)];
+        int position = 0;
+
+        for (byte b : ModBus.OPEN_CODE_SEQ)
+            wire[position++] = b;
+
+        for (int i = 0; i < packedLength; i++)
+            position = putByteCode(wire, position, packedArray[i]);
+
+        for (byte b : ModBus.CLOSE_CODE_SEQ)
+            wire[position++] = b;
+
+        return wire;
+    }
+
+    private static int putByteCode(byte[] wire, int position, int value) {
+        wire[position] = HEX_DIGITS[(value >> 4) & 0x0F];
+        wire[position + 1] = HEX_DIGITS[value & 0x0F];
+        return position + 2;
+    }
+}
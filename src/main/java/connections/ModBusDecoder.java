@@ -0,0 +1,158 @@
+package connections;
+
+import exception.InvalidCRC;
+import exception.InvalidPacketSize;
+import packet.Packet;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Streaming decoder of ModBus frames.
+ * <p>
+ * <p> Decodes ASCII code of frame on the fly and resynchronises on next {@link ModBus#OPEN_CODE_SEQ}
+ * after garbage or broken frame. Frame boundaries are found by {@link DelimiterMatcher}.
+ * <p>
+ * <p> Completed frame stays in decoding buffer until next frame begins, so frame, which is the only one completed
+ * by slice, is unpacked to packet straight from the buffer (see {@link #decode(byte[], int, int, Packet, Collection)}).
+ */
+public class ModBusDecoder implements FrameDecoder {
+
+    private static final int MAX_DATA_LENGTH = Packet.DATA_COUNT_LENGTH + Packet.MAX_FRAME_LENGTH;
+
+    private final byte[] frame = new byte[MAX_DATA_LENGTH];
+    private final ByteBuffer frameView = ByteBuffer.wrap(frame);
+
+    /* Length of completed frame, which is kept in decoding buffer only, -1 - there isn't such frame */
+    private int completedLength = -1;
+
+    private final DelimiterMatcher matcher = new DelimiterMatcher(ModBus.OPEN_CODE_SEQ, ModBus.CLOSE_CODE_SEQ);
+
+    private int nibbles = 0;
+    private int droppedFrames = 0;
+
+    @Override
+    public List<byte[]> decode(byte[] data, int offset, int length) {
+
+        List<byte[]> frames = new ArrayList<>(1);
+        scan(data, offset, length, frames);
+        flushCompleted(frames);
+
+        return frames;
+    }
+
+    /**
+     * Decode next slice of byte stream. If slice completes exactly one frame, the frame is unpacked to packet
+     * without copy, otherwise completed frames are added to frames like by {@link #decode(byte[], int, int)}.
+     * Partial frame is kept between calls in both cases.
+     *
+     * @param packet packet to unpack the only completed frame to
+     * @param frames frames completed by slice, if there isn't exactly one of them
+     * @return true if packet is unpacked
+     */
+    public boolean decode(byte[] data, int offset, int length, Packet packet, Collection<byte[]> frames)
+            throws InvalidCRC, InvalidPacketSize {
+
+        int framesCount = frames.size();
+        scan(data, offset, length, frames);
+
+        if (completedLength < 0 || frames.size() != framesCount) {
+            flushCompleted(frames);
+            return false;
+        }
+
+        frameView.clear();
+        frameView.limit(completedLength);
+        completedLength = -1;
+
+        packet.unpack(frameView);
+        return true;
+    }
+
+    private void scan(byte[] data, int offset, int length, Collection<byte[]> frames) {
+        for (int i = offset; i < offset + length; i++) {
+            DelimiterMatcher.Match match = matcher.next(data[i]);
+            switch (match) {
+                case REOPENED:
+                case OPENED:
+                    if (match == DelimiterMatcher.Match.REOPENED)
+                        droppedFrames++;
+                    flushCompleted(frames);
+                    nibbles = 0;
+                    break;
+
+                case CLOSED:
+                    completeFrame();
+                    break;
+
+                case BROKEN:
+                    droppedFrames++;
+                    break;
+
+                case CODE:
+                    decodeNibble(data[i]);
+                    break;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void decodeNibble(byte b) {
+        int digit = Character.digit(b, 16);
+        if (digit < 0 || nibbles >= 2 * MAX_DATA_LENGTH) {
+            dropFrame();
+            return;
+        }
+
+        if ((nibbles & 1) == 0) {
+            frame[nibbles >> 1] = (byte) (digit << 4);
+        } else {
+            frame[nibbles >> 1] |= digit;
+        }
+        nibbles++;
+    }
+
+    private void completeFrame() {
+        if ((nibbles & 1) != 0) {
+            droppedFrames++;
+            return;
+        }
+
+        completedLength = nibbles >> 1;
+    }
+
+    /**
+     * Copy completed frame out of decoding buffer before the buffer is reused
+     */
+    private void flushCompleted(Collection<byte[]> frames) {
+        if (completedLength < 0)
+            return;
+
+        byte[] decoded = new byte[completedLength];
+        System.arraycopy(frame, 0, decoded, 0, decoded.length);
+        frames.add(decoded);
+
+        completedLength = -1;
+    }
+
+    private void dropFrame() {
+        droppedFrames++;
+        matcher.endFrame();
+    }
+
+    @Override
+    public void reset() {
+        completedLength = -1;
+        matcher.reset();
+        nibbles = 0;
+    }
+
+    @Override
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+}
@@ -10,4 +10,20 @@ public interface Protocol {
     byte[] wrap(byte[] data);
 
     byte[] unwrap(byte[] data) throws InvalidProtocol;
+
+    /**
+     * @return new streaming decoder of this protocol frames
+     */
+    FrameDecoder createDecoder();
+
+    /**
+     * @return new scanner of this protocol frame boundaries for receive buffer of connection
+     */
+    FrameScanner createScanner();
+
+    /**
+     * @param dataLength length of wrapped data (bytes)
+     * @return length of frame on the wire (bytes)
+     */
+    int getWireLength(int dataLength);
 }
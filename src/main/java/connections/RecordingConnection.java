@@ -0,0 +1,98 @@
+package connections;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Connection decorator, which records all written and read data with timestamps to trace file.
+ * Trace is played back by {@link ReplayConnection}.
+ * <p>
+ * <p> Trace is opened, when connection is opened, and closed with connection.
+ * Records of next session are appended to the same trace.
+ */
+public class RecordingConnection implements Connection {
+
+    private final Connection connection;
+    private final File traceFile;
+
+    private volatile TraceWriter trace;
+
+    public RecordingConnection(Connection connection, File traceFile) {
+        this.connection = connection;
+        this.traceFile = traceFile;
+    }
+
+    @Override
+    public String toString() {
+        return connection + " (recording to " + traceFile + ")";
+    }
+
+    @Override
+    public boolean open() throws Exception {
+        if (trace == null)
+            trace = new TraceWriter(traceFile);
+
+        return connection.open();
+    }
+
+    @Override
+    public byte[] read() throws Exception {
+        try {
+            return record(TraceWriter.RECORD_READ, connection.read());
+        } catch (Exception e) {
+            recordError(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] read(long timeoutMs) throws Exception {
+        try {
+            return record(TraceWriter.RECORD_READ, connection.read(timeoutMs));
+        } catch (Exception e) {
+            recordError(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean write(byte[] data) throws Exception {
+        record(TraceWriter.RECORD_WRITE, data);
+        return connection.write(data);
+    }
+
+    @Override
+    public boolean close() throws Exception {
+        try {
+            return connection.close();
+        } finally {
+            TraceWriter closedTrace = trace;
+            trace = null;
+            if (closedTrace != null)
+                closedTrace.close();
+        }
+    }
+
+    @Override
+    public boolean isOpened() {
+        return connection.isOpened();
+    }
+
+    @Override
+    public void setProtocol(Protocol protocol) {
+        connection.setProtocol(protocol);
+    }
+
+    private byte[] record(byte type, byte[] data) throws IOException {
+        TraceWriter currentTrace = trace;
+        if (currentTrace != null && data != null)
+            currentTrace.write(type, data);
+        return data;
+    }
+
+    private void recordError(Exception e) throws IOException {
+        TraceWriter currentTrace = trace;
+        if (currentTrace != null)
+            currentTrace.writeError(e);
+    }
+}
@@ -0,0 +1,124 @@
+package connections;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection, which plays back trace recorded by {@link RecordingConnection}.
+ * <p>
+ * <p> Each read returns next recorded read data (or throws recorded failure of read), each write is checked
+ * against next recorded written data, so any difference from recorded session is detected.
+ * Reads are played back at recorded speed or as fast as possible.
+ */
+public class ReplayConnection implements Connection {
+
+    private final File traceFile;
+    private final boolean realTime;
+
+    private ByteBuffer records;
+    private long startNs;
+    private long startTimeNs;
+    private boolean opened = false;
+
+    /**
+     * @param traceFile file of trace
+     * @param realTime  true - data is read at recorded time, false - as fast as possible
+     */
+    public ReplayConnection(File traceFile, boolean realTime) {
+        this.traceFile = traceFile;
+        this.realTime = realTime;
+    }
+
+    @Override
+    public String toString() {
+        return "Replay { trace = " + traceFile + (realTime ? ", real time" : "") + " }";
+    }
+
+    @Override
+    public synchronized boolean open() throws IOException {
+        records = TraceWriter.readRecords(traceFile);
+        startNs = System.nanoTime();
+        startTimeNs = records.hasRemaining() ? records.getLong(records.position() + 1) : 0;
+        opened = true;
+        return true;
+    }
+
+    @Override
+    public byte[] read() throws Exception {
+        return read(0);
+    }
+
+    @Override
+    public synchronized byte[] read(long timeoutMs) throws Exception {
+        byte type = nextRecordType();
+        if (type != TraceWriter.RECORD_READ && type != TraceWriter.RECORD_ERROR)
+            throw new Exception("Replay of " + traceFile + " is diverged: read instead of write at " + records.position());
+
+        long timeNs = records.getLong(records.position() + 1);
+        byte[] data = nextRecord();
+
+        if (realTime) {
+            long delayNs = timeNs - startTimeNs - (System.nanoTime() - startNs);
+            if (delayNs > 0)
+                TimeUnit.NANOSECONDS.sleep(delayNs);
+        }
+
+        if (type == TraceWriter.RECORD_ERROR)
+            throw new Exception(new String(data, StandardCharsets.UTF_8));
+
+        return data;
+    }
+
+    @Override
+    public synchronized boolean write(byte[] data) throws Exception {
+        int position = records.position();
+        if (nextRecordType() != TraceWriter.RECORD_WRITE || !Arrays.equals(data, nextRecord()))
+            throw new Exception("Replay of " + traceFile + " is diverged: written data differs from trace at " + position);
+
+        return true;
+    }
+
+    @Override
+    public synchronized boolean close() {
+        records = null;
+        opened = false;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isOpened() {
+        return opened;
+    }
+
+    @Override
+    public void setProtocol(Protocol protocol) {
+    }
+
+    /**
+     * @return true, if all records have been played back
+     */
+    public synchronized boolean isFinished() {
+        return records != null && !records.hasRemaining();
+    }
+
+    private byte nextRecordType() throws Exception {
+        if (records == null)
+            throw new Exception("Replay of " + traceFile + " isn't opened");
+        if (!records.hasRemaining())
+            throw new Exception("Replay of " + traceFile + " is finished");
+
+        return records.get(records.position());
+    }
+
+    private byte[] nextRecord() {
+        records.get();
+        records.getLong();
+        byte[] data = new byte[records.getInt()];
+        records.get(data);
+        return data;
+    }
+}
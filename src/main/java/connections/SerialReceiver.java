@@ -0,0 +1,147 @@
+package connections;
+
+import jssc.SerialPort;
+import jssc.SerialPortEvent;
+import jssc.SerialPortEventListener;
+import jssc.SerialPortException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receive engine of UART connection.
+ * <p>
+ * <p> Collects incoming bytes on jssc RXCHAR events into frame buffer and looks for frame boundaries
+ * while bytes arrive, so pending read is completed right after end of frame is received.
+ */
+class SerialReceiver implements SerialPortEventListener {
+
+    private final SerialPort serialPort;
+    private final Object portLock;
+
+    private final byte[] buffer;
+    private int count = 0;
+
+    private FrameScanner scanner;
+    private boolean frameFound = false;
+
+    /**
+     * @param serialPort port to read bytes from
+     * @param portLock   lock shared with all other serial port operations
+     * @param capacity   max size of frame buffer (bytes)
+     * @param scanner    scanner of frame boundaries
+     */
+    SerialReceiver(SerialPort serialPort, Object portLock, int capacity, FrameScanner scanner) {
+        this.serialPort = serialPort;
+        this.portLock = portLock;
+        this.buffer = new byte[capacity];
+        this.scanner = scanner;
+    }
+
+    @Override
+    public void serialEvent(SerialPortEvent event) {
+        if (!event.isRXCHAR() || event.getEventValue() <= 0)
+            return;
+
+        byte[] readBytes;
+        try {
+            synchronized (portLock) {
+                readBytes = serialPort.readBytes(event.getEventValue());
+            }
+        } catch (SerialPortException e) {
+            return;
+        }
+
+        if (readBytes != null)
+            receive(readBytes, 0, readBytes.length);
+    }
+
+    /**
+     * Append received bytes to frame buffer and notify waiting reader, if frame is complete
+     */
+    synchronized void receive(byte[] data, int offset, int length) {
+
+        if (count + length > buffer.length) {
+            if (frameFound) {
+                // Complete frame waits for reader: drop only bytes before it and bytes, which don't fit after it
+                dropBefore(scanner.getFrameStart());
+                length = Math.min(length, buffer.length - count);
+            } else {
+                // Frame buffer overflow without frame: all stored bytes are garbage, drop it
+                clear();
+                if (length > buffer.length) {
+                    offset += length - buffer.length;
+                    length = buffer.length;
+                }
+            }
+        }
+
+        System.arraycopy(data, offset, buffer, count, length);
+        count += length;
+
+        if (!frameFound && scanner.scan(buffer, count)) {
+            frameFound = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Change scanner of frame boundaries, received bytes are rescanned by it
+     */
+    synchronized void setScanner(FrameScanner scanner) {
+        this.scanner = scanner;
+        scanner.reset();
+        frameFound = scanner.scan(buffer, count);
+    }
+
+    /**
+     * Wait until complete frame is received or deadline comes.
+     *
+     * @param deadlineNs deadline of waiting by {@link System#nanoTime()}
+     * @return received frame or all received bytes, if frame isn't completed until deadline
+     * (may be empty array, if nothing was received)
+     * @throws InterruptedException if waiting was interrupted
+     */
+    synchronized byte[] awaitFrame(long deadlineNs) throws InterruptedException {
+
+        while (!frameFound) {
+            long leftNs = deadlineNs - System.nanoTime();
+            if (leftNs <= 0)
+                return take(0, count);
+
+            TimeUnit.NANOSECONDS.timedWait(this, leftNs);
+        }
+
+        return take(scanner.getFrameStart(), scanner.getFrameEnd());
+    }
+
+    /**
+     * Take bytes [from, to) out of buffer. Bytes before are dropped, bytes after are kept for next read.
+     */
+    private byte[] take(int from, int to) {
+        byte[] result = new byte[to - from];
+        System.arraycopy(buffer, from, result, 0, result.length);
+
+        int left = count - to;
+        System.arraycopy(buffer, to, buffer, 0, left);
+        count = left;
+
+        scanner.reset();
+        frameFound = scanner.scan(buffer, count);
+
+        return result;
+    }
+
+    private void dropBefore(int from) {
+        System.arraycopy(buffer, from, buffer, 0, count - from);
+        count -= from;
+
+        scanner.reset();
+        frameFound = scanner.scan(buffer, count);
+    }
+
+    synchronized void clear() {
+        count = 0;
+        scanner.reset();
+        frameFound = false;
+    }
+}
@@ -0,0 +1,261 @@
+package connections;
+
+import exception.InvalidCRC;
+import exception.InvalidPacketSize;
+import packet.Command;
+import packet.Packet;
+
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process simulator of receiver and stand connected to one port.
+ * <p>
+ * <p> Receiver and stand may be connected by separate ports too (see {@link #createPort()}).
+ * <p>
+ * <p> Answers every command the same way as real devices do (see {@link BenchModel}), so all test cases
+ * can be executed without hardware. Response is available for reading after configurable latency
+ * and transmission time at configurable baud rate. Faults of real line can be injected:
+ * lost responses, responses with broken CRC and responses with error information.
+ */
+public class SimulatedBench implements Connection {
+
+    private static final int BITS_PER_BYTE = 10;
+
+    private final BenchModel model;
+    private final Random random;
+
+    /* Responses waiting for their time of arrival */
+    private final DelayQueue<Response> responses = new DelayQueue<>();
+
+    private volatile Protocol protocol = new ModBus();
+    private volatile FrameDecoder decoder = protocol.createDecoder();
+    private volatile boolean opened = false;
+
+    private volatile long latencyNs = 0;
+    private volatile int baudRate = 0;
+
+    private volatile double lossRate = 0;
+    private volatile double crcErrorRate = 0;
+    private volatile double errorReplyRate = 0;
+
+    /* Time, when last response is transmitted: responses are transmitted one by one */
+    private long lineFreeNs = System.nanoTime();
+    private long requestsCount = 0;
+
+    public SimulatedBench() {
+        this(0);
+    }
+
+    /**
+     * @param seed seed of noise and faults, the same seed gives the same sequence of responses
+     */
+    public SimulatedBench(long seed) {
+        this(new BenchModel(seed), new Random(seed));
+    }
+
+    private SimulatedBench(BenchModel model, Random random) {
+        this.model = model;
+        this.random = random;
+    }
+
+    /**
+     * @return other port of the same bench: commands of both ports are executed by the same receiver and stand,
+     * but each port has its own line, so responses of one port don't wait for responses of another
+     */
+    public SimulatedBench createPort() {
+        SimulatedBench port = new SimulatedBench(model, new Random(random.nextLong()));
+        port.latencyNs = latencyNs;
+        port.baudRate = baudRate;
+        port.setFaultRates(lossRate, crcErrorRate, errorReplyRate);
+        return port;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedBench { latency = " + TimeUnit.NANOSECONDS.toMillis(latencyNs) + " ms" +
+                ", baud rate = " + (baudRate > 0 ? baudRate : "unlimited") + " }";
+    }
+
+    /**
+     * @param latencyMs time between end of request and start of response
+     */
+    public void setLatencyMs(long latencyMs) {
+        this.latencyNs = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+    }
+
+    /**
+     * @param baudRate baud rate of simulated line, 0 - transmission takes no time
+     */
+    public void setBaudRate(int baudRate) {
+        this.baudRate = baudRate;
+    }
+
+    /**
+     * @param noise relative standard deviation of levels
+     */
+    public void setNoise(double noise) {
+        model.setNoise(noise);
+    }
+
+    /**
+     * @param transientTimeMs time constant of levels transient process after change of settings
+     */
+    public void setTransientTimeMs(long transientTimeMs) {
+        model.setTransientTimeMs(transientTimeMs);
+    }
+
+    /**
+     * @param transientDelayMs time after change of settings, during which levels don't change yet, like of slow receiver
+     */
+    public void setTransientDelayMs(long transientDelayMs) {
+        model.setTransientDelayMs(transientDelayMs);
+    }
+
+    /**
+     * @param outputError_dB deviation of real stand output voltage from set one, like of uncalibrated stand
+     */
+    public void setStandOutputError(double outputError_dB) {
+        model.setStandOutputError(outputError_dB);
+    }
+
+    /**
+     * Set probabilities of faults, injected to each response
+     *
+     * @param lossRate       response is lost
+     * @param crcErrorRate   response has broken CRC
+     * @param errorReplyRate error information is received instead of response
+     */
+    public void setFaultRates(double lossRate, double crcErrorRate, double errorReplyRate) {
+        this.lossRate = lossRate;
+        this.crcErrorRate = crcErrorRate;
+        this.errorReplyRate = errorReplyRate;
+    }
+
+    /**
+     * @return count of received requests
+     */
+    public synchronized long getRequestsCount() {
+        return requestsCount;
+    }
+
+    @Override
+    public boolean open() {
+        responses.clear();
+        decoder.reset();
+        opened = true;
+        return true;
+    }
+
+    @Override
+    public byte[] read() throws Exception {
+        return read(1000);
+    }
+
+    @Override
+    public byte[] read(long timeoutMs) throws Exception {
+        Response response = responses.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        return response != null ? response.frame : new byte[0];
+    }
+
+    @Override
+    public synchronized boolean write(byte[] data) throws Exception {
+        if (!opened)
+            return false;
+
+        long requestEndNs = System.nanoTime() + getTransmissionTimeNs(data.length);
+
+        for (byte[] frame : decoder.decode(data, 0, data.length)) {
+            requestsCount++;
+
+            Packet response = execute(frame);
+            if (response == null || random.nextDouble() < lossRate)
+                continue;
+
+            byte[] packed = response.pack();
+            if (random.nextDouble() < crcErrorRate)
+                packed[packed.length - 1] ^= 0x01;
+
+            byte[] wrapped = protocol.wrap(packed);
+
+            // Arrival times are strictly ascending, so responses are read in order of requests
+            long startNs = Math.max(requestEndNs + latencyNs, lineFreeNs + 1);
+            lineFreeNs = startNs + getTransmissionTimeNs(wrapped.length);
+            responses.add(new Response(wrapped, lineFreeNs));
+        }
+
+        return true;
+    }
+
+    private Packet execute(byte[] frame) {
+        Packet request = new Packet();
+        try {
+            request.unpack(frame);
+        } catch (InvalidCRC e) {
+            return new Packet(Command.INVALID_CRC_DEVICE);
+        } catch (InvalidPacketSize e) {
+            return new Packet(Command.INVALID_DATA_DEVICE);
+        }
+
+        Packet response = model.execute(request);
+
+        if (response != null && random.nextDouble() < errorReplyRate) {
+            response = new Packet(request.getCommand().isStandCommand() ?
+                    Command.ERROR_STAND :
+                    Command.ERROR_DEVICE);
+        }
+
+        return response;
+    }
+
+    private long getTransmissionTimeNs(int length) {
+        int rate = baudRate;
+        return rate > 0 ? TimeUnit.SECONDS.toNanos(length * BITS_PER_BYTE) / rate : 0;
+    }
+
+    @Override
+    public boolean close() {
+        opened = false;
+        responses.clear();
+        return true;
+    }
+
+    @Override
+    public boolean isOpened() {
+        return opened;
+    }
+
+    @Override
+    public synchronized void setProtocol(Protocol protocol) {
+        this.protocol = protocol;
+        this.decoder = protocol.createDecoder();
+    }
+
+    /**
+     * Response frame with its time of arrival
+     */
+    private static class Response implements Delayed {
+
+        private final byte[] frame;
+        private final long arrivalNs;
+
+        Response(byte[] frame, long arrivalNs) {
+            this.frame = frame;
+            this.arrivalNs = arrivalNs;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(arrivalNs - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof Response)
+                return Long.compare(arrivalNs, ((Response) other).arrivalNs);
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package connections;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only writer of wire traffic trace, backed by memory-mapped file.
+ * <p>
+ * <p> Trace file structure:
+ * <p>  | MAGIC | VERSION | DATA LENGTH | LAST TIME | RECORD 1 | ... | RECORD N |
+ * <p>
+ * <p>  1) MAGIC (4 bytes) - "APTR"
+ * <p>  2) VERSION (4 bytes) - version of format
+ * <p>  3) DATA LENGTH (8 bytes) - length of all records, bytes after them are unused
+ * <p>  4) LAST TIME (8 bytes) - time of last record (ns)
+ * <p>  5) RECORD - | TYPE (1 byte) | TIME (8 bytes) | LENGTH (4 bytes) | DATA (LENGTH bytes) |,
+ * time of record is counted from start of trace (ns)
+ * <p>
+ * <p> Header is updated after each record, so trace is valid even if application is killed.
+ * Appending of record is copying to mapped memory without system calls.
+ */
+class TraceWriter {
+
+    static final int MAGIC = 0x41505452;
+    static final int VERSION = 1;
+
+    static final int HEADER_LENGTH = 24;
+    static final int RECORD_HEADER_LENGTH = 13;
+
+    static final byte RECORD_WRITE = 0;
+    static final byte RECORD_READ = 1;
+    static final byte RECORD_ERROR = 2;
+
+    private static final int DATA_LENGTH_OFFSET = 8;
+    private static final int LAST_TIME_OFFSET = 16;
+    private static final int REGION_SIZE = 4 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+
+    /* Mapped region of file, to which records are appended */
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    private long dataLength;
+    private final long originNs;
+
+    /**
+     * Open trace file: records are appended to existing trace, or new trace is created
+     */
+    TraceWriter(File traceFile) throws IOException {
+        file = new RandomAccessFile(traceFile, "rw");
+        channel = file.getChannel();
+
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LENGTH);
+
+        long lastTimeNs = 0;
+        if (header.getInt(0) == MAGIC && header.getInt(4) == VERSION) {
+            dataLength = header.getLong(DATA_LENGTH_OFFSET);
+            lastTimeNs = header.getLong(LAST_TIME_OFFSET);
+        } else {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(DATA_LENGTH_OFFSET, 0);
+            header.putLong(LAST_TIME_OFFSET, 0);
+        }
+
+        // Time of appended records continues time of existing trace
+        originNs = System.nanoTime() - lastTimeNs;
+        mapRegion(0);
+    }
+
+    synchronized void write(byte type, byte[] data, int offset, int length) throws IOException {
+
+        int recordLength = RECORD_HEADER_LENGTH + length;
+        long position = HEADER_LENGTH + dataLength;
+        if (position + recordLength > regionStart + region.capacity())
+            mapRegion(recordLength);
+
+        long timeNs = System.nanoTime() - originNs;
+
+        region.position((int) (position - regionStart));
+        region.put(type);
+        region.putLong(timeNs);
+        region.putInt(length);
+        region.put(data, offset, length);
+
+        dataLength += recordLength;
+        header.putLong(LAST_TIME_OFFSET, timeNs);
+        header.putLong(DATA_LENGTH_OFFSET, dataLength);
+    }
+
+    void write(byte type, byte[] data) throws IOException {
+        write(type, data, 0, data.length);
+    }
+
+    void writeError(Exception e) throws IOException {
+        write(RECORD_ERROR, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Flush all records to storage device and close trace file
+     */
+    synchronized void close() throws IOException {
+        region.force();
+        header.force();
+        channel.close();
+        file.close();
+    }
+
+    /**
+     * Map region of file, which starts from current end of records
+     *
+     * @param minSize min size of region (bytes)
+     */
+    private void mapRegion(int minSize) throws IOException {
+        regionStart = HEADER_LENGTH + dataLength;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(REGION_SIZE, minSize));
+    }
+
+    /**
+     * @return buffer with all records of trace file
+     */
+    static ByteBuffer readRecords(File traceFile) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(traceFile, "r")) {
+            FileChannel channel = file.getChannel();
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                throw new IOException("File " + traceFile + " isn't trace of version " + VERSION);
+
+            long dataLength = header.getLong(DATA_LENGTH_OFFSET);
+            return channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, dataLength);
+        }
+    }
+}
@@ -5,7 +5,6 @@ import exception.InvalidPacketSize;
 import jssc.SerialPort;
 import jssc.SerialPortException;
 import jssc.SerialPortList;
-import org.apache.commons.lang.ArrayUtils;
 import packet.Packet;
 
 import java.util.concurrent.*;
@@ -20,43 +19,49 @@ public class UART implements Connection {
     private static final int STOPBITS = SerialPort.STOPBITS_1;
     private static final int PARITY = SerialPort.PARITY_NONE;
 
-    private static final int READ_ATTEMPTS = 10;
-    private static final int READ_REPEAT_DELAY_MS = 50;
-    private static final int READ_STEP_DELAY_MS = 10;
-    private static final int READ_WAIT_TIMEOUT_MS;
+    private static final int READ_WAIT_TIMEOUT_MS = 1000;
 
     private static final int WRITE_WAIT_TIMEOUT_MS = 200;
 
-    private static final ThreadFactory THREAD_FACTORY_WRITER = new ThreadFactoryBuilder().setNameFormat("Writer-%d").setDaemon(true).build();
-    private static final ThreadFactory THREAD_FACTORY_READER = new ThreadFactoryBuilder().setNameFormat("Reader-%d").setDaemon(true).build();
-    private static final int MIN_READ_LENGTH = ModBus.OPEN_CODE_SEQ.length + 2 * (Packet.MIN_FRAME_LENGTH + Packet.DATA_COUNT_LENGTH) + ModBus.CLOSE_CODE_SEQ.length;
-    private static final int MAX_READ_LENGTH = ModBus.OPEN_CODE_SEQ.length + 2 * (Packet.MAX_FRAME_LENGTH + Packet.DATA_COUNT_LENGTH) + ModBus.CLOSE_CODE_SEQ.length;
+    private static final ThreadFactory THREAD_FACTORY_IO = new ThreadFactoryBuilder().setNameFormat("UART-IO-%d").setDaemon(true).build();
+    private static final Protocol DEFAULT_PROTOCOL = new ModBus();
+    private static final int MAX_PACKED_LENGTH = Packet.MAX_FRAME_LENGTH + Packet.DATA_COUNT_LENGTH;
+    private static final int MIN_PACKED_LENGTH = Packet.MIN_FRAME_LENGTH + Packet.DATA_COUNT_LENGTH;
 
-    private static UART instance = null;
-
-    static {
-        int sum = 0;
-        for (int i = READ_ATTEMPTS; i > 0; i--) {
-            sum += i * READ_STEP_DELAY_MS + READ_REPEAT_DELAY_MS;
-        }
-        READ_WAIT_TIMEOUT_MS = READ_STEP_DELAY_MS + sum + 100;
-    }
+    /* Instances by port name: one port is opened by the only instance, however many stations use it */
+    private static final ConcurrentMap<String, UART> INSTANCES = new ConcurrentHashMap<>();
 
     private final SerialPort serialPort;
     private final Object lock = new Object();
+    private final SerialReceiver receiver;
+
+    /* Valid length of read frame, depends on protocol */
+    private volatile int minReadLength;
+    private volatile int maxReadLength;
+
+    /* Long-lived I/O thread with request queue: exists while port is opened */
+    private volatile ExecutorService ioExecutor;
 
     private UART(String portName) {
-        serialPort = new SerialPort(portName);
+        this(new SerialPort(portName));
+    }
+
+    UART(SerialPort serialPort) {
+        this.serialPort = serialPort;
+        this.receiver = new SerialReceiver(serialPort, lock, 2 * DEFAULT_PROTOCOL.getWireLength(MAX_PACKED_LENGTH), DEFAULT_PROTOCOL.createScanner());
+        setReadLength(DEFAULT_PROTOCOL);
     }
 
     public static UART getInstance(String portName) {
+        UART instance = INSTANCES.get(portName);
         if (instance == null) {
-            instance = new UART(portName);
+            UART newInstance = new UART(portName);
+            instance = INSTANCES.putIfAbsent(portName, newInstance);
+            if (instance == null)
+                instance = newInstance;
         }
 
-        return (instance.getSerialPort().getPortName().equals(portName)) ?
-                instance :
-                new UART(portName);
+        return instance;
     }
 
     SerialPort getSerialPort() {
@@ -78,6 +83,11 @@ public class UART implements Connection {
         if (!isOpened()) {
             serialPort.openPort();
             serialPort.setParams(BAUDRATE, DATABITS, STOPBITS, PARITY, false, false);
+
+            receiver.clear();
+            serialPort.addEventListener(receiver, SerialPort.MASK_RXCHAR);
+
+            ioExecutor = Executors.newSingleThreadExecutor(THREAD_FACTORY_IO);
         }
 
         return isOpened();
@@ -85,76 +95,62 @@ public class UART implements Connection {
 
     @Override
     public byte[] read() throws Exception {
+        return read(READ_WAIT_TIMEOUT_MS);
+    }
 
-        final ScheduledExecutorService readExecutor = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY_READER);
-        byte[] readBuffer = new byte[0];
-
-        try {
-            readBuffer = readExecutor.schedule(new Callable<byte[]>() {
-
-                private byte[] buffer = new byte[0];
-                private int attemptsToRead = READ_ATTEMPTS;     // Количество попыток чтения буфера входных данных
-
-                @Override
-                public byte[] call() throws Exception {
-
-                    while (attemptsToRead > 0) {
-
-                        byte[] readBytes;
-
-                        synchronized (lock) {
-                            readBytes = serialPort.readBytes();
-                        }
-
-                        if (readBytes != null && readBytes.length > 0) {
-                            buffer = ArrayUtils.addAll(buffer, readBytes);
+    @Override
+    public byte[] read(long timeoutMs) throws Exception {
 
-                            // if new data read form port, insert delay to repeat read
-                            TimeUnit.MILLISECONDS.sleep(READ_REPEAT_DELAY_MS);
-                        }
+        long deadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        byte[] readBuffer;
 
-                        // Read timing: from 560 ms to 1060 ms
-                        TimeUnit.MILLISECONDS.sleep(attemptsToRead-- * READ_STEP_DELAY_MS);
-                    }
+        do {
+            // Wait until end of frame is received: read timing depends only on device response time
+            readBuffer = receiver.awaitFrame(deadlineNs);
 
-                    return buffer;
-                }
-            }, READ_STEP_DELAY_MS, TimeUnit.MILLISECONDS).get(READ_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-        } finally {
-            // Already shutdown executor and kill all "read" threads
-            readExecutor.shutdown();
-        }
+            // Frame with invalid length is broken: skip it and wait for next one until deadline
+        } while (!isValidReadLength(readBuffer.length) && System.nanoTime() - deadlineNs < 0);
 
-        if (readBuffer.length < MIN_READ_LENGTH || readBuffer.length > MAX_READ_LENGTH)
+        if (!isValidReadLength(readBuffer.length))
             throw new InvalidPacketSize(String.format("Read %d bytes (expected from %d to %d bytes) data from port %s",
-                    readBuffer.length, MIN_READ_LENGTH, MAX_READ_LENGTH, this));
+                    readBuffer.length, minReadLength, maxReadLength, this));
 
         return readBuffer;
     }
 
+    private boolean isValidReadLength(int length) {
+        return length >= minReadLength && length <= maxReadLength;
+    }
+
     @Override
     public boolean write(final byte[] buffer) throws Exception {
 
-        Integer leftOutputBufferBytesCount = -1;
-        ExecutorService writeExecutor = Executors.newSingleThreadExecutor(THREAD_FACTORY_WRITER);
+        ExecutorService executor = ioExecutor;
+        if (executor == null)
+            throw new SerialPortException(serialPort.getPortName(), "write", SerialPortException.TYPE_PORT_NOT_OPENED);
 
-        try {
-            leftOutputBufferBytesCount = writeExecutor.submit(new Callable<Integer>() {
+        Future<Integer> writing = executor.submit(new Callable<Integer>() {
 
-                @Override
-                public Integer call() throws Exception {
-                    int outputBufferBytesCount = -1;
+            @Override
+            public Integer call() throws Exception {
+                int outputBufferBytesCount = -1;
 
-                    synchronized (lock) {
-                        if (serialPort.writeBytes(buffer)) {
-                            outputBufferBytesCount = serialPort.getOutputBufferBytesCount();
-                        }
+                synchronized (lock) {
+                    if (serialPort.writeBytes(buffer)) {
+                        outputBufferBytesCount = serialPort.getOutputBufferBytesCount();
                     }
-                    return outputBufferBytesCount;
                 }
-            }).get(WRITE_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-        } finally {
-            writeExecutor.shutdownNow();
+                return outputBufferBytesCount;
+            }
+        });
+
+        Integer leftOutputBufferBytesCount;
+        try {
+            leftOutputBufferBytesCount = writing.get(WRITE_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Caller gives up the request: stale frame mustn't be sent after next request
+            writing.cancel(true);
+            throw e;
         }
 
         return leftOutputBufferBytesCount == 0;
@@ -162,9 +158,27 @@ public class UART implements Connection {
 
     @Override
     public boolean close() throws SerialPortException {
+        ExecutorService executor = ioExecutor;
+        if (executor != null) {
+            // Stop I/O thread and cancel all queued requests, write in progress is completed
+            executor.shutdownNow();
+            ioExecutor = null;
+
+            try {
+                executor.awaitTermination(WRITE_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         if (isOpened()) {
-            serialPort.purgePort(SerialPort.PURGE_RXCLEAR | SerialPort.PURGE_TXCLEAR);
-            serialPort.closePort();
+            serialPort.removeEventListener();
+
+            // Port isn't closed under write, even if I/O thread hasn't stopped in time
+            synchronized (lock) {
+                serialPort.purgePort(SerialPort.PURGE_RXCLEAR | SerialPort.PURGE_TXCLEAR);
+                serialPort.closePort();
+            }
         }
         return !isOpened();
     }
@@ -173,5 +187,16 @@ public class UART implements Connection {
     public boolean isOpened() {
         return serialPort.isOpened();
     }
+
+    @Override
+    public void setProtocol(Protocol protocol) {
+        receiver.setScanner(protocol.createScanner());
+        setReadLength(protocol);
+    }
+
+    private void setReadLength(Protocol protocol) {
+        minReadLength = protocol.getWireLength(MIN_PACKED_LENGTH);
+        maxReadLength = protocol.getWireLength(MAX_PACKED_LENGTH);
+    }
 }
 
@@ -4,6 +4,7 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import model.Model;
 import model.Receiver;
 import model.Stand;
+import model.Station;
 import model.tests.TestManager;
 import view.LogPanel;
 import view.View;
@@ -49,12 +50,20 @@ public class Controller implements EventListener {
 
     @Override
     public void connect(final String port) {
+        connect(port, port);
+    }
+
+    /**
+     * Connect to receiver and stand by separate ports, or by one port if they are the same
+     */
+    @Override
+    public void connect(final String receiverPort, final String standPort) {
 
         connectionExecutor.submit(new SwingWorker<Void, Void>() {
             @Override
             protected Void doInBackground() throws Exception {
                 updateLog("\nConnect...", LogPanel.BOLD);
-                model.connectToDevice(port);
+                model.connectToDevice(receiverPort, standPort);
                 return null;
             }
 
@@ -91,6 +100,31 @@ public class Controller implements EventListener {
     }
 
 
+    @Override
+    public void addStation(final String port) {
+
+        connectionExecutor.submit(new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                updateLog("\nAdd station " + port + "...", LogPanel.BOLD);
+                if (model.addStation(port) == null)
+                    updateLog("Station " + port + " isn't added", LogPanel.BOLD, LogPanel.RED);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                view.updateToolBarStates();
+                view.fillTestList();
+            }
+        });
+    }
+
+    @Override
+    public List<Station> getStations() {
+        return model.getStations();
+    }
+
     @Override
     public boolean isReceiverConnected() {
         return model.isReceiverConnected();
@@ -209,6 +243,43 @@ public class Controller implements EventListener {
         view.updateTestControls();
     }
 
+    /**
+     * Testing of station is done: main station asks user to insert results, others insert them if not aborted
+     */
+    @Override
+    public void testingDone(Station station) {
+        station.stopTesting();
+
+        if (station.isAttended()) {
+            insertResultToDB();
+        } else if (station.getTestManager().getTestIDs(TestManager.State.ABORT).length == 0) {
+            station.insertResultToDB();
+        }
+
+        view.updateToolBarStates();
+        view.updateTestControls();
+    }
+
+    @Override
+    public void characterizeStand() {
+        if (model.isTestRunning())
+            return;
+
+        connectionExecutor.submit(new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                updateLog("\nCharacterize stand...", LogPanel.BOLD);
+                model.characterizeStand();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                view.updateToolBarStates();
+            }
+        });
+    }
+
     @Override
     public void updateTestList() {
         if (!SwingUtilities.isEventDispatchThread()) {
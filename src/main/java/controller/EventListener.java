@@ -2,6 +2,7 @@ package controller;
 
 import model.Receiver;
 import model.Stand;
+import model.Station;
 import model.tests.TestManager;
 
 import javax.swing.text.AttributeSet;
@@ -18,8 +19,14 @@ interface EventListener {
 
     void connect(String port);
 
+    void connect(String receiverPort, String standPort);
+
     void disconnect();
 
+    void addStation(String port);
+
+    List<Station> getStations();
+
     boolean isReceiverConnected();
 
     boolean isStandConnected();
@@ -44,6 +51,10 @@ interface EventListener {
 
     void stopTesting();
 
+    void testingDone(Station station);
+
+    void characterizeStand();
+
     void updateTestList();
 
     void openHistory();
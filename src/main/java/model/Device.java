@@ -1,5 +1,8 @@
 package model;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import connections.CommandMetrics;
 import connections.ConnectionManager;
 import controller.Controller;
 import exception.FailReceivePacket;
@@ -7,7 +10,17 @@ import exception.FailSendPacket;
 import packet.Command;
 import packet.Packet;
 
-import static packet.Command.*;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Device class: all information about current testing device
@@ -19,6 +32,9 @@ public abstract class Device {
     private ConnectionManager CM;
     private ConnectionStatus connectionStatus = ConnectionStatus.DISCONNECTED;
 
+    /* Shadow of device settings: K - setting command, V - data of the last confirmed set */
+    private final ConcurrentMap<Command, byte[]> settings = new ConcurrentHashMap<>();
+
     public Device(Controller controller, ConnectionManager CM) {
         this.CM = CM;
         this.controller = controller;
@@ -31,6 +47,13 @@ public abstract class Device {
 
     public abstract boolean readInfo();
 
+    /**
+     * @return metrics of commands of connection to this device, or null if there isn't connection
+     */
+    public CommandMetrics getMetrics() {
+        return CM != null ? CM.getMetrics() : null;
+    }
+
     public abstract Integer getID();
 
     public abstract String getModel();
@@ -40,6 +63,9 @@ public abstract class Device {
     public abstract String getFirmware();
 
     void checkConnectionStatus() {
+        // Device may be reset or replaced since the last check
+        invalidateSettings();
+
         try {
             connectionStatus = (CM != null && CM.getConnection().isOpened()) ?
                     ConnectionStatus.checkStatus(this) :
@@ -63,9 +89,28 @@ public abstract class Device {
         return connectionStatus;
     }
 
+    /**
+     * Forget all settings of device, so next set of any setting is sent to device
+     */
+    public void invalidateSettings() {
+        settings.clear();
+    }
+
+    /**
+     * @return true, if device has been set to the same value, so set of this packet may be skipped
+     */
+    private boolean isSettingCached(Packet packet) {
+        byte[] data = settings.get(packet.getCommand());
+        return data != null && Arrays.equals(data, packet.getData());
+    }
+
+    private void cacheSetting(Packet packet) {
+        if (packet.getCommand().isSetting())
+            settings.put(packet.getCommand(), packet.getData().clone());
+    }
+
     int getByte(Command command) throws Exception {
-        set(command);
-        return get().getDataAsByte();
+        return await(getByteAsync(command));
     }
 
     private void set(Command command) throws Exception {
@@ -73,15 +118,20 @@ public abstract class Device {
     }
 
     private Packet get() throws Exception {
-        Packet packet = new Packet();
+        Packet packet = null;
         try {
-            packet = CM != null ? CM.receivePacket() : packet;
+            packet = CM != null ? CM.receivePacket() : new Packet();
             checkPacketContainsErrorInfo(packet);
         } catch (InterruptedException e) {
             throw new Exception("Execution operation was interrupted.");
         } catch (Exception e) {
-            FailReceivePacket failReceivePacket = new FailReceivePacket(String.format("Receive packet %s\n with value %s\n from device %s",
-                    packet.getCommand(), packet.getDataAsInt(), this.toString()));
+            // Error information or lost response: state of device is unknown
+            invalidateSettings();
+
+            FailReceivePacket failReceivePacket = (packet != null) ?
+                    new FailReceivePacket(String.format("Receive packet %s\n with value %s\n from device %s",
+                            packet.getCommand(), packet.getDataAsInt(), this.toString())) :
+                    new FailReceivePacket(String.format("Receive packet from device %s", this.toString()));
             failReceivePacket.initCause(e);
             throw failReceivePacket;
         }
@@ -94,13 +144,23 @@ public abstract class Device {
             if (CM == null)
                 return;
 
+            if (isSettingCached(packet)) {
+                CM.getMetrics().recordCachedSetting(packet.getCommand());
+                return;
+            }
+
             CM.sendPacket(packet);
             if (!isConfirmationReceived(packet.getCommand()))
                 throw new FailSendPacket("No confirmation has been received.");
 
+            cacheSetting(packet);
+
         } catch (InterruptedException e) {
+            invalidateSettings();
             throw new InterruptedException("Execution operation was interrupted.");
         } catch (Exception e) {
+            invalidateSettings();
+
             FailSendPacket failSendPacket = new FailSendPacket(String.format("Can't send command %s\n with value %s\n to device %s",
                     packet.getCommand(), packet.getDataAsInt(), this.toString()));
             failSendPacket.initCause(e);
@@ -108,66 +168,321 @@ public abstract class Device {
         }
     }
 
-    private void checkPacketContainsErrorInfo(Packet packet) throws FailReceivePacket {
-        switch (packet.getCommand()) {
-            case INVALID_CMD_DEVICE:
-            case INVALID_CMD_STAND:
-            case INVALID_CRC_DEVICE:
-            case INVALID_CRC_STAND:
-            case INVALID_DATA_DEVICE:
-            case INVALID_DATA_STAND:
-            case ERROR_DEVICE:
-            case ERROR_STAND:
-                throw new FailReceivePacket("Has been received packet with error information.");
+    /**
+     * Send packets in order. Confirmed packets are pipelined, so sequence of them costs about one round trip.
+     * Settings, which device already has, aren't sent.
+     *
+     * @throws FailSendPacket if any packet hasn't been confirmed
+     */
+    public void setAll(Packet... packets) throws Exception {
+        await(setAllAsync(packets));
+    }
+
+    private void sendAll(Packet... packets) throws Exception {
+        if (CM == null)
+            return;
+
+        // Settings, which will be set by previous packets of sequence: they hide cached values
+        Map<Command, Packet> planned = new EnumMap<>(Command.class);
+
+        List<Packet> confirmed = new ArrayList<>(packets.length);
+        for (Packet packet : packets) {
+            Packet previous = planned.get(packet.getCommand());
+            if (previous != null ? Arrays.equals(previous.getData(), packet.getData()) : isSettingCached(packet)) {
+                CM.getMetrics().recordCachedSetting(packet.getCommand());
+                continue;
+            }
+            if (packet.getCommand().isSetting())
+                planned.put(packet.getCommand(), packet);
+
+            if (packet.getCommand().isConfirmationRequired()) {
+                confirmed.add(packet);
+            } else {
+                setPipelined(confirmed);
+                confirmed.clear();
+                set(packet);
+            }
+        }
+        setPipelined(confirmed);
+    }
+
+    private void setPipelined(List<Packet> packets) throws Exception {
+        if (packets.isEmpty())
+            return;
+
+        List<Packet> confirmations;
+        try {
+            confirmations = CM.transact(packets, ConnectionManager.DEFAULT_WINDOW);
+        } catch (InterruptedException e) {
+            invalidateSettings();
+            throw new InterruptedException("Execution operation was interrupted.");
+        } catch (Exception e) {
+            invalidateSettings();
+            FailSendPacket failSendPacket = new FailSendPacket(String.format("Can't send %d commands starting from %s\n to device %s",
+                    packets.size(), packets.get(0).getCommand(), this.toString()));
+            failSendPacket.initCause(e);
+            throw failSendPacket;
+        }
+
+        for (int i = 0; i < packets.size(); i++) {
+            Packet packet = packets.get(i);
+            if (!isConfirmation(confirmations.get(i), packet.getCommand())) {
+                invalidateSettings();
+                CM.getMetrics().recordConfirmationFailure(packet.getCommand());
+                throw new FailSendPacket(String.format("Can't send command %s\n with value %s\n to device %s: no confirmation has been received.",
+                        packet.getCommand(), packet.getDataAsInt(), this.toString()));
+            }
+            cacheSetting(packet);
+        }
+    }
+
+    /**
+     * Send the same request count times pipelined, so responses are received back to back
+     *
+     * @return responses in order of requests
+     */
+    private List<Packet> getPipelined(Command command, int count) throws Exception {
+        List<Packet> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            requests.add(new Packet(command));
+
+        if (CM == null) {
+            List<Packet> responses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                responses.add(new Packet());
+            return responses;
         }
+
+        try {
+            List<Packet> responses = CM.transact(requests, ConnectionManager.DEFAULT_WINDOW);
+            for (Packet response : responses)
+                checkPacketContainsErrorInfo(response);
+            return responses;
+        } catch (InterruptedException e) {
+            invalidateSettings();
+            throw new InterruptedException("Execution operation was interrupted.");
+        } catch (Exception e) {
+            // Error information or lost response: state of device is unknown
+            invalidateSettings();
+
+            FailReceivePacket failReceivePacket = new FailReceivePacket(String.format("Receive %d packets %s\n from device %s",
+                    count, command, this.toString()));
+            failReceivePacket.initCause(e);
+            throw failReceivePacket;
+        }
+    }
+
+    private void checkPacketContainsErrorInfo(Packet packet) throws FailReceivePacket {
+        if (packet.getCommand() == null)
+            throw new FailReceivePacket("Has been received packet with unknown command.");
+        if (packet.getCommand().isErrorReply())
+            throw new FailReceivePacket("Has been received packet with error information.");
     }
 
     private boolean isConfirmationReceived(Command command) throws Exception {
-        if (isConfirmationRequired(command) && CM != null) {
+        if (command.isConfirmationRequired() && CM != null) {
             Packet confirmationPacket = CM.receivePacket();
-            if (!confirmationPacket.getCommand().equals(command) ||
-                    confirmationPacket.getDataAsByte() == Confirmation.FAIL.ordinal())
+            if (!isConfirmation(confirmationPacket, command)) {
+                CM.getMetrics().recordConfirmationFailure(command);
                 return false;
+            }
         }
         return true;
     }
 
-    private boolean isConfirmationRequired(Command command) {
-        int id = command.getId();
-        return (id >= FREQUENCY_DEVICE.getId() && id <= BACKLIGHT_DEVICE.getId() ||
-                id == WRITE_CALIBR_COEFFS_DEVICE.getId() ||
-                id == WRITE_PCB_ID_DEVICE.getId() ||
-                id >= FREQUENCY_STAND.getId() && id <= EXT_SENSOR_STAND.getId());
+    private static boolean isConfirmation(Packet packet, Command command) {
+        return command.equals(packet.getCommand()) &&
+                packet.getDataAsByte() != Confirmation.FAIL.ordinal();
     }
 
+
     int getInteger(Command command, Integer integerValue) throws Exception {
-        set(command, integerValue);
-        return get().getDataAsInt();
+        return await(getIntegerAsync(command, integerValue));
     }
 
     public void set(Command command, Integer integerValue) throws Exception {
-        set(new Packet(command, integerValue));
+        await(setAsync(command, integerValue));
     }
 
     public void set(Command command, float[] floatArray) throws Exception {
-        set(new Packet(command, floatArray));
+        await(setAsync(command, floatArray));
     }
 
     public short[] getArray(Command command) throws Exception {
-        set(command);
-        return get().getDataAsShortArray();
+        return await(getArrayAsync(command));
     }
 
     public float[] getFloatArray(Command command) throws Exception {
-        set(command);
-        return get().getDataAsFloatArray();
+        return await(getFloatArrayAsync(command));
+    }
+
+    public ShortBuffer getShortBuffer(Command command) throws Exception {
+        return await(getShortBufferAsync(command));
+    }
+
+    /**
+     * @return read-only views of data of count responses to the same request, requests are pipelined
+     */
+    public ShortBuffer[] getShortBuffers(Command command, int count) throws Exception {
+        return await(getShortBuffersAsync(command, count));
     }
 
     String getString(Command command) throws Exception {
-        set(command);
-        return get().getDataAsString();
+        return await(getStringAsync(command));
+    }
+
+    ListenableFuture<Integer> getByteAsync(final Command command) {
+        return submit(command, new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                set(command);
+                return (int) get().getDataAsByte();
+            }
+        });
+    }
+
+    ListenableFuture<Integer> getIntegerAsync(final Command command, final Integer integerValue) {
+        return submit(command, new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                set(new Packet(command, integerValue));
+                return get().getDataAsInt();
+            }
+        });
+    }
+
+    public ListenableFuture<Void> setAsync(Command command, Integer integerValue) {
+        return setAsync(new Packet(command, integerValue));
+    }
+
+    public ListenableFuture<Void> setAsync(Command command, float[] floatArray) {
+        return setAsync(new Packet(command, floatArray));
     }
 
+    public ListenableFuture<Void> setAllAsync(final Packet... packets) {
+        return submit(null, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                sendAll(packets);
+                return null;
+            }
+        });
+    }
+
+    public ListenableFuture<short[]> getArrayAsync(final Command command) {
+        return submit(command, new Callable<short[]>() {
+            @Override
+            public short[] call() throws Exception {
+                set(command);
+                return get().getDataAsShortArray();
+            }
+        });
+    }
+
+    /**
+     * @return read-only view of response data, without copying to array
+     */
+    public ListenableFuture<ShortBuffer> getShortBufferAsync(final Command command) {
+        return submit(command, new Callable<ShortBuffer>() {
+            @Override
+            public ShortBuffer call() throws Exception {
+                set(command);
+                return get().getDataAsShortBuffer();
+            }
+        });
+    }
+
+    public ListenableFuture<ShortBuffer[]> getShortBuffersAsync(final Command command, final int count) {
+        return submit(command, new Callable<ShortBuffer[]>() {
+            @Override
+            public ShortBuffer[] call() throws Exception {
+                List<Packet> responses = getPipelined(command, count);
+
+                ShortBuffer[] result = new ShortBuffer[responses.size()];
+                for (int i = 0; i < result.length; i++)
+                    result[i] = responses.get(i).getDataAsShortBuffer();
+                return result;
+            }
+        });
+    }
+
+    public ListenableFuture<float[]> getFloatArrayAsync(final Command command) {
+        return submit(command, new Callable<float[]>() {
+            @Override
+            public float[] call() throws Exception {
+                set(command);
+                return get().getDataAsFloatArray();
+            }
+        });
+    }
+
+    ListenableFuture<String> getStringAsync(final Command command) {
+        return submit(command, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                set(command);
+                return get().getDataAsString();
+            }
+        });
+    }
+
+    private ListenableFuture<Void> setAsync(final Packet packet) {
+        return submit(packet.getCommand(), new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                set(packet);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Execute operation on thread of operations of connection manager, or immediately if there isn't connection
+     *
+     * @param command command of operation, its execution time is counted in metrics (null - isn't counted)
+     */
+    private <T> ListenableFuture<T> submit(final Command command, final Callable<T> operation) {
+        if (CM == null)
+            return execute(operation);
+
+        return CM.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                long startNs = System.nanoTime();
+                try {
+                    return operation.call();
+                } finally {
+                    if (command != null)
+                        CM.getMetrics().recordOperation(command, System.nanoTime() - startNs);
+                }
+            }
+        });
+    }
+
+    private static <T> ListenableFuture<T> execute(Callable<T> operation) {
+        try {
+            return Futures.immediateFuture(operation.call());
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    /**
+     * Wait for result of asynchronous operation, failure of operation is rethrown as is
+     */
+    public static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw new InterruptedException("Execution operation was interrupted.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            throw e;
+        }
+    }
 
     private enum Confirmation {SUCCESS, FAIL}
 
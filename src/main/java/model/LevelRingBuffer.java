@@ -0,0 +1,184 @@
+package model;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free ring buffer of timestamped level snapshots: one producer publishes, any count of consumers read.
+ * <p>
+ * <p> Snapshot is published with increasing sequence number, the oldest snapshot is overwritten,
+ * when buffer is full. Producer never waits for consumers. Each slot has sequence number of its snapshot,
+ * which is -1 while snapshot is written, so consumer detects overwritten slot by sequence number read before and
+ * after data (like seqlock) and skips it. All fields of slots are atomic arrays of primitives, so reads of data
+ * aren't reordered with reads of sequence numbers.
+ */
+public class LevelRingBuffer {
+
+    private static final long WRITING = -1;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int capacity;
+    private final int mask;
+    private final int channelsCount;
+
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray timestamps;
+    private final AtomicIntegerArray counts;
+    private final AtomicIntegerArray values;
+
+    /* Sequence number of the last published snapshot, -1 - nothing is published */
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param capacity      count of snapshots, rounded up to power of 2
+     * @param channelsCount max count of values in snapshot, the rest of values isn't stored
+     */
+    public LevelRingBuffer(int capacity, int channelsCount) {
+        if (capacity < 1 || capacity > MAX_CAPACITY || channelsCount < 1)
+            throw new IllegalArgumentException(String.format("Capacity %d must be from 1 to 2^30 and count of channels %d must be positive",
+                    capacity, channelsCount));
+
+        int rounded = 1;
+        while (rounded < capacity)
+            rounded <<= 1;
+
+        this.capacity = rounded;
+        this.mask = rounded - 1;
+        this.channelsCount = channelsCount;
+
+        sequences = new AtomicLongArray(this.capacity);
+        timestamps = new AtomicLongArray(this.capacity);
+        counts = new AtomicIntegerArray(this.capacity);
+        values = new AtomicIntegerArray(this.capacity * channelsCount);
+
+        for (int slot = 0; slot < this.capacity; slot++)
+            sequences.set(slot, WRITING);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getChannelsCount() {
+        return channelsCount;
+    }
+
+    /**
+     * @return sequence number of the last published snapshot, -1 - nothing is published
+     */
+    public long getSequence() {
+        return cursor.get();
+    }
+
+    /**
+     * @return count of snapshots, which producer failed to acquire
+     */
+    public long getFailedCount() {
+        return failures.get();
+    }
+
+    /**
+     * Publish snapshot. Must be called by one thread only.
+     *
+     * @param timestampNs time of snapshot by {@link System#nanoTime()}
+     * @param levels      values from position to limit, buffer isn't changed
+     * @return sequence number of published snapshot
+     */
+    public long publish(long timestampNs, ShortBuffer levels) {
+        long sequence = cursor.get() + 1;
+        int slot = (int) sequence & mask;
+        int count = Math.min(levels.remaining(), channelsCount);
+
+        sequences.set(slot, WRITING);
+
+        timestamps.set(slot, timestampNs);
+        counts.set(slot, count);
+        for (int channel = 0; channel < count; channel++)
+            values.set(slot * channelsCount + channel, levels.get(levels.position() + channel));
+
+        sequences.set(slot, sequence);
+        cursor.set(sequence);
+        return sequence;
+    }
+
+    /**
+     * Count failure of producer, e.g. lost response
+     */
+    public void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    /**
+     * Read snapshots published since given sequence number in order of publication.
+     * Snapshots, which have been overwritten, are skipped.
+     *
+     * @param fromSequence sequence number of the first snapshot to read
+     * @param timestampsNs times of read snapshots, its length is max count of snapshots to read
+     * @param levels       values of read snapshots: {@link #getChannelsCount()} values for each snapshot,
+     *                     values, which snapshot doesn't have, are 0
+     * @return count of read snapshots
+     */
+    public int read(long fromSequence, long[] timestampsNs, short[] levels) {
+        long last = cursor.get();
+        long first = Math.max(fromSequence, Math.max(last - capacity + 1, 0));
+        int maxCount = Math.min(timestampsNs.length, levels.length / channelsCount);
+
+        int read = 0;
+        for (long sequence = first; sequence <= last && read < maxCount; sequence++) {
+            if (readSlot(sequence, read, timestampsNs, levels))
+                read++;
+        }
+
+        return read;
+    }
+
+    /**
+     * Read the latest snapshots in order of publication
+     *
+     * @see #read(long, long[], short[])
+     */
+    public int readLatest(long[] timestampsNs, short[] levels) {
+        int maxCount = Math.min(timestampsNs.length, levels.length / channelsCount);
+        return read(cursor.get() - maxCount + 1, timestampsNs, levels);
+    }
+
+    /**
+     * Read one snapshot with its own count of values
+     *
+     * @return values of snapshot, null - snapshot isn't published yet or has been overwritten
+     */
+    public short[] read(long sequence) {
+        int slot = (int) sequence & mask;
+        if (sequence < 0 || sequences.get(slot) != sequence)
+            return null;
+
+        short[] levels = new short[counts.get(slot)];
+        for (int channel = 0; channel < levels.length; channel++)
+            levels[channel] = (short) values.get(slot * channelsCount + channel);
+
+        // Slot has been overwritten, while it was read
+        return sequences.get(slot) == sequence ? levels : null;
+    }
+
+    private boolean readSlot(long sequence, int index, long[] timestampsNs, short[] levels) {
+        int slot = (int) sequence & mask;
+        if (sequences.get(slot) != sequence)
+            return false;
+
+        long timestampNs = timestamps.get(slot);
+        int count = counts.get(slot);
+        int offset = index * channelsCount;
+        for (int channel = 0; channel < channelsCount; channel++)
+            levels[offset + channel] = channel < count ? (short) values.get(slot * channelsCount + channel) : 0;
+
+        // Slot has been overwritten, while it was read
+        if (sequences.get(slot) != sequence)
+            return false;
+
+        timestampsNs[index] = timestampNs;
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+package model;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Statistics of burst of level snapshots per channel: mean, median and spread without outliers.
+ * <p>
+ * <p> Outlier is snapshot value, which deviates from median of channel by more than {@link #OUTLIER_THRESHOLD}
+ * robust standard deviations (median absolute deviation, scaled to standard deviation of normal distribution).
+ * Mean and spread are calculated from the rest of values. Everything is kept in primitive arrays.
+ */
+public class LevelStatistics {
+
+    /* Max deviation from median in robust standard deviations */
+    static final double OUTLIER_THRESHOLD = 3.0;
+
+    /* Deviation, which is never outlier: levels are integer, so value next to median isn't rejected */
+    static final double MIN_OUTLIER_DEVIATION = 1.0;
+
+    /* Median absolute deviation of normal distribution is 0.6745 of its standard deviation */
+    private static final double MAD_TO_SIGMA = 1.4826;
+
+    private final int samplesCount;
+    private final double[] mean;
+    private final double[] median;
+    private final double[] spread;
+    private final int[] rejected;
+
+    /**
+     * @param snapshots snapshots of levels, count of channels is the least remaining of them
+     */
+    public LevelStatistics(ShortBuffer... snapshots) {
+        int channelsCount = snapshots.length > 0 ? Integer.MAX_VALUE : 0;
+        for (ShortBuffer snapshot : snapshots)
+            channelsCount = Math.min(channelsCount, snapshot.remaining());
+
+        samplesCount = snapshots.length;
+        mean = new double[channelsCount];
+        median = new double[channelsCount];
+        spread = new double[channelsCount];
+        rejected = new int[channelsCount];
+
+        short[] values = new short[samplesCount];
+        double[] deviations = new double[samplesCount];
+
+        for (int channel = 0; channel < channelsCount; channel++) {
+            for (int i = 0; i < samplesCount; i++)
+                values[i] = snapshots[i].get(snapshots[i].position() + channel);
+
+            reduce(channel, values, deviations);
+        }
+    }
+
+    private void reduce(int channel, short[] values, double[] deviations) {
+        Arrays.sort(values);
+        median[channel] = getMedian(values);
+
+        for (int i = 0; i < values.length; i++)
+            deviations[i] = Math.abs(values[i] - median[channel]);
+        Arrays.sort(deviations);
+        double threshold = Math.max(OUTLIER_THRESHOLD * MAD_TO_SIGMA * getMedian(deviations), MIN_OUTLIER_DEVIATION);
+
+        long sum = 0;
+        long sumOfSquares = 0;
+        int count = 0;
+        for (short value : values) {
+            if (Math.abs(value - median[channel]) > threshold)
+                continue;
+
+            sum += value;
+            sumOfSquares += value * value;
+            count++;
+        }
+
+        mean[channel] = (double) sum / count;
+        spread[channel] = Math.sqrt(Math.max((double) sumOfSquares / count - mean[channel] * mean[channel], 0));
+        rejected[channel] = values.length - count;
+    }
+
+    private static double getMedian(short[] sorted) {
+        int middle = sorted.length / 2;
+        return (sorted.length % 2 != 0) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    private static double getMedian(double[] sorted) {
+        int middle = sorted.length / 2;
+        return (sorted.length % 2 != 0) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    public int getSamplesCount() {
+        return samplesCount;
+    }
+
+    public int getChannelsCount() {
+        return mean.length;
+    }
+
+    public double getMean(int channel) {
+        return mean[channel];
+    }
+
+    public double getMedian(int channel) {
+        return median[channel];
+    }
+
+    /**
+     * @return standard deviation of values without outliers
+     */
+    public double getSpread(int channel) {
+        return spread[channel];
+    }
+
+    /**
+     * @return count of values, which are rejected as outliers
+     */
+    public int getRejectedCount(int channel) {
+        return rejected[channel];
+    }
+
+    /**
+     * @return rounded means of channels, which replace single snapshot of levels
+     */
+    public short[] getMeanLevels() {
+        short[] levels = new short[mean.length];
+        for (int channel = 0; channel < levels.length; channel++)
+            levels[channel] = (short) Math.round(mean[channel]);
+
+        return levels;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("LevelStatistics { samples = ").append(samplesCount);
+        for (int channel = 0; channel < mean.length; channel++) {
+            builder.append(String.format(", #%d: mean %.1f, median %.1f, spread %.1f, rejected %d",
+                    channel + 1, mean[channel], median[channel], spread[channel], rejected[channel]));
+        }
+        return builder.append(" }").toString();
+    }
+}
@@ -2,12 +2,15 @@ package model;
 
 import com.healthmarketscience.sqlbuilder.*;
 import com.healthmarketscience.sqlbuilder.custom.HookType;
+import com.healthmarketscience.sqlbuilder.dbspec.Constraint;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.*;
 import controller.Controller;
 import view.LogPanel;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.prefs.Preferences;
 
 /**
@@ -18,6 +21,8 @@ public class ManagerDB {
     // DB fields constants
     private static final String TABLE_RECEIVER = "RECEIVER";
     private static final String TABLE_SESSION = "SESSION";
+    private static final String TABLE_STAND_TRANSFER = "STAND_TRANSFER";
+    private static final String TABLE_RESPONSE_CURVE = "RESPONSE_CURVE";
     private static final String COLUMN_ID = "_ID";
     private static final String COLUMN_MODEL = "MODEL";
     private static final String COLUMN_SCHEME = "SCHEME";
@@ -29,6 +34,12 @@ public class ManagerDB {
     private static final String COLUMN_PASS = "PASS";
     private static final String COLUMN_FAIL = "FAIL";
     private static final String COLUMN_SKIP = "SKIP";
+    private static final String COLUMN_STAND_ID = "STAND_ID";
+    private static final String COLUMN_FREQUENCY = "FREQUENCY";
+    private static final String COLUMN_GAIN = "GAIN";
+    private static final String COLUMN_CASCADE_GAIN = "CASCADE_GAIN";
+    private static final String COLUMN_TEST_ID = "TEST_ID";
+    private static final String COLUMN_CURVE = "CURVE";
 
     private static final String NAME = "sa";
     private static final String PASSWORD = "";
@@ -53,6 +64,15 @@ public class ManagerDB {
     private DbColumn dbColumnPass;
     private DbColumn dbColumnFail;
     private DbColumn dbColumnSkip;
+    private DbTable dbTableStandTransfer;
+    private DbColumn dbColumnStandID;
+    private DbColumn dbColumnFrequency;
+    private DbColumn dbColumnGain;
+    private DbColumn dbColumnCascadeGain;
+    private DbTable dbTableResponseCurve;
+    private DbColumn dbColumnCurveR_id;
+    private DbColumn dbColumnTestID;
+    private DbColumn dbColumnCurve;
     private Connection connection;
     private String URL;
 
@@ -194,9 +214,47 @@ public class ManagerDB {
                 addConstraints(foreignKeyConstraint).
                 validate().toString();
 
+        dbTableStandTransfer = schema.addTable(TABLE_STAND_TRANSFER);
+        dbColumnStandID = new DbColumn(dbTableStandTransfer, COLUMN_STAND_ID, "int");
+        dbColumnFrequency = new DbColumn(dbTableStandTransfer, COLUMN_FREQUENCY, "int");
+        dbColumnGain = new DbColumn(dbTableStandTransfer, COLUMN_GAIN, "int");
+        dbColumnCascadeGain = new DbColumn(dbTableStandTransfer, COLUMN_CASCADE_GAIN, "double");
+        DbConstraint primaryKeyConstraint = new DbConstraint(
+                dbTableStandTransfer, null, Constraint.Type.PRIMARY_KEY,
+                dbColumnStandID, dbColumnFrequency, dbColumnGain);
+
+        String sqlCreateStandTransferTable = new CreateTableQuery(dbTableStandTransfer, true).
+                addCustomization(CreateTableQuery.Hook.TABLE, HookType.SUFFIX, "IF NOT EXISTS ").
+                addColumns(dbColumnStandID, dbColumnFrequency, dbColumnGain, dbColumnCascadeGain).
+                addColumnConstraint(dbColumnCascadeGain, "NOT NULL").
+                addConstraints(primaryKeyConstraint).
+                validate().toString();
+
+        // Curve is packed to binary value, so it takes one row of table
+        dbTableResponseCurve = schema.addTable(TABLE_RESPONSE_CURVE);
+        dbColumnCurveR_id = new DbColumn(dbTableResponseCurve, COLUMN_R_ID, "int");
+        dbColumnTestID = new DbColumn(dbTableResponseCurve, COLUMN_TEST_ID, "int");
+        dbColumnCurve = new DbColumn(dbTableResponseCurve, COLUMN_CURVE, "binary");
+        DbConstraint curvePrimaryKeyConstraint = new DbConstraint(
+                dbTableResponseCurve, null, Constraint.Type.PRIMARY_KEY,
+                dbColumnCurveR_id, dbColumnTestID);
+        DbForeignKeyConstraint curveForeignKeyConstraint = new DbForeignKeyConstraint(
+                dbTableResponseCurve, TABLE_RESPONSE_CURVE + "_" + COLUMN_R_ID,
+                dbTableReceiver,
+                new DbColumn[]{dbColumnCurveR_id}, new DbColumn[]{dbColumnReceiverID});
+
+        String sqlCreateResponseCurveTable = new CreateTableQuery(dbTableResponseCurve, true).
+                addCustomization(CreateTableQuery.Hook.TABLE, HookType.SUFFIX, "IF NOT EXISTS ").
+                addColumns(dbColumnCurveR_id, dbColumnTestID, dbColumnCurve).
+                addColumnConstraint(dbColumnCurve, "NOT NULL").
+                addConstraints(curvePrimaryKeyConstraint, curveForeignKeyConstraint).
+                validate().toString();
+
         try (Statement st = connection.createStatement()) {
             st.execute(sqlCreateReceiverTable);
             st.execute(sqlCreateSessionTable);
+            st.execute(sqlCreateStandTransferTable);
+            st.execute(sqlCreateResponseCurveTable);
         } catch (SQLException e) {
             throw new SQLException("Create new tables in database failed");
         }
@@ -278,6 +336,138 @@ public class ManagerDB {
         }
     }
 
+    /**
+     * Replace stored transfer characteristic of stand by new one
+     *
+     * @return count of inserted points
+     */
+    int insert(Integer standID, StandTransfer transfer) throws SQLException {
+        String sqlDelete = new DeleteQuery(dbTableStandTransfer).
+                addCondition(BinaryCondition.equalTo(dbColumnStandID, standID)).
+                validate().toString();
+
+        String sqlInsert = new InsertQuery(dbTableStandTransfer).
+                addColumn(dbColumnStandID, standID).
+                addPreparedColumns(dbColumnFrequency, dbColumnGain, dbColumnCascadeGain).
+                validate().toString();
+
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement st = connection.createStatement();
+             PreparedStatement prSt = connection.prepareStatement(sqlInsert)) {
+            connection.setAutoCommit(false);
+            st.executeUpdate(sqlDelete);
+
+            for (StandTransfer.Point point : transfer.getPoints()) {
+                prSt.setInt(1, point.getFrequency());
+                prSt.setInt(2, point.getGain());
+                prSt.setDouble(3, point.getCascadeGain());
+                prSt.addBatch();
+            }
+
+            int count = 0;
+            for (int result : prSt.executeBatch()) {
+                count += result;
+            }
+
+            connection.commit();
+            return count;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Insert transfer of stand to database failed");
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return stored transfer characteristic of stand (empty, if stand isn't characterized)
+     */
+    StandTransfer selectStandTransfer(Integer standID) throws SQLException {
+        String sql = new SelectQuery().
+                addColumns(dbColumnFrequency, dbColumnGain, dbColumnCascadeGain).
+                addCondition(BinaryCondition.equalTo(dbColumnStandID, standID)).
+                validate().toString();
+
+        try (ResultSet rs = connection.createStatement().executeQuery(sql)) {
+
+            StandTransfer transfer = new StandTransfer();
+            while (rs.next()) {
+                transfer.put(rs.getInt(COLUMN_FREQUENCY), rs.getInt(COLUMN_GAIN), rs.getDouble(COLUMN_CASCADE_GAIN));
+            }
+            return transfer;
+
+        } catch (SQLException e) {
+            throw new SQLException("Select transfer of stand from database failed");
+        }
+    }
+
+    /**
+     * Replace stored response curves of receiver by new ones
+     *
+     * @param curves K - test ID, V - curve measured by test case
+     * @return count of inserted curves
+     */
+    int insert(Integer receiverID, Map<Integer, ResponseCurve> curves) throws SQLException {
+        String sqlDelete = new DeleteQuery(dbTableResponseCurve).
+                addCondition(BinaryCondition.equalTo(dbColumnCurveR_id, receiverID)).
+                validate().toString();
+
+        String sqlInsert = new InsertQuery(dbTableResponseCurve).
+                addColumn(dbColumnCurveR_id, receiverID).
+                addPreparedColumns(dbColumnTestID, dbColumnCurve).
+                validate().toString();
+
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement st = connection.createStatement();
+             PreparedStatement prSt = connection.prepareStatement(sqlInsert)) {
+            connection.setAutoCommit(false);
+            st.executeUpdate(sqlDelete);
+
+            for (Map.Entry<Integer, ResponseCurve> curve : curves.entrySet()) {
+                prSt.setInt(1, curve.getKey());
+                prSt.setBytes(2, curve.getValue().toBytes());
+                prSt.addBatch();
+            }
+
+            int count = 0;
+            if (!curves.isEmpty()) {
+                for (int result : prSt.executeBatch()) {
+                    count += result;
+                }
+            }
+
+            connection.commit();
+            return count;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Insert response curves of receiver to database failed");
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return stored response curves of receiver: K - test ID, V - curve (empty, if receiver doesn't have them)
+     */
+    Map<Integer, ResponseCurve> selectResponseCurves(Integer receiverID) throws SQLException {
+        String sql = new SelectQuery().
+                addColumns(dbColumnTestID, dbColumnCurve).
+                addCondition(BinaryCondition.equalTo(dbColumnCurveR_id, receiverID)).
+                validate().toString();
+
+        try (ResultSet rs = connection.createStatement().executeQuery(sql)) {
+
+            Map<Integer, ResponseCurve> curves = new TreeMap<>();
+            while (rs.next()) {
+                curves.put(rs.getInt(COLUMN_TEST_ID), ResponseCurve.fromBytes(rs.getBytes(COLUMN_CURVE)));
+            }
+            return curves;
+
+        } catch (SQLException e) {
+            throw new SQLException("Select response curves of receiver from database failed");
+        }
+    }
+
     ResultSet select(Receiver receiver, String afterDate, String beforeDate) throws SQLException {
 
         SelectQuery selectQuery = new SelectQuery().
@@ -1,18 +1,22 @@
 package model;
 
 import connections.Connection;
-import connections.ConnectionManager;
 import connections.ModBus;
+import connections.Protocol;
+import connections.RecordingConnection;
 import connections.UART;
 import controller.Controller;
 import model.tests.TestManager;
-import model.tests.TestManager.State;
-import packet.Command;
 
+import java.io.File;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 
 /**
@@ -20,36 +24,57 @@ import java.util.List;
  */
 public class Model {
 
+    /**
+     * System property with path of trace file, e.g. -Deuts.trace=run.trace: traffic of each port is recorded
+     * to trace file with port name, e.g. run-COM3.trace, see {@link RecordingConnection}
+     */
+    public static final String TRACE_PROPERTY = "euts.trace";
+
     private final Controller controller;
 
-    private ConnectionManager CM;
-    private Receiver receiver;
-    private Stand stand;
-    private TestManager testManager;
     private ManagerDB managerDB;
+    /* Main station, which is connected and tested by user */
+    private Station station;
+    /* Additional stations of multi-station mode by name (port), which are tested together with the main one */
+    private final ConcurrentMap<String, Station> stations = new ConcurrentSkipListMap<>();
+    /* Recording connections of ports by trace file, so the port has the only connection like UART */
+    private final ConcurrentMap<File, Connection> recordingConnections = new ConcurrentHashMap<>();
+    /* Guards check, that connection isn't used by other station, together with connection of station */
+    private final Object connectingLock = new Object();
 
     public Model(Controller controller) {
         this.controller = controller;
         this.managerDB = new ManagerDB(controller);
-        this.testManager = new TestManager(controller);
+        this.station = new Station(controller, managerDB, null);
     }
 
     public Receiver getReceiver() {
-        return receiver;
+        return station.getReceiver();
     }
 
     public Stand getStand() {
-        return stand;
+        return station.getStand();
     }
 
     public TestManager getTestManager() {
-        return testManager;
+        return station.getTestManager();
     }
 
     public ManagerDB getManagerDB() {
         return managerDB;
     }
 
+    public Station getStation() {
+        return station;
+    }
+
+    /**
+     * @return additional stations in order of names
+     */
+    public List<Station> getStations() {
+        return new ArrayList<>(stations.values());
+    }
+
     public void init() {
         managerDB.connectToDefaultURL();
     }
@@ -59,28 +84,49 @@ public class Model {
         managerDB.disconnect();
     }
 
+    /**
+     * Disconnect from devices of main station, additional stations are removed too
+     */
     public void disconnectFromDevice() {
-        if (CM == null)
-            return;
+        for (String name : stations.keySet())
+            removeStation(name);
 
-        Connection connection = CM.getConnection();
-        try {
-            // Trying close connection
-            connection.close();
-            controller.updateLog("Connection " + connection + " successfully CLOSED");
+        station.disconnect();
+    }
 
-            receiver.checkConnectionStatus();
-            stand.checkConnectionStatus();
-        } catch (Exception e) {
-            controller.showErrorMessage(
-                    "Close connection",
-                    "Can't close connection " + connection,
-                    e);
-        } finally {
-            CM = null;
-            receiver = null;
-            stand = null;
+    /**
+     * @return UART of port, which records traffic to trace file, if {@link #TRACE_PROPERTY} is set
+     */
+    Connection getPortConnection(String port) {
+        UART uart = UART.getInstance(port);
+
+        String tracePath = System.getProperty(TRACE_PROPERTY);
+        if (tracePath == null || tracePath.isEmpty())
+            return uart;
+
+        File traceFile = getTraceFile(new File(tracePath), port);
+        Connection connection = recordingConnections.get(traceFile);
+        if (connection == null) {
+            Connection newConnection = new RecordingConnection(uart, traceFile);
+            connection = recordingConnections.putIfAbsent(traceFile, newConnection);
+            if (connection == null)
+                connection = newConnection;
         }
+
+        return connection;
+    }
+
+    private static File getTraceFile(File trace, String port) {
+        // Port may be path of device, e.g. /dev/ttyUSB0
+        port = port.replaceAll("[^A-Za-z0-9_.-]", "_");
+
+        String name = trace.getName();
+        int extension = name.lastIndexOf('.');
+        String portName = (extension > 0) ?
+                name.substring(0, extension) + "-" + port + name.substring(extension) :
+                name + "-" + port;
+
+        return new File(trace.getParentFile(), portName);
     }
 
     public List<String> getAvailableCOMPorts() {
@@ -88,48 +134,173 @@ public class Model {
     }
 
     public void connectToDevice(String port) {
-        Connection connection = UART.getInstance(port);
+        connectToDevice(port, new ModBus());
+    }
 
-        try {
-            if (CM != null && CM.getConnection().isOpened()) {
-                disconnectFromDevice();
+    public void connectToDevice(String port, Protocol protocol) {
+        connectToDevice(getPortConnection(port), protocol);
+    }
+
+    /**
+     * Connect to receiver and stand by any connection, e.g. {@link connections.SimulatedBench}
+     */
+    public void connectToDevice(Connection connection, Protocol protocol) {
+        connectToDevice(connection, connection, protocol, protocol);
+    }
+
+    /**
+     * Connect to receiver and stand by separate ports, so their commands are executed at the same time
+     */
+    public void connectToDevice(String receiverPort, String standPort) {
+        connectToDevice(getPortConnection(receiverPort), getPortConnection(standPort), new ModBus());
+    }
+
+    /**
+     * Connect to receiver and stand by separate connections, the same connection may be given for both devices
+     */
+    public void connectToDevice(Connection receiverConnection, Connection standConnection, Protocol protocol) {
+        connectToDevice(receiverConnection, standConnection, protocol, protocol);
+    }
+
+    /**
+     * Connect to receiver and stand by separate connections, each device talks its own protocol
+     */
+    public void connectToDevice(Connection receiverConnection, Connection standConnection,
+                                Protocol receiverProtocol, Protocol standProtocol) {
+        synchronized (connectingLock) {
+            for (Connection connection : Arrays.asList(receiverConnection, standConnection)) {
+                if (isConnectionUsedByStations(connection)) {
+                    controller.showErrorMessage(
+                            "Open connection",
+                            "Can't open connection " + connection,
+                            new IllegalArgumentException("Connection " + connection + " is used by additional station"));
+                    return;
+                }
             }
 
-            // Trying open connection
-            connection.open();
-            controller.updateLog("Connection " + connection + " successfully OPENED");
+            station.connect(receiverConnection, standConnection, receiverProtocol, standProtocol);
+        }
+    }
 
-            CM = new ConnectionManager(connection, new ModBus());
-            receiver = new Receiver(controller, CM);
-            stand = new Stand(controller, CM);
+    /**
+     * Add station of multi-station mode, which is connected to receiver and stand by port
+     */
+    public Station addStation(String port) {
+        return addStation(port, getPortConnection(port), new ModBus());
+    }
 
-            receiver.checkConnectionStatus();
-            stand.checkConnectionStatus();
+    /**
+     * Add station of multi-station mode, which is connected to receiver and stand by any connection
+     *
+     * @param name unique name of station, e.g. port
+     * @return connected station, null - connection is failed or station with such name or connection already exists
+     */
+    public Station addStation(String name, Connection connection, Protocol protocol) {
+        return addStation(name, connection, connection, protocol);
+    }
 
-        } catch (Exception e) {
-            controller.showErrorMessage(
-                    "Open connection",
-                    "Can't open connection " + connection,
-                    e);
+    /**
+     * Add station of multi-station mode, which is connected to receiver and stand by separate connections
+     *
+     * @param name unique name of station, e.g. port of receiver
+     * @return connected station, null - connection is failed or station with such name or connections already exists
+     */
+    public Station addStation(String name, Connection receiverConnection, Connection standConnection, Protocol protocol) {
+        return addStation(name, receiverConnection, standConnection, protocol, protocol);
+    }
 
-            disconnectFromDevice();
+    /**
+     * Add station of multi-station mode, which is connected to receiver and stand by separate connections,
+     * each device talks its own protocol
+     *
+     * @return connected station, null - connection is failed or station with such name or connections already exists
+     */
+    public Station addStation(String name, Connection receiverConnection, Connection standConnection,
+                              Protocol receiverProtocol, Protocol standProtocol) {
+        Station newStation = new Station(controller, managerDB, name);
+
+        // Station is connected under the lock, so other station can't take its connections before it
+        synchronized (connectingLock) {
+            if (isConnectionUsed(receiverConnection) || isConnectionUsed(standConnection))
+                return null;
+
+            if (stations.putIfAbsent(name, newStation) != null)
+                return null;
+
+            newStation.connect(receiverConnection, standConnection, receiverProtocol, standProtocol);
+            if (!newStation.isConnected()) {
+                removeStation(name);
+                return null;
+            }
         }
+
+        newStation.getTestManager().fillTestList();
+        return newStation;
+    }
+
+    private boolean isConnectionUsed(Connection connection) {
+        return station.isConnectedBy(connection) || isConnectionUsedByStations(connection);
+    }
+
+    /**
+     * @return true if connection is used by additional station
+     */
+    private boolean isConnectionUsedByStations(Connection connection) {
+        for (Station additional : stations.values()) {
+            if (additional.isConnectedBy(connection))
+                return true;
+        }
+        return false;
     }
 
+    public void removeStation(String name) {
+        Station removed = stations.remove(name);
+        if (removed != null) {
+            removed.stopTesting();
+            removed.disconnect();
+        }
+    }
+
+    /**
+     * Measure transfer of connected stand and store it to database
+     */
+    public boolean characterizeStand() {
+        return station.characterizeStand();
+    }
+
+    /**
+     * @return true, if testing is running on any station
+     */
     public boolean isTestRunning() {
-        return testManager != null && testManager.isTestRunning();
+        if (station.isTestRunning())
+            return true;
+
+        for (Station additional : stations.values()) {
+            if (additional.isTestRunning())
+                return true;
+        }
+        return false;
     }
 
+    /**
+     * Start testing on all connected stations: each station runs test cases on its own thread
+     */
     public void startTesting() {
-        testManager.start();
+        station.startTesting();
+
+        for (Station additional : stations.values())
+            additional.startTesting();
     }
 
     public void stopTesting() {
-        testManager.stop();
+        station.stopTesting();
+
+        for (Station additional : stations.values())
+            additional.stopTesting();
     }
 
     public boolean isStandConnected() {
-        return stand != null && stand.getConnectionStatus() == ConnectionStatus.CONNECTED;
+        return station.isStandConnected();
     }
 
     public ResultSet selectTestSessions(Receiver receiver, String afterDate, String beforeDate) throws SQLException {
@@ -153,40 +324,19 @@ public class Model {
     }
 
     public boolean insertResultToDB() {
-        try {
-            Integer newID = managerDB.getNextUniqueID();
-
-            if (managerDB.insert(new Receiver(newID, receiver.getModel(), receiver.getScheme(), receiver.getFirmware()), null, null) > 0 &&
-                    managerDB.insert(newID, testManager.getTestIDs(State.PASS), testManager.getTestIDs(State.FAIL), testManager.getTestIDs(State.SKIP)) > 0) {
-
-
-                receiver.set(Command.WRITE_PCB_ID_DEVICE, newID);
-                receiver.setID(newID);
-
-                controller.showMessage(
-                        "Database insert entry",
-                        "New entry " + receiver + "\nsuccessfully inserted to database!"
-                );
-                return true;
-            }
-        } catch (Exception e) {
-            controller.showErrorMessage(
-                    "Database insert entry",
-                    "New entry " + receiver + "\ninsert to database FAILED!",
-                    e
-            );
-        }
-        return false;
+        return station.insertResultToDB();
     }
 
     public int updateCalibrationCoeffsInDB(Float[] depthCoeffs, Float[] currentCoeffs) {
         try {
-            return managerDB.update(receiver, depthCoeffs, currentCoeffs);
+            synchronized (managerDB) {
+                return managerDB.update(getReceiver(), depthCoeffs, currentCoeffs);
+            }
         } catch (SQLException e) {
             controller.showErrorMessage(
                     "Database update entry",
                     String.format("New entry:\nDepth coefficients %s\nCurrent coefficients %s\nfor %s update database FAILED!",
-                            Arrays.toString(depthCoeffs), Arrays.toString(currentCoeffs), receiver
+                            Arrays.toString(depthCoeffs), Arrays.toString(currentCoeffs), getReceiver()
                     ),
                     e
             );
@@ -198,6 +348,7 @@ public class Model {
         if (!managerDB.exist() || !isReceiverConnected())
             return;
 
+        Receiver receiver = getReceiver();
         Integer receiverID = receiver.getID();
 
         // If receiver has ID = 0, then it's new
@@ -220,7 +371,7 @@ public class Model {
     }
 
     public boolean isReceiverConnected() {
-        return receiver != null && receiver.getConnectionStatus() == ConnectionStatus.CONNECTED;
+        return station.isReceiverConnected();
     }
 
     public String[] getReceiverIDsFromDB() throws SQLException {
@@ -1,11 +1,16 @@
 package model;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import connections.ConnectionManager;
 import controller.Controller;
 import packet.Command;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Receiver class: all information about connected receiver
@@ -25,12 +30,26 @@ public class Receiver extends Device {
             8192,
             32768
     );
+    /* Count of the latest snapshots kept by stream and max count of channels in snapshot */
+    public static final int STREAM_CAPACITY = 512;
+    public static final int STREAM_CHANNELS = 8;
+
+    /* Request in progress is completed, when streaming is stopped: wait longer than receive timeout */
+    private static final long STOP_STREAMING_TIMEOUT_MS = 2000;
+
+    private static final ThreadFactory THREAD_FACTORY_STREAMING = new ThreadFactoryBuilder().setNameFormat("Receiver-Streaming-%d").setDaemon(true).build();
+
     private String model;
     private String firmware;
     private String scheme;
 
     private Integer ID;
 
+    private final Object streamingLock = new Object();
+    private ScheduledExecutorService streamingExecutor;
+    private volatile LevelRingBuffer stream;
+    private volatile Command streamCommand;
+
     public Receiver(Controller controller, ConnectionManager CM) {
         super(controller, CM);
     }
@@ -77,6 +96,101 @@ public class Receiver extends Device {
         return false;
     }
 
+    /**
+     * Take count snapshots of levels back to back and reduce them per channel
+     */
+    public LevelStatistics sampleLevels(int count) throws Exception {
+        return sample(Command.GET_LEVELS_DEVICE, count);
+    }
+
+    /**
+     * Take count snapshots of levels or magnitudes back to back: requests are pipelined,
+     * so burst takes about one round trip, not count ones
+     */
+    public LevelStatistics sample(Command command, int count) throws Exception {
+        return new LevelStatistics(getShortBuffers(command, count));
+    }
+
+    /**
+     * Request levels or magnitudes with given period in background and publish them to stream,
+     * so the latest snapshots are read from stream without own requests. Previous streaming is stopped.
+     * <p>
+     * <p> Requests of streaming share connection with other requests, so streaming must be stopped,
+     * when exclusive control of receiver is needed, e.g. for testing.
+     *
+     * @param periodMs period of requests, must be positive
+     * @return stream of snapshots
+     */
+    public LevelRingBuffer startStreaming(final Command command, long periodMs) {
+        if (periodMs <= 0)
+            throw new IllegalArgumentException("Period of streaming must be positive: " + periodMs + " ms");
+
+        synchronized (streamingLock) {
+            stopStreaming();
+
+            final LevelRingBuffer ring = new LevelRingBuffer(STREAM_CAPACITY, STREAM_CHANNELS);
+            streamingExecutor = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY_STREAMING);
+            streamingExecutor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    // Exception cancels periodic task, so failure is only counted
+                    try {
+                        ring.publish(System.nanoTime(), getShortBuffer(command));
+                    } catch (Exception e) {
+                        ring.recordFailure();
+                    }
+                }
+            }, 0, periodMs, TimeUnit.MILLISECONDS);
+
+            streamCommand = command;
+            stream = ring;
+            return ring;
+        }
+    }
+
+    /**
+     * Stop streaming and wait for request in progress. Stream, returned by {@link #startStreaming}, keeps published snapshots
+     */
+    public void stopStreaming() {
+        synchronized (streamingLock) {
+            if (streamingExecutor == null)
+                return;
+
+            // Not interrupted: interrupted request would leave its response in connection
+            streamingExecutor.shutdown();
+            try {
+                if (!streamingExecutor.awaitTermination(STOP_STREAMING_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                    streamingExecutor.shutdownNow();
+            } catch (InterruptedException e) {
+                streamingExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            } finally {
+                streamingExecutor = null;
+                stream = null;
+                streamCommand = null;
+            }
+        }
+    }
+
+    /**
+     * @return stream of snapshots, null - receiver isn't streaming
+     */
+    public LevelRingBuffer getStream() {
+        return stream;
+    }
+
+    /**
+     * @return stream of snapshots of given command, null - receiver doesn't stream it
+     */
+    public LevelRingBuffer getStream(Command command) {
+        LevelRingBuffer ring = stream;
+        return command == streamCommand ? ring : null;
+    }
+
+    public boolean isStreaming() {
+        return stream != null;
+    }
+
     @Override
     public Integer getID() {
         return ID;
@@ -0,0 +1,146 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Level response of receiver channels to stand frequencies, measured by one frequency sweep.
+ * <p>
+ * <p> Curve is kept in two primitive arrays: frequencies of points and levels of all channels point by point,
+ * so it is checked by test case without boxing and stored to database as one binary value (see {@link #toBytes()}).
+ */
+public class ResponseCurve {
+
+    private final int[] frequencies_Hz;
+    private final int channelsCount;
+
+    /* Levels of point i are levels[i * channelsCount] ... levels[(i + 1) * channelsCount - 1] */
+    private final short[] levels;
+
+    /**
+     * @param frequencies_Hz stand frequencies of points
+     * @param channelsCount  count of channels in each point
+     */
+    public ResponseCurve(int[] frequencies_Hz, int channelsCount) {
+        this(frequencies_Hz.clone(), channelsCount, new short[frequencies_Hz.length * channelsCount]);
+    }
+
+    private ResponseCurve(int[] frequencies_Hz, int channelsCount, short[] levels) {
+        if (channelsCount < 1)
+            throw new IllegalArgumentException("Count of channels must be positive: " + channelsCount);
+
+        this.frequencies_Hz = frequencies_Hz;
+        this.channelsCount = channelsCount;
+        this.levels = levels;
+    }
+
+    public int getPointsCount() {
+        return frequencies_Hz.length;
+    }
+
+    public int getChannelsCount() {
+        return channelsCount;
+    }
+
+    public int getFrequency(int point) {
+        return frequencies_Hz[point];
+    }
+
+    public short getLevel(int point, int channel) {
+        return levels[point * channelsCount + checkChannel(channel)];
+    }
+
+    /**
+     * @return the first point with given frequency, -1 - curve doesn't have it
+     */
+    public int indexOf(int frequency_Hz) {
+        for (int point = 0; point < frequencies_Hz.length; point++) {
+            if (frequencies_Hz[point] == frequency_Hz)
+                return point;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Set levels of point, extra levels are ignored, missing levels are 0
+     */
+    public void setLevels(int point, short[] pointLevels) {
+        int offset = point * channelsCount;
+        int count = Math.min(pointLevels.length, channelsCount);
+
+        System.arraycopy(pointLevels, 0, levels, offset, count);
+        Arrays.fill(levels, offset + count, offset + channelsCount, (short) 0);
+    }
+
+    private int checkChannel(int channel) {
+        if (channel < 0 || channel >= channelsCount)
+            throw new IndexOutOfBoundsException("Channel " + channel + " of " + channelsCount);
+
+        return channel;
+    }
+
+    /**
+     * @return packed curve: count of points, count of channels, frequencies and levels
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + frequencies_Hz.length * 4 + levels.length * 2);
+        buffer.putInt(frequencies_Hz.length).putInt(channelsCount);
+        buffer.asIntBuffer().put(frequencies_Hz);
+        buffer.position(buffer.position() + frequencies_Hz.length * 4);
+        buffer.asShortBuffer().put(levels);
+        return buffer.array();
+    }
+
+    /**
+     * @param bytes curve packed by {@link #toBytes()}
+     */
+    public static ResponseCurve fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int pointsCount = buffer.getInt();
+        int channelsCount = buffer.getInt();
+
+        if (pointsCount < 0 || channelsCount < 1 ||
+                buffer.remaining() != pointsCount * 4 + pointsCount * channelsCount * 2)
+            throw new IllegalArgumentException("Invalid packed response curve of " + bytes.length + " bytes");
+
+        int[] frequencies_Hz = new int[pointsCount];
+        buffer.asIntBuffer().get(frequencies_Hz);
+        buffer.position(buffer.position() + pointsCount * 4);
+
+        short[] levels = new short[pointsCount * channelsCount];
+        buffer.asShortBuffer().get(levels);
+
+        return new ResponseCurve(frequencies_Hz, channelsCount, levels);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ResponseCurve curve = (ResponseCurve) o;
+
+        return channelsCount == curve.channelsCount &&
+                Arrays.equals(frequencies_Hz, curve.frequencies_Hz) &&
+                Arrays.equals(levels, curve.levels);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(frequencies_Hz);
+        result = 31 * result + channelsCount;
+        result = 31 * result + Arrays.hashCode(levels);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ResponseCurve {");
+        for (int point = 0; point < frequencies_Hz.length; point++) {
+            builder.append(point == 0 ? " " : ", ").append(frequencies_Hz[point]).append(" Hz: ");
+            builder.append(Arrays.toString(Arrays.copyOfRange(levels, point * channelsCount, (point + 1) * channelsCount)));
+        }
+        return builder.append(" }").toString();
+    }
+}
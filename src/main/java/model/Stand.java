@@ -9,11 +9,14 @@ import packet.Command;
  */
 public class Stand extends Device {
 
-    private static final int MAX_RECEIVER_ADC_VOLTAGE_MCV = 1500000;
+    public static final int MAX_RECEIVER_ADC_VOLTAGE_MCV = 1500000;
     private String firmware;
     private String scheme;
     private Integer ID;
 
+    /* Measured transfer of stand, null - calculate voltage by nominal cascade gain */
+    private volatile StandTransfer transfer;
+
     Stand(Controller controller, ConnectionManager CM) {
         super(controller, CM);
     }
@@ -70,12 +73,41 @@ public class Stand extends Device {
                 ", ID = " + ID + "}";
     }
 
+    public StandTransfer getTransfer() {
+        return transfer;
+    }
+
+    public void setTransfer(StandTransfer transfer) {
+        this.transfer = transfer;
+    }
+
     public int calcVoltage(double level_prt, int gain_dB, int frequency_Hz) {
 
-        // Fix calculation for 32768 Hz receiver freq
-        double cascade_gain_dB = (frequency_Hz == 32768) ? 22.5 : 22.0;
+        double cascade_gain_dB = getCascadeGain(gain_dB, frequency_Hz);
 
         double voltage_mcV = level_prt / 100.0 * MAX_RECEIVER_ADC_VOLTAGE_MCV / Math.pow(10, (gain_dB + cascade_gain_dB) / 20.0);
         return (int) voltage_mcV;
     }
+
+    /**
+     * Inverse of {@link #calcVoltage(double, int, int)}: cascade gain, which gives measured level with voltage
+     */
+    public double calcCascadeGain(double level_prt, int gain_dB, int voltage_mcV) {
+        return 20.0 * Math.log10(level_prt / 100.0 * MAX_RECEIVER_ADC_VOLTAGE_MCV / voltage_mcV) - gain_dB;
+    }
+
+    private double getCascadeGain(int gain_dB, int frequency_Hz) {
+        StandTransfer transfer = this.transfer;
+        Double measured_dB = (transfer != null) ? transfer.getCascadeGain(frequency_Hz, gain_dB) : null;
+
+        return (measured_dB != null) ? measured_dB : getNominalCascadeGain(frequency_Hz);
+    }
+
+    /**
+     * @return cascade gain of receiver by its design, used while transfer of stand isn't measured
+     */
+    public static double getNominalCascadeGain(int frequency_Hz) {
+        // Fix calculation for 32768 Hz receiver freq
+        return (frequency_Hz == 32768) ? 22.5 : 22.0;
+    }
 }
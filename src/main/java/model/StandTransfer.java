@@ -0,0 +1,106 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Measured transfer characteristic of stand: cascade gain of receiver input (dB)
+ * for each characterized receiver frequency and gain.
+ * <p>
+ * <p> Cascade gain doesn't depend on gain of scaling amplifier in theory, so if gain isn't characterized
+ * for frequency, value of the nearest characterized gain is used.
+ */
+public class StandTransfer {
+
+    /* K - frequency (Hz), V - (K - gain (dB), V - cascade gain (dB)) */
+    private final NavigableMap<Integer, NavigableMap<Integer, Double>> cascadeGains = new TreeMap<>();
+
+    public synchronized void put(int frequency_Hz, int gain_dB, double cascadeGain_dB) {
+        NavigableMap<Integer, Double> gains = cascadeGains.get(frequency_Hz);
+        if (gains == null) {
+            gains = new TreeMap<>();
+            cascadeGains.put(frequency_Hz, gains);
+        }
+
+        gains.put(gain_dB, cascadeGain_dB);
+    }
+
+    /**
+     * @return cascade gain (dB) or null, if frequency isn't characterized
+     */
+    public synchronized Double getCascadeGain(int frequency_Hz, int gain_dB) {
+        NavigableMap<Integer, Double> gains = cascadeGains.get(frequency_Hz);
+        if (gains == null)
+            return null;
+
+        Map.Entry<Integer, Double> floor = gains.floorEntry(gain_dB);
+        Map.Entry<Integer, Double> ceiling = gains.ceilingEntry(gain_dB);
+
+        if (floor == null)
+            return ceiling.getValue();
+        if (ceiling == null)
+            return floor.getValue();
+
+        return (gain_dB - floor.getKey() <= ceiling.getKey() - gain_dB) ? floor.getValue() : ceiling.getValue();
+    }
+
+    public synchronized boolean isEmpty() {
+        return cascadeGains.isEmpty();
+    }
+
+    /**
+     * @return all points of characteristic, ordered by frequency and gain
+     */
+    public synchronized List<Point> getPoints() {
+        List<Point> points = new ArrayList<>();
+        for (Map.Entry<Integer, NavigableMap<Integer, Double>> frequency : cascadeGains.entrySet()) {
+            for (Map.Entry<Integer, Double> gain : frequency.getValue().entrySet()) {
+                points.add(new Point(frequency.getKey(), gain.getKey(), gain.getValue()));
+            }
+        }
+
+        return Collections.unmodifiableList(points);
+    }
+
+    @Override
+    public String toString() {
+        return "StandTransfer " + getPoints();
+    }
+
+    /**
+     * Cascade gain measured on receiver frequency and gain
+     */
+    public static class Point {
+
+        private final int frequency_Hz;
+        private final int gain_dB;
+        private final double cascadeGain_dB;
+
+        Point(int frequency_Hz, int gain_dB, double cascadeGain_dB) {
+            this.frequency_Hz = frequency_Hz;
+            this.gain_dB = gain_dB;
+            this.cascadeGain_dB = cascadeGain_dB;
+        }
+
+        public int getFrequency() {
+            return frequency_Hz;
+        }
+
+        public int getGain() {
+            return gain_dB;
+        }
+
+        public double getCascadeGain() {
+            return cascadeGain_dB;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{%d Hz, %d dB: %.2f dB}", frequency_Hz, gain_dB, cascadeGain_dB);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package model;
+
+import connections.Connection;
+import connections.ConnectionManager;
+import connections.Protocol;
+import controller.Controller;
+import model.tests.StandCharacterization;
+import model.tests.TestManager;
+import model.tests.TestManager.State;
+import packet.Command;
+
+import java.sql.SQLException;
+
+/**
+ * Test station: one bench of receiver and stand with its own connection and test pipeline.
+ * <p>
+ * <p> Stations are independent, so several benches are tested in parallel by one process.
+ * Database is shared by all stations.
+ */
+public class Station {
+
+    private final Controller controller;
+    private final ManagerDB managerDB;
+    private final String name;
+    private final TestManager testManager;
+
+    /* Receiver and stand are connected by one connection or each by its own one, then their traffic overlaps */
+    private volatile ConnectionManager receiverCM;
+    private volatile ConnectionManager standCM;
+    private volatile Receiver receiver;
+    private volatile Stand stand;
+
+    /**
+     * @param name name of station in log, null - station is the main one, which is attended by user
+     */
+    Station(Controller controller, ManagerDB managerDB, String name) {
+        this.controller = controller;
+        this.managerDB = managerDB;
+        this.name = name;
+        this.testManager = new TestManager(controller, this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true, if results of testing are inserted to database after confirmation of user,
+     * false - results are inserted when testing is done
+     */
+    public boolean isAttended() {
+        return name == null;
+    }
+
+    public Receiver getReceiver() {
+        return receiver;
+    }
+
+    public Stand getStand() {
+        return stand;
+    }
+
+    public TestManager getTestManager() {
+        return testManager;
+    }
+
+    /**
+     * @return text, which is prepended to messages of this station in log
+     */
+    public String getLogPrefix() {
+        return isAttended() ? "" : "[" + name + "] ";
+    }
+
+    /**
+     * Connect to receiver and stand by any connection, e.g. {@link connections.SimulatedBench}
+     */
+    void connect(Connection connection, Protocol protocol) {
+        connect(connection, connection, protocol);
+    }
+
+    /**
+     * Connect to receiver and stand by separate connections, so commands of stand don't wait for commands of receiver.
+     * The same connection may be given for both devices.
+     */
+    void connect(Connection receiverConnection, Connection standConnection, Protocol protocol) {
+        connect(receiverConnection, standConnection, protocol, protocol);
+    }
+
+    /**
+     * Connect to receiver and stand by separate connections, each device talks its own protocol.
+     * The same connection may be given for both devices, if their protocols are the same.
+     */
+    void connect(Connection receiverConnection, Connection standConnection, Protocol receiverProtocol, Protocol standProtocol) {
+        try {
+            if (receiverCM != null || standCM != null) {
+                disconnect();
+            }
+
+            // Protocol is set to connection, so shared connection has one protocol
+            if (standConnection == receiverConnection && receiverProtocol.getClass() != standProtocol.getClass())
+                throw new IllegalArgumentException("Receiver and stand use different protocols " +
+                        receiverProtocol + " and " + standProtocol + " by the same connection");
+
+            // Trying open connections
+            open(receiverConnection);
+            receiverCM = new ConnectionManager(receiverConnection, receiverProtocol);
+
+            if (standConnection != receiverConnection) {
+                open(standConnection);
+                standCM = new ConnectionManager(standConnection, standProtocol);
+            } else {
+                standCM = receiverCM;
+            }
+
+            receiver = new Receiver(controller, receiverCM);
+            stand = new Stand(controller, standCM);
+
+            receiver.checkConnectionStatus();
+            stand.checkConnectionStatus();
+
+            loadStandTransfer();
+
+        } catch (Exception e) {
+            controller.showErrorMessage(
+                    "Open connection",
+                    getLogPrefix() + "Can't open connection " + receiverConnection +
+                            (standConnection != receiverConnection ? " or " + standConnection : ""),
+                    e);
+
+            disconnect();
+        }
+    }
+
+    private void open(Connection connection) throws Exception {
+        connection.open();
+        controller.updateLog(getLogPrefix() + "Connection " + connection + " successfully OPENED");
+    }
+
+    void disconnect() {
+        ConnectionManager receiverCM = this.receiverCM;
+        ConnectionManager standCM = this.standCM;
+
+        if (receiver != null)
+            receiver.stopStreaming();
+
+        try {
+            // Trying close connections
+            if (receiverCM != null)
+                close(receiverCM);
+            if (standCM != null && standCM != receiverCM)
+                close(standCM);
+
+            if (receiver != null)
+                receiver.checkConnectionStatus();
+            if (stand != null)
+                stand.checkConnectionStatus();
+        } finally {
+            this.receiverCM = null;
+            this.standCM = null;
+            receiver = null;
+            stand = null;
+        }
+    }
+
+    private void close(ConnectionManager CM) {
+        Connection connection = CM.getConnection();
+        try {
+            connection.close();
+            controller.updateLog(getLogPrefix() + "Connection " + connection + " successfully CLOSED");
+        } catch (Exception e) {
+            controller.showErrorMessage(
+                    "Close connection",
+                    getLogPrefix() + "Can't close connection " + connection,
+                    e);
+        } finally {
+            CM.close();
+        }
+    }
+
+    boolean isConnectedBy(Connection connection) {
+        return isConnectedBy(receiverCM, connection) || isConnectedBy(standCM, connection);
+    }
+
+    private static boolean isConnectedBy(ConnectionManager CM, Connection connection) {
+        return CM != null && CM.getConnection() == connection;
+    }
+
+    public boolean isReceiverConnected() {
+        Receiver receiver = this.receiver;
+        return receiver != null && receiver.getConnectionStatus() == ConnectionStatus.CONNECTED;
+    }
+
+    public boolean isStandConnected() {
+        Stand stand = this.stand;
+        return stand != null && stand.getConnectionStatus() == ConnectionStatus.CONNECTED;
+    }
+
+    public boolean isConnected() {
+        return isReceiverConnected() && isStandConnected();
+    }
+
+    /**
+     * Load measured transfer of connected stand from database, if stand has been characterized
+     */
+    private void loadStandTransfer() {
+        if (!managerDB.exist() || !isStandConnected())
+            return;
+
+        try {
+            StandTransfer transfer;
+            synchronized (managerDB) {
+                transfer = managerDB.selectStandTransfer(stand.getID());
+            }
+
+            if (!transfer.isEmpty()) {
+                stand.setTransfer(transfer);
+                controller.updateLog(getLogPrefix() + "Transfer of " + stand + " is loaded from database");
+            }
+        } catch (SQLException e) {
+            controller.showErrorMessage(
+                    "Load stand transfer",
+                    getLogPrefix() + "Can't load transfer of " + stand + " from database",
+                    e);
+        }
+    }
+
+    /**
+     * Measure transfer of connected stand and store it to database
+     */
+    boolean characterizeStand() {
+        if (!isConnected())
+            return false;
+
+        try {
+            StandTransfer transfer = new StandCharacterization(testManager.getTestList()).run(receiver, stand);
+            controller.updateLog(getLogPrefix() + "Measured " + transfer);
+
+            synchronized (managerDB) {
+                if (managerDB.exist())
+                    managerDB.insert(stand.getID(), transfer);
+            }
+
+            return true;
+        } catch (Exception e) {
+            controller.showErrorMessage(
+                    "Characterize stand",
+                    getLogPrefix() + "Characterization of " + stand + " is failed",
+                    e);
+        }
+        return false;
+    }
+
+    public boolean isTestRunning() {
+        return testManager.isTestRunning();
+    }
+
+    void startTesting() {
+        if (isTestRunning())
+            return;
+
+        // Main station is started as before multi-station mode, test cases report devices, which aren't connected
+        if (!isAttended() && !isConnected()) {
+            controller.updateLog(getLogPrefix() + "Testing isn't started: station isn't connected");
+            return;
+        }
+
+        testManager.start();
+    }
+
+    public void stopTesting() {
+        if (isTestRunning())
+            testManager.stop();
+    }
+
+    /**
+     * Insert receiver with results of testing to database and write new ID to receiver
+     */
+    public boolean insertResultToDB() {
+        try {
+            Integer newID;
+
+            // Stations share connection to database: new ID is unique, while it's inserted
+            synchronized (managerDB) {
+                newID = managerDB.getNextUniqueID();
+
+                if (managerDB.insert(new Receiver(newID, receiver.getModel(), receiver.getScheme(), receiver.getFirmware()), null, null) <= 0 ||
+                        managerDB.insert(newID, testManager.getTestIDs(State.PASS), testManager.getTestIDs(State.FAIL), testManager.getTestIDs(State.SKIP)) <= 0)
+                    return false;
+
+                managerDB.insert(newID, testManager.getResponseCurves());
+            }
+
+            receiver.set(Command.WRITE_PCB_ID_DEVICE, newID);
+            receiver.setID(newID);
+
+            if (isAttended()) {
+                controller.showMessage(
+                        "Database insert entry",
+                        "New entry " + receiver + "\nsuccessfully inserted to database!"
+                );
+            } else {
+                controller.updateLog(getLogPrefix() + "New entry " + receiver + " successfully inserted to database");
+            }
+            return true;
+        } catch (Exception e) {
+            controller.showErrorMessage(
+                    "Database insert entry",
+                    getLogPrefix() + "New entry " + receiver + "\ninsert to database FAILED!",
+                    e
+            );
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return isAttended() ? "Main station" : "Station " + name;
+    }
+}
@@ -3,7 +3,7 @@ package model.tests;
 import model.Receiver;
 import model.Stand;
 
-import java.util.Arrays;
+import java.nio.ShortBuffer;
 
 import static model.Receiver.MAX_LEVEL;
 
@@ -22,14 +22,13 @@ class AFEqualSignalLevelsTest extends AnalogFilterTest {
     }
 
     @Override
-    public void runTest(Receiver receiver, Stand stand) throws Exception, Error {
+    public void runTest(Receiver receiver, Stand stand, TestContext context) throws Exception, Error {
 
-        setUp(stand);
-        setUp(receiver);
-        short[] levels = autoSetVoltage(stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
+        setUp(receiver, stand);
+        short[] levels = autoSetVoltage(context, stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
 
-        int maxLevel = findMaxLevel(Arrays.copyOfRange(levels, 0, 4));
-        int minLevel = findMinLevel(Arrays.copyOfRange(levels, 0, 4));
+        int maxLevel = findMaxLevel(ShortBuffer.wrap(levels), CHANNELS_COUNT);
+        int minLevel = findMinLevel(ShortBuffer.wrap(levels), CHANNELS_COUNT);
 
         double diffLevelsExpected = delta;
         double diffLevelsActual = (double) (maxLevel - minLevel) * 100.0 / MAX_LEVEL;
@@ -1,13 +1,13 @@
 package model.tests;
 
 import model.Receiver;
+import model.ResponseCurve;
 import model.Stand;
 
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 import static model.Receiver.MAX_LEVEL;
-import static packet.Command.FREQUENCY_STAND;
-import static packet.Command.GET_LEVELS_DEVICE;
 
 /**
  * Sample test case class
@@ -24,32 +24,27 @@ class AFValidFilterBandpassTest extends AnalogFilterTest {
     }
 
     @Override
-    public void runTest(Receiver receiver, Stand stand) throws Exception, Error {
+    public void runTest(Receiver receiver, Stand stand, TestContext context) throws Exception, Error {
 
-        setUp(stand);
-        setUp(receiver);
-        short[] beforeLevels = autoSetVoltage(stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
+        setUp(receiver, stand);
+        short[] beforeLevels = autoSetVoltage(context, stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
 
-        for (Integer standFrequency_Hz : Receiver.FREQUENCY_HZ) {
+        // Levels on all tested frequencies are taken by one sweep, then each of them is checked
+        ResponseCurve curve = context.getFrequencySweep().run(receiver, stand, getTestedFrequencies(),
+                receiverFrequency_Hz, receiverGain_dB, CHANNELS_COUNT);
+        context.putResponseCurve(getId(), curve);
 
-            // This frequencies have same analog filter, skip it's frequencies
-            if (!isFrequencyTested(standFrequency_Hz, receiverFrequency_Hz))
-                continue;
+        for (int point = 0; point < curve.getPointsCount(); point++) {
 
+            int standFrequency_Hz = curve.getFrequency(point);
             double rejection = standFrequency_Hz == 100 && receiverFrequency_Hz == 50 ?
                     REJECTION_PASSIVE_FREQ :
                     REJECTION_ACTIVE_FREQ;
 
-            // Set up new frequency and wait completion transient process on receiver
-            stand.set(FREQUENCY_STAND, standFrequency_Hz);
-            TimeUnit.MILLISECONDS.sleep(WAIT_CHANGE_VOLTAGE_MS);
-
-            short[] afterLevels = receiver.getArray(GET_LEVELS_DEVICE);
-
-            for (int i = 0; i < 4; i++) {
+            for (int i = 0; i < CHANNELS_COUNT; i++) {
 
                 double before_prt = beforeLevels[i] * 100.0 / MAX_LEVEL;
-                double after_prt = afterLevels[i] * 100.0 / MAX_LEVEL;
+                double after_prt = curve.getLevel(point, i) * 100.0 / MAX_LEVEL;
 
                 before_prt /= rejection;
 
@@ -65,6 +60,18 @@ class AFValidFilterBandpassTest extends AnalogFilterTest {
         }
     }
 
+    private int[] getTestedFrequencies() {
+        List<Integer> frequencies_Hz = new ArrayList<>();
+        for (Integer standFrequency_Hz : Receiver.FREQUENCY_HZ) {
+
+            // This frequencies have same analog filter, skip it's frequencies
+            if (isFrequencyTested(standFrequency_Hz, receiverFrequency_Hz))
+                frequencies_Hz.add(standFrequency_Hz);
+        }
+
+        return FrequencySweep.toArray(frequencies_Hz);
+    }
+
     private boolean isFrequencyTested(int standFreq_Hz, int receiverFreq_Hz) {
 
         return (receiverFreq_Hz != standFreq_Hz) &&
@@ -1,11 +1,15 @@
 package model.tests;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import model.Device;
 import model.Receiver;
 import model.Stand;
+import packet.Command;
+import packet.Packet;
 
+import java.nio.ShortBuffer;
 import java.util.Arrays;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 import static model.Receiver.MAX_LEVEL;
 import static packet.Command.*;
@@ -15,12 +19,15 @@ import static packet.Command.*;
  */
 abstract class AnalogFilterTest extends BaseTestCase {
 
-    static final int WAIT_CHANGE_VOLTAGE_MS = 300;
     static final double INIT_LEVEL_PRT = 93.0;
     static final double MIN_LEVEL_PRT = 95.0;
     static final double MAX_LEVEL_PRT = 99.99;
+    static final int CHANNELS_COUNT = 4;
 
-    private static final int SET_VOLTAGE_ATTEMPTS_COUNT = 15;
+    static final int SET_VOLTAGE_ATTEMPTS_COUNT = 15;
+
+    /* Count of snapshots, which are taken for verdict of test case */
+    static final int VERDICT_SAMPLES_COUNT = 8;
 
     final int receiverFrequency_Hz;
     final int receiverGain_dB;
@@ -31,66 +38,160 @@ abstract class AnalogFilterTest extends BaseTestCase {
         this.receiverFrequency_Hz = receiverFrequency_Hz;
     }
 
-    short[] autoSetVoltage(Stand stand, Receiver receiver, int initGain, double minLevelPrt, double maxLevelPrt, double initLevelPrt) throws Exception {
-
-        int voltage_mcV = stand.calcVoltage(initLevelPrt, initGain, receiverFrequency_Hz);
-        int attempts = 1;
+    /**
+     * Set up stand voltage, which gives max level of receiver channels in range.
+     * <p>
+     * <p> Level is proportional to voltage until ADC saturation, so voltage is searched by secant method:
+     * the first step scales initial voltage by level of zero voltage (zero) and measured level,
+     * next steps use two last measured points, that also takes into account offset of real receiver.
+     * Saturated level isn't used as point, voltage is halved towards the last unsaturated point instead.
+     * If voltage was already found in context for the same configuration and range, search starts from it.
+     *
+     * @return levels of channels for verdict with voltage found
+     */
+    short[] autoSetVoltage(TestContext context, Stand stand, Receiver receiver, int initGain, double minLevelPrt, double maxLevelPrt, double initLevelPrt) throws Exception {
+
+        double targetLevel_prt = (maxLevelPrt + minLevelPrt) / 2;
+        List<?> levellingKey = Arrays.asList(getConfiguration(), initGain, minLevelPrt, maxLevelPrt);
+        Integer levelledVoltage_mcV = context.getLevelledVoltage(levellingKey);
+        int voltage_mcV = (levelledVoltage_mcV != null) ?
+                levelledVoltage_mcV :
+                stand.calcVoltage(initLevelPrt, initGain, receiverFrequency_Hz);
+
+        // The last unsaturated point of level vs voltage relation
+        int prevVoltage_mcV = 0;
+        double prevLevel_prt = 0;
 
         double realMaxLevel_prt = 0;
-        while (attempts++ <= SET_VOLTAGE_ATTEMPTS_COUNT) {
+        for (int iterations = 1; iterations <= SET_VOLTAGE_ATTEMPTS_COUNT; iterations++) {
 
             // Set up new voltage and wait completion transient process on receiver
             stand.set(VOLTAGE_STAND, voltage_mcV);
-            TimeUnit.MILLISECONDS.sleep(WAIT_CHANGE_VOLTAGE_MS);
-
-            short[] levels = receiver.getArray(GET_LEVELS_DEVICE);
-            realMaxLevel_prt = findMaxLevel(Arrays.copyOfRange(levels, 0, 4)) * 100.0 / MAX_LEVEL;
 
-            if (realMaxLevel_prt < minLevelPrt || realMaxLevel_prt > maxLevelPrt) {
+            // Search max level straight in received data: array is made only for levels, which are returned
+            ShortBuffer levels = context.getSettleDetector().await(receiver, GET_LEVELS_DEVICE, receiverFrequency_Hz, initGain);
+            realMaxLevel_prt = findMaxLevel(levels, CHANNELS_COUNT) * 100.0 / MAX_LEVEL;
 
-                int voltage_step_mcV = stand.calcVoltage((maxLevelPrt + minLevelPrt) / 2 - realMaxLevel_prt, initGain, receiverFrequency_Hz);
-                voltage_mcV += (voltage_step_mcV < 0) ? voltage_step_mcV * attempts : voltage_step_mcV;
+            if (realMaxLevel_prt >= minLevelPrt && realMaxLevel_prt <= maxLevelPrt) {
+                context.getVoltageSearchIterations().record(iterations);
+                context.putLevelledVoltage(levellingKey, voltage_mcV);
+                return sampleForVerdict(receiver, GET_LEVELS_DEVICE);
+            }
 
+            int nextVoltage_mcV;
+            boolean saturated = findMaxLevel(levels, CHANNELS_COUNT) >= MAX_LEVEL;
+            if (saturated) {
+                nextVoltage_mcV = (prevVoltage_mcV + voltage_mcV) / 2;
             } else {
-                return levels;
+                // Voltage of previous point is the same (voltage can't be less than 1 mcV): slope is unknown
+                double slope = (voltage_mcV != prevVoltage_mcV) ?
+                        (realMaxLevel_prt - prevLevel_prt) / (voltage_mcV - prevVoltage_mcV) :
+                        0;
+
+                // Level doesn't grow with voltage (noise or no signal): step by model of receiver instead
+                nextVoltage_mcV = (slope > 0) ?
+                        (int) Math.round(voltage_mcV + (targetLevel_prt - realMaxLevel_prt) / slope) :
+                        voltage_mcV + stand.calcVoltage(targetLevel_prt - realMaxLevel_prt, initGain, receiverFrequency_Hz);
+
+                prevVoltage_mcV = voltage_mcV;
+                prevLevel_prt = realMaxLevel_prt;
             }
+
+            // Step is rounded to 0: the same voltage would be set until attempts are over
+            if (nextVoltage_mcV == voltage_mcV)
+                nextVoltage_mcV += (saturated || realMaxLevel_prt > targetLevel_prt) ? -1 : 1;
+
+            voltage_mcV = Math.max(nextVoltage_mcV, 1);
         }
 
+        context.getVoltageSearchIterations().record(SET_VOLTAGE_ATTEMPTS_COUNT);
         throw new Exception(String.format(
-                "Impossible to set level of signal %.2f%% to range (%.2f%%, %.2f%%)",
-                realMaxLevel_prt, minLevelPrt, maxLevelPrt));
+                "Impossible to set level of signal %.2f%% to range (%.2f%%, %.2f%%) in %d attempts",
+                realMaxLevel_prt, minLevelPrt, maxLevelPrt, SET_VOLTAGE_ATTEMPTS_COUNT));
+    }
+
+    /**
+     * Wait completion transient process on receiver after change of settings
+     *
+     * @param command command to get levels of channels or magnitudes of frequencies
+     * @param gain_dB current gain of receiver
+     * @return settled levels for verdict (see {@link #sampleForVerdict(Receiver, Command)})
+     */
+    short[] awaitSettled(TestContext context, Receiver receiver, Command command, int gain_dB) throws Exception {
+        context.getSettleDetector().await(receiver, command, receiverFrequency_Hz, gain_dB);
+        return sampleForVerdict(receiver, command);
+    }
+
+    /**
+     * Test case is judged by means of burst of snapshots without outliers, so one noisy snapshot doesn't fail it
+     *
+     * @return mean levels of channels or magnitudes of frequencies
+     */
+    short[] sampleForVerdict(Receiver receiver, Command command) throws Exception {
+        return receiver.sample(command, VERDICT_SAMPLES_COUNT).getMeanLevels();
     }
 
-    int findMaxLevel(short[] levels) {
+    /**
+     * @param count count of first levels to search in
+     */
+    int findMaxLevel(ShortBuffer levels, int count) {
+        assertLevelsCount(levels, count);
+
         short result = Short.MIN_VALUE;
-        for (short level : levels) {
-            result = (short) Math.max(level, result);
+        for (int i = 0; i < count; i++) {
+            result = (short) Math.max(levels.get(i), result);
         }
 
         return result;
     }
 
+    @Override
+    TestConfiguration getConfiguration() {
+        return new TestConfiguration(receiverFrequency_Hz, receiverGain_dB, Receiver.BSType.FILTER);
+    }
+
     void setUp(Receiver receiver) throws Exception {
-        receiver.set(MODE_DEVICE, Receiver.Modes.MODE_TESTLEVELS.ordinal());
-        receiver.set(TYPE_OF_SIGNAL_DEVICE, Device.SignalType.SOLID.ordinal());
-        receiver.set(BOTTOM_SENSOR_DEVICE, Receiver.BSType.FILTER.ordinal());
-        receiver.set(FREQUENCY_DEVICE, receiverFrequency_Hz);
-        receiver.set(GAIN_DEVICE, receiverGain_dB);
+        receiver.setAll(
+                new Packet(MODE_DEVICE, Receiver.Modes.MODE_TESTLEVELS.ordinal()),
+                new Packet(TYPE_OF_SIGNAL_DEVICE, Device.SignalType.SOLID.ordinal()),
+                new Packet(BOTTOM_SENSOR_DEVICE, Receiver.BSType.FILTER.ordinal()),
+                new Packet(FREQUENCY_DEVICE, receiverFrequency_Hz),
+                new Packet(GAIN_DEVICE, receiverGain_dB));
     }
 
-    void setUp(Stand stand) throws Exception {
-        stand.set(EXT_SENSOR_STAND, Device.ExtSensors.INT.ordinal());
-//        TODO: impl TYPE_OF_SIGNAL_STAND command
-//        stand.set(TYPE_OF_SIGNAL_STAND,     SignalType.SOLID.ordinal());
-        stand.set(FREQUENCY_STAND, receiverFrequency_Hz);
+    ListenableFuture<Void> setUpAsync(Stand stand) {
+        return stand.setAllAsync(
+                new Packet(EXT_SENSOR_STAND, Device.ExtSensors.INT.ordinal()),
+//                TODO: impl TYPE_OF_SIGNAL_STAND command
+//                new Packet(TYPE_OF_SIGNAL_STAND, SignalType.SOLID.ordinal()),
+                new Packet(FREQUENCY_STAND, receiverFrequency_Hz));
     }
 
-    int findMinLevel(short[] levels) {
+    /**
+     * Set up stand, while receiver is set up: if devices have separate connections, it takes time of one of them
+     */
+    void setUp(Receiver receiver, Stand stand) throws Exception {
+        ListenableFuture<Void> standSetUp = setUpAsync(stand);
+        setUp(receiver);
+        Device.await(standSetUp);
+    }
+
+    /**
+     * @param count count of first levels to search in
+     */
+    int findMinLevel(ShortBuffer levels, int count) {
+        assertLevelsCount(levels, count);
+
         short result = Short.MAX_VALUE;
-        for (short level : levels) {
-            result = (short) Math.min(level, result);
+        for (int i = 0; i < count; i++) {
+            result = (short) Math.min(levels.get(i), result);
         }
 
         return result;
     }
+
+    private void assertLevelsCount(ShortBuffer levels, int count) {
+        assertTrue(String.format("Receiver has sent %d levels instead of %d", levels.limit(), count),
+                levels.limit() >= count);
+    }
 }
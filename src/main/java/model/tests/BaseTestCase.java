@@ -34,7 +34,24 @@ public abstract class BaseTestCase extends org.junit.Assert {
         this.enabled = enabled;
     }
 
-    public abstract void runTest(Receiver receiver, Stand stand) throws Error, Exception;
+    /**
+     * @param context state of testing of station, which this run belongs to
+     */
+    public abstract void runTest(Receiver receiver, Stand stand, TestContext context) throws Error, Exception;
+
+    /**
+     * Run test case alone, out of testing of station
+     */
+    public void runTest(Receiver receiver, Stand stand) throws Error, Exception {
+        runTest(receiver, stand, new TestContext());
+    }
+
+    /**
+     * @return configuration of devices, which this test case sets up, null - test case doesn't depend on it
+     */
+    TestConfiguration getConfiguration() {
+        return null;
+    }
 
     public Integer getId() {
         return id;
@@ -0,0 +1,112 @@
+package model.tests;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of small counts, e.g. of iterations of search: number of occurrences of each count
+ * from 0 to max count. Counts are recorded from any thread without locks.
+ */
+public class CountDistribution {
+
+    private final AtomicLongArray occurrences;
+
+    /**
+     * @param maxCount the greatest count, which can be recorded
+     */
+    public CountDistribution(int maxCount) {
+        if (maxCount < 0)
+            throw new IllegalArgumentException("Max count must not be negative: " + maxCount);
+
+        occurrences = new AtomicLongArray(maxCount + 1);
+    }
+
+    public void record(int count) {
+        if (count < 0 || count >= occurrences.length())
+            throw new IllegalArgumentException("Count " + count + " isn't in range from 0 to " + getMaxCount());
+
+        occurrences.incrementAndGet(count);
+    }
+
+    /**
+     * @return the greatest count, which can be recorded
+     */
+    public int getMaxCount() {
+        return occurrences.length() - 1;
+    }
+
+    /**
+     * @return number of occurrences of given count
+     */
+    public long getOccurrences(int count) {
+        return occurrences.get(count);
+    }
+
+    /**
+     * @return number of recorded counts
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int count = 0; count < occurrences.length(); count++)
+            total += occurrences.get(count);
+
+        return total;
+    }
+
+    /**
+     * @return the least recorded count, -1 - nothing is recorded
+     */
+    public int getMin() {
+        for (int count = 0; count < occurrences.length(); count++) {
+            if (occurrences.get(count) > 0)
+                return count;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the greatest recorded count, -1 - nothing is recorded
+     */
+    public int getMax() {
+        for (int count = occurrences.length() - 1; count >= 0; count--) {
+            if (occurrences.get(count) > 0)
+                return count;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return mean of recorded counts, 0 - nothing is recorded
+     */
+    public double getMean() {
+        long total = 0;
+        long sum = 0;
+        for (int count = 0; count < occurrences.length(); count++) {
+            long n = occurrences.get(count);
+            total += n;
+            sum += n * count;
+        }
+
+        return total > 0 ? (double) sum / total : 0;
+    }
+
+    /**
+     * @return occurrences of recorded counts, e.g. "1: 12, 2: 3"
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int count = 0; count < occurrences.length(); count++) {
+            long n = occurrences.get(count);
+            if (n == 0)
+                continue;
+
+            if (builder.length() > 0)
+                builder.append(", ");
+            builder.append(count).append(": ").append(n);
+        }
+
+        return builder.toString();
+    }
+}
@@ -4,8 +4,6 @@ import model.Device;
 import model.Receiver;
 import model.Stand;
 
-import java.util.concurrent.TimeUnit;
-
 import static model.Receiver.MAX_LEVEL;
 import static packet.Command.*;
 
@@ -20,7 +18,6 @@ class ExternalSensorsTest extends AnalogFilterTest {
 
     private static final int FREQUENCY = 512;
     private static final int GAIN = 20;
-    private static final long WAIT_CHANGE_EXT_SENSOR_MS = 300;
 
     ExternalSensorsTest() {
         super(String.format("Check external sensors (%d Hz, %d dB)", FREQUENCY, GAIN),
@@ -29,17 +26,17 @@ class ExternalSensorsTest extends AnalogFilterTest {
     }
 
     @Override
-    public void runTest(Receiver receiver, Stand stand) throws Exception, Error {
+    public void runTest(Receiver receiver, Stand stand, TestContext context) throws Exception, Error {
 
-        setUp(stand);
-        setUp(receiver);
-        short[] beforeLevels = autoSetVoltage(stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
+        setUp(receiver, stand);
+        short[] beforeLevels = autoSetVoltage(context, stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
 
         Device.ExtSensors receiverSensor = null;
         for (Device.ExtSensors standSensor : Device.ExtSensors.values()) {
 
+            // Switching of sensor is completed, when levels are settled
             stand.set(EXT_SENSOR_STAND, standSensor.ordinal());
-            TimeUnit.MILLISECONDS.sleep(WAIT_CHANGE_EXT_SENSOR_MS);
+            context.getSettleDetector().await(receiver, GET_LEVELS_DEVICE, receiverFrequency_Hz, receiverGain_dB);
             receiverSensor = Stand.ExtSensors.values()[receiver.getArray(GET_EXT_SENSOR_DEVICE)[0]];
 
             assertEquals(String.format(
@@ -50,7 +47,8 @@ class ExternalSensorsTest extends AnalogFilterTest {
             );
         }
 
-        short[] afterLevels = receiver.getArray(GET_LEVELS_DEVICE);
+        // Verdict is made for the last sensor only
+        short[] afterLevels = sampleForVerdict(receiver, GET_LEVELS_DEVICE);
 
         double before4_prt = beforeLevels[3] / REJECTION_EXT_SENSOR * 100.0 / MAX_LEVEL;
         double after4_prt = afterLevels[3] * 100.0 / MAX_LEVEL;
@@ -0,0 +1,92 @@
+package model.tests;
+
+import model.Receiver;
+import model.ResponseCurve;
+import model.Stand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static packet.Command.FREQUENCY_STAND;
+import static packet.Command.GET_LEVELS_DEVICE;
+
+/**
+ * Frequency sweep: step stand across frequencies and measure level response of receiver channels on each of them.
+ * <p>
+ * <p> Receiver and stand must be set up before sweep, only frequency of stand is changed. Wait after each step
+ * is over as soon as levels are settled (see {@link SettleDetector}), then point is measured by burst of snapshots,
+ * so the whole curve is taken by one pass and checked by test case afterwards.
+ */
+public class FrequencySweep {
+
+    private final SettleDetector settleDetector;
+    private final int samplesCount;
+
+    /**
+     * @param settleDetector detector of completion of transient process after each step
+     * @param samplesCount   count of snapshots, which mean is level of point
+     */
+    public FrequencySweep(SettleDetector settleDetector, int samplesCount) {
+        if (samplesCount < 1)
+            throw new IllegalArgumentException("Count of snapshots must be positive: " + samplesCount);
+
+        this.settleDetector = settleDetector;
+        this.samplesCount = samplesCount;
+    }
+
+    /**
+     * @param frequencies_Hz       stand frequencies in order of steps
+     * @param receiverFrequency_Hz current frequency of receiver, used only for statistics of settle times
+     * @param gain_dB              current gain of receiver, used only for statistics of settle times
+     * @param channelsCount        count of first channels, which levels are kept in curve
+     * @return levels of channels on each frequency
+     */
+    public ResponseCurve run(Receiver receiver, Stand stand, int[] frequencies_Hz,
+                             int receiverFrequency_Hz, int gain_dB, int channelsCount) throws Exception {
+
+        ResponseCurve curve = new ResponseCurve(frequencies_Hz, channelsCount);
+
+        for (int point = 0; point < frequencies_Hz.length; point++) {
+            stand.set(FREQUENCY_STAND, frequencies_Hz[point]);
+
+            settleDetector.await(receiver, GET_LEVELS_DEVICE, receiverFrequency_Hz, gain_dB);
+            curve.setLevels(point, receiver.sample(GET_LEVELS_DEVICE, samplesCount).getMeanLevels());
+        }
+
+        return curve;
+    }
+
+    /**
+     * Fine grid for characterization of filters: frequencies are evenly spaced on log scale
+     * and rounded to whole hertz, points, which are equal after rounding, are merged
+     *
+     * @param from_Hz         the least frequency
+     * @param to_Hz           the greatest frequency
+     * @param pointsPerDecade count of points in frequency range of 10 times
+     * @return ascending frequencies including both bounds
+     */
+    public static int[] logGrid(int from_Hz, int to_Hz, int pointsPerDecade) {
+        if (from_Hz < 1 || to_Hz < from_Hz || pointsPerDecade < 1)
+            throw new IllegalArgumentException(String.format(
+                    "Invalid grid from %d Hz to %d Hz with %d points per decade", from_Hz, to_Hz, pointsPerDecade));
+
+        double step = Math.pow(10, 1.0 / pointsPerDecade);
+        TreeSet<Integer> grid = new TreeSet<>();
+        for (double frequency_Hz = from_Hz; frequency_Hz < to_Hz; frequency_Hz *= step) {
+            grid.add((int) Math.round(frequency_Hz));
+        }
+        grid.add(to_Hz);
+
+        return toArray(new ArrayList<>(grid));
+    }
+
+    static int[] toArray(List<Integer> frequencies_Hz) {
+        int[] result = new int[frequencies_Hz.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = frequencies_Hz.get(i);
+        }
+
+        return result;
+    }
+}
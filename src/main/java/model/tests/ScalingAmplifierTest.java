@@ -3,8 +3,6 @@ package model.tests;
 import model.Receiver;
 import model.Stand;
 
-import java.util.concurrent.TimeUnit;
-
 import static model.Receiver.MAX_LEVEL;
 import static packet.Command.GAIN_DEVICE;
 import static packet.Command.GET_LEVELS_DEVICE;
@@ -30,17 +28,14 @@ class ScalingAmplifierTest extends AnalogFilterTest {
     }
 
     @Override
-    public void runTest(Receiver receiver, Stand stand) throws Exception, Error {
+    public void runTest(Receiver receiver, Stand stand, TestContext context) throws Exception, Error {
 
-        setUp(stand);
-        setUp(receiver);
-        short[] beforeLevels = autoSetVoltage(stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
+        setUp(receiver, stand);
+        short[] beforeLevels = autoSetVoltage(context, stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
 
         // Set up new gain and wait completion transient process on receiver
         receiver.set(GAIN_DEVICE, END_GAIN);
-        TimeUnit.MILLISECONDS.sleep(WAIT_CHANGE_VOLTAGE_MS);
-
-        short[] afterLevels = receiver.getArray(GET_LEVELS_DEVICE);
+        short[] afterLevels = awaitSettled(context, receiver, GET_LEVELS_DEVICE, END_GAIN);
 
         for (int i = 0; i < 4; i++) {
 
@@ -0,0 +1,216 @@
+package model.tests;
+
+import connections.LatencyHistogram;
+import model.Device;
+import model.LevelRingBuffer;
+import model.Receiver;
+import packet.Command;
+
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static model.Receiver.MAX_LEVEL;
+
+/**
+ * Detector of completion of transient process on receiver after change of stand or receiver settings.
+ * <p>
+ * <p> Instead of fixed wait, levels are sampled every {@link #SAMPLE_PERIOD_MS} and wait is over, when
+ * {@link #STABLE_SAMPLES} samples in a row don't differ more than tolerance on any channel.
+ * Sampling starts after {@link #MIN_DWELL_MS}: receiver doesn't react to change at once, so samples taken
+ * right after change may be stable levels before change.
+ * If levels aren't stable during {@link #MAX_SETTLE_MS}, the last sample is used like after fixed wait.
+ * <p>
+ * <p> If receiver streams the same command (see {@link Receiver#startStreaming}), samples are taken from its stream
+ * instead of own requests, which would compete with streaming for the link. Each snapshot is used once and only
+ * if it is published after minimal dwell. If streaming is stopped or stalls, levels are requested as usual.
+ * <p>
+ * <p> Observed settle times are recorded per receiver frequency and gain, it shows how much time transient process
+ * takes on real receivers.
+ */
+public class SettleDetector {
+
+    static final long SAMPLE_PERIOD_MS = 20;
+    static final long MIN_DWELL_MS = 50;
+    static final long MAX_SETTLE_MS = 300;
+    static final int STABLE_SAMPLES = 3;
+    static final double TOLERANCE_PRT = 1.0;
+
+    /* Period of checks of stream for the next snapshot */
+    private static final long STREAM_POLL_MS = 1;
+
+    /* K - frequency (high 32 bits) and gain (low 32 bits) of receiver, V - settle times */
+    private final ConcurrentNavigableMap<Long, LatencyHistogram> settleTimes = new ConcurrentSkipListMap<>();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private final int tolerance;
+
+    public SettleDetector() {
+        this(TOLERANCE_PRT);
+    }
+
+    /**
+     * @param tolerancePrt max difference of stable levels (percents of max level)
+     */
+    public SettleDetector(double tolerancePrt) {
+        this.tolerance = (int) Math.round(tolerancePrt / 100.0 * MAX_LEVEL);
+    }
+
+    /**
+     * Wait until levels of receiver are stable
+     *
+     * @param receiver     device, which levels are sampled
+     * @param command      command to get levels (levels of channels or magnitudes of frequencies)
+     * @param frequency_Hz current frequency of receiver, used only for statistics
+     * @param gain_dB      current gain of receiver, used only for statistics
+     * @return read-only view of the last (settled) levels
+     */
+    public ShortBuffer await(Device receiver, Command command, int frequency_Hz, int gain_dB) throws Exception {
+
+        long startNs = System.nanoTime();
+        long deadlineNs = startNs + TimeUnit.MILLISECONDS.toNanos(MAX_SETTLE_MS);
+
+        // Range of levels in the current run of stable samples
+        short[] min = null;
+        short[] max = null;
+        int stableCount = 0;
+        long stableSinceNs = startNs;
+
+        TimeUnit.MILLISECONDS.sleep(MIN_DWELL_MS);
+
+        Receiver streaming = (receiver instanceof Receiver) ? (Receiver) receiver : null;
+        LevelRingBuffer stream = (streaming != null) ? streaming.getStream(command) : null;
+        long lastSequence = (stream != null) ? stream.getSequence() : 0;
+
+        while (true) {
+            ShortBuffer levels = null;
+
+            if (stream != null) {
+                // Wait for snapshot published after the previous sample
+                while (stream.getSequence() <= lastSequence && streaming.getStream(command) == stream &&
+                        System.nanoTime() < deadlineNs)
+                    TimeUnit.MILLISECONDS.sleep(STREAM_POLL_MS);
+
+                if (stream.getSequence() > lastSequence) {
+                    lastSequence = stream.getSequence();
+                    short[] snapshot = stream.read(lastSequence);
+                    if (snapshot != null)
+                        levels = ShortBuffer.wrap(snapshot).asReadOnlyBuffer();
+                }
+            }
+
+            long sampleNs = System.nanoTime();
+            if (levels == null)
+                levels = receiver.getShortBuffer(command);
+
+            if (min == null || !extendRange(levels, min, max)) {
+                min = toArray(levels);
+                max = toArray(levels);
+                stableCount = 0;
+                stableSinceNs = sampleNs;
+            }
+
+            if (++stableCount >= STABLE_SAMPLES) {
+                record(frequency_Hz, gain_dB, stableSinceNs - startNs);
+                return levels;
+            }
+
+            if (System.nanoTime() >= deadlineNs) {
+                timeouts.incrementAndGet();
+                record(frequency_Hz, gain_dB, System.nanoTime() - startNs);
+                return levels;
+            }
+
+            TimeUnit.MILLISECONDS.sleep(SAMPLE_PERIOD_MS);
+        }
+    }
+
+    /**
+     * Extend range by levels, if levels don't exceed tolerance
+     *
+     * @return false, if levels are out of tolerance (range isn't changed)
+     */
+    private boolean extendRange(ShortBuffer levels, short[] min, short[] max) {
+        int count = Math.min(levels.remaining(), min.length);
+
+        for (int i = 0; i < count; i++) {
+            short level = levels.get(i);
+            if (Math.max(level, max[i]) - Math.min(level, min[i]) > tolerance)
+                return false;
+        }
+
+        for (int i = 0; i < count; i++) {
+            short level = levels.get(i);
+            min[i] = (short) Math.min(level, min[i]);
+            max[i] = (short) Math.max(level, max[i]);
+        }
+        return true;
+    }
+
+    private void record(int frequency_Hz, int gain_dB, long settleTimeNs) {
+        long key = getKey(frequency_Hz, gain_dB);
+
+        LatencyHistogram histogram = settleTimes.get(key);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = settleTimes.putIfAbsent(key, newHistogram);
+            if (histogram == null)
+                histogram = newHistogram;
+        }
+
+        histogram.record(settleTimeNs);
+    }
+
+    public void reset() {
+        settleTimes.clear();
+        timeouts.set(0);
+    }
+
+    /**
+     * @return count of waits, which are over by {@link #MAX_SETTLE_MS} without stable levels
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return settle times by frequency and gain of receiver, ordered by frequency and gain
+     */
+    public List<String> getReport() {
+        List<String> report = new ArrayList<>();
+        for (Map.Entry<Long, LatencyHistogram> entry : settleTimes.entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().getSnapshot();
+
+            report.add(String.format("%5d Hz, %2d dB: count %4d  mean %6.1f  p90 %6.1f  max %6.1f ms",
+                    (int) (entry.getKey() >> 32), (int) (long) entry.getKey(),
+                    snapshot.getCount(), snapshot.getMean() / 1e6,
+                    snapshot.getPercentile(90) / 1e6, snapshot.getMax() / 1e6));
+        }
+
+        return Collections.unmodifiableList(report);
+    }
+
+    /**
+     * @return settle times (ns) of receiver with given frequency and gain
+     */
+    public LatencyHistogram.Snapshot getSettleTimes(int frequency_Hz, int gain_dB) {
+        LatencyHistogram histogram = settleTimes.get(getKey(frequency_Hz, gain_dB));
+        return (histogram != null) ? histogram.getSnapshot() : new LatencyHistogram().getSnapshot();
+    }
+
+    private static long getKey(int frequency_Hz, int gain_dB) {
+        return (long) frequency_Hz << 32 | (gain_dB & 0xFFFFFFFFL);
+    }
+
+    static short[] toArray(ShortBuffer levels) {
+        short[] result = new short[levels.remaining()];
+        levels.duplicate().get(result);
+        return result;
+    }
+}
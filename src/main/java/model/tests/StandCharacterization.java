@@ -0,0 +1,122 @@
+package model.tests;
+
+import model.Device;
+import model.Receiver;
+import model.Stand;
+import model.StandTransfer;
+import packet.Packet;
+
+import java.nio.ShortBuffer;
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static model.Receiver.MAX_LEVEL;
+import static packet.Command.*;
+
+/**
+ * Characterization of stand: measure real voltage to level transfer on all receiver frequencies and gains of test cases.
+ * <p>
+ * <p> Transfer is measured once for the stand and stored in database, after that {@link Stand#calcVoltage(double, int, int)}
+ * gives right voltage for the first attempt of {@link AnalogFilterTest#autoSetVoltage}.
+ */
+public class StandCharacterization {
+
+    private static final double TARGET_LEVEL_PRT = 70.0;
+    private static final double MIN_LEVEL_PRT = 10.0;
+    private static final int MEASURE_ATTEMPTS_COUNT = 4;
+    private static final int VOLTAGE_FACTOR = 4;
+
+    private final SettleDetector settleDetector = new SettleDetector();
+
+    /* Gains, which are used by test cases */
+    private final SortedSet<Integer> gains_dB = new TreeSet<>();
+
+    /**
+     * @param testCases test cases, which voltage is set for: their configurations give gains to characterize
+     */
+    public StandCharacterization(Collection<? extends BaseTestCase> testCases) {
+        for (BaseTestCase testCase : testCases) {
+            TestConfiguration configuration = testCase.getConfiguration();
+            if (configuration != null)
+                gains_dB.add(configuration.getGain());
+        }
+    }
+
+    /**
+     * Measure transfer of stand. Stand should be connected to receiver like for testing.
+     * If measurement is failed, previous transfer of stand is kept.
+     *
+     * @return measured transfer (also applied to stand)
+     */
+    public StandTransfer run(Receiver receiver, Stand stand) throws Exception {
+
+        if (gains_dB.isEmpty())
+            throw new Exception("There aren't test cases with gain of receiver to characterize stand");
+
+        // Nominal voltage is used for measurement, not the previous characteristic
+        StandTransfer previousTransfer = stand.getTransfer();
+        stand.setTransfer(null);
+
+        StandTransfer transfer = null;
+        try {
+            transfer = measureTransfer(receiver, stand);
+        } finally {
+            stand.setTransfer(transfer != null ? transfer : previousTransfer);
+            stand.set(VOLTAGE_STAND, 0);
+        }
+
+        return transfer;
+    }
+
+    private StandTransfer measureTransfer(Receiver receiver, Stand stand) throws Exception {
+
+        StandTransfer transfer = new StandTransfer();
+        for (Integer frequency_Hz : Receiver.FREQUENCY_HZ) {
+
+            stand.setAll(
+                    new Packet(EXT_SENSOR_STAND, Device.ExtSensors.INT.ordinal()),
+                    new Packet(FREQUENCY_STAND, frequency_Hz));
+            receiver.setAll(
+                    new Packet(MODE_DEVICE, Receiver.Modes.MODE_TESTLEVELS.ordinal()),
+                    new Packet(TYPE_OF_SIGNAL_DEVICE, Device.SignalType.SOLID.ordinal()),
+                    new Packet(BOTTOM_SENSOR_DEVICE, Receiver.BSType.FILTER.ordinal()),
+                    new Packet(FREQUENCY_DEVICE, frequency_Hz));
+
+            for (int gain_dB : gains_dB) {
+                receiver.set(GAIN_DEVICE, gain_dB);
+                transfer.put(frequency_Hz, gain_dB, measureCascadeGain(receiver, stand, frequency_Hz, gain_dB));
+            }
+        }
+
+        return transfer;
+    }
+
+    private double measureCascadeGain(Receiver receiver, Stand stand, int frequency_Hz, int gain_dB) throws Exception {
+
+        int voltage_mcV = stand.calcVoltage(TARGET_LEVEL_PRT, gain_dB, frequency_Hz);
+
+        for (int attempts = 1; attempts <= MEASURE_ATTEMPTS_COUNT; attempts++) {
+
+            stand.set(VOLTAGE_STAND, voltage_mcV);
+            ShortBuffer levels = settleDetector.await(receiver, GET_LEVELS_DEVICE, frequency_Hz, gain_dB);
+
+            int maxLevel = 0;
+            for (int i = 0; i < AnalogFilterTest.CHANNELS_COUNT; i++) {
+                maxLevel = Math.max(maxLevel, levels.get(i));
+            }
+            double level_prt = maxLevel * 100.0 / MAX_LEVEL;
+
+            // Level is proportional to voltage only between noise and saturation of ADC
+            if (maxLevel >= MAX_LEVEL) {
+                voltage_mcV = Math.max(voltage_mcV / VOLTAGE_FACTOR, 1);
+            } else if (level_prt < MIN_LEVEL_PRT) {
+                voltage_mcV *= VOLTAGE_FACTOR;
+            } else {
+                return stand.calcCascadeGain(level_prt, gain_dB, voltage_mcV);
+            }
+        }
+
+        throw new Exception(String.format("Impossible to measure transfer of stand on %d Hz, %d dB", frequency_Hz, gain_dB));
+    }
+}
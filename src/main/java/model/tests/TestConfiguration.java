@@ -0,0 +1,62 @@
+package model.tests;
+
+import model.Receiver;
+
+/**
+ * Configuration of receiver and stand, which test case sets up before measurements
+ */
+class TestConfiguration {
+
+    private final int frequency_Hz;
+    private final int gain_dB;
+    private final Receiver.BSType bottomSensorType;
+
+    TestConfiguration(int frequency_Hz, int gain_dB, Receiver.BSType bottomSensorType) {
+        this.frequency_Hz = frequency_Hz;
+        this.gain_dB = gain_dB;
+        this.bottomSensorType = bottomSensorType;
+    }
+
+    int getGain() {
+        return gain_dB;
+    }
+
+    /**
+     * @param previous configuration of devices before test case, null - unknown
+     * @return count of settings, which are sent to devices to change previous configuration to this one
+     */
+    int getSettingChanges(TestConfiguration previous) {
+        if (previous == null)
+            return 4;
+
+        // Frequency is set on both receiver and stand
+        return (frequency_Hz != previous.frequency_Hz ? 2 : 0) +
+                (gain_dB != previous.gain_dB ? 1 : 0) +
+                (bottomSensorType != previous.bottomSensorType ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TestConfiguration that = (TestConfiguration) o;
+
+        return frequency_Hz == that.frequency_Hz &&
+                gain_dB == that.gain_dB &&
+                bottomSensorType == that.bottomSensorType;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = frequency_Hz;
+        result = 31 * result + gain_dB;
+        result = 31 * result + bottomSensorType.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d Hz, %d dB, %s", frequency_Hz, gain_dB, bottomSensorType);
+    }
+}
@@ -0,0 +1,74 @@
+package model.tests;
+
+import model.ResponseCurve;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * State of one testing of station: statistics and values, which test cases remember between runs.
+ * <p>
+ * <p> Test cases are shared by stations, so they keep nothing themselves. Test manager of station creates
+ * new context for each testing and passes it to every test case, so stations tested together don't mix
+ * their statistics, and nothing is left after station is disconnected.
+ */
+public class TestContext {
+
+    private final SettleDetector settleDetector = new SettleDetector();
+
+    /* Count of voltages set by each call of autoSetVoltage */
+    private final CountDistribution voltageSearchIterations = new CountDistribution(AnalogFilterTest.SET_VOLTAGE_ATTEMPTS_COUNT);
+
+    /* Sweep of stand frequency, settle times of its steps are collected with others */
+    private final FrequencySweep frequencySweep = new FrequencySweep(settleDetector, AnalogFilterTest.VERDICT_SAMPLES_COUNT);
+
+    /* Voltages found by autoSetVoltage: K - configuration, gain and range of level, V - voltage.
+     * Test cases with the same configuration are run one after another, so the next one starts from found voltage */
+    private final ConcurrentMap<List<?>, Integer> levelledVoltages = new ConcurrentHashMap<>();
+
+    /* Response curves measured by test cases: K - test ID, V - curve of the last run */
+    private final ConcurrentMap<Integer, ResponseCurve> responseCurves = new ConcurrentHashMap<>();
+
+    /**
+     * @return settle times of receiver, collected by all test cases
+     */
+    public SettleDetector getSettleDetector() {
+        return settleDetector;
+    }
+
+    /**
+     * @return count of voltages set by each call of auto set voltage
+     */
+    public CountDistribution getVoltageSearchIterations() {
+        return voltageSearchIterations;
+    }
+
+    FrequencySweep getFrequencySweep() {
+        return frequencySweep;
+    }
+
+    /**
+     * @return voltage found for key, null - voltage hasn't been found yet
+     */
+    Integer getLevelledVoltage(List<?> key) {
+        return levelledVoltages.get(key);
+    }
+
+    void putLevelledVoltage(List<?> key, int voltage_mcV) {
+        levelledVoltages.put(key, voltage_mcV);
+    }
+
+    void putResponseCurve(int testID, ResponseCurve curve) {
+        responseCurves.put(testID, curve);
+    }
+
+    /**
+     * @return response curves measured by test cases: K - test ID
+     */
+    public Map<Integer, ResponseCurve> getResponseCurves() {
+        return new TreeMap<>(responseCurves);
+    }
+}
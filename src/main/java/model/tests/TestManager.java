@@ -1,10 +1,15 @@
 package model.tests;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import connections.CommandMetrics;
 import controller.Controller;
+import model.Device;
+import model.ResponseCurve;
+import model.Station;
 import view.LogPanel;
 
 import javax.swing.*;
+import javax.swing.text.AttributeSet;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -14,7 +19,7 @@ import java.util.concurrent.TimeUnit;
 import static model.tests.TestManager.State.*;
 
 /**
- * The test manager class is used to control test cases
+ * The test manager class is used to control test cases of one station
  */
 public class TestManager {
 
@@ -41,7 +46,9 @@ public class TestManager {
             new TwoFrequencyTest()
     ));
     private static final ThreadFactory TESTING_EXECUTOR = new ThreadFactoryBuilder().setNameFormat("TestingExecutor-%d").setDaemon(true).build();
+
     private final Controller controller;
+    private final Station station;
 
     /* List of test cases, used by this test manager */
     private List<BaseTestCase> testList = new ArrayList<>();
@@ -51,8 +58,12 @@ public class TestManager {
     private long executionTimeMs;
     private ExecutorService testingExecutor;
 
-    public TestManager(Controller controller) {
+    /* State of the current (or the last) testing of station */
+    private volatile TestContext context = new TestContext();
+
+    public TestManager(Controller controller, Station station) {
         this.controller = controller;
+        this.station = station;
     }
 
     public void fillTestList() {
@@ -83,19 +94,32 @@ public class TestManager {
 
     public void start() {
 
+        // Test cases need exclusive control of receiver
+        if (station.getReceiver() != null)
+            station.getReceiver().stopStreaming();
+
         setTestRunning(true);
         clearTestResultStates();
+        resetMetrics();
+        invalidateSettings();
 
-        controller.updateLog("\n================================" +
+        // Receiver may be changed by user between testing, so nothing is remembered from previous one
+        context = new TestContext();
+
+        log("\n================================" +
                 "\n=======   START TESTING  =======" +
                 "\n================================", LogPanel.BOLD);
 
+        // Results are reported by test case ID, so order of execution doesn't change order of results
+        final List<BaseTestCase> schedule = TestScheduler.schedule(testList);
+        printSchedule(schedule);
+
         testingExecutor = Executors.newSingleThreadExecutor(TESTING_EXECUTOR);
 
         new SwingWorker<Void, Void>() {
             @Override
             protected Void doInBackground() throws Exception {
-                for (final BaseTestCase testCase : testList) {
+                for (final BaseTestCase testCase : schedule) {
                     testingExecutor.submit(new TestWorker(testCase));
                 }
                 testingExecutor.shutdown();
@@ -107,12 +131,41 @@ public class TestManager {
 
             @Override
             protected void done() {
-                controller.stopTesting();
-                controller.insertResultToDB();
+                controller.testingDone(station);
             }
         }.execute();
     }
 
+    private void log(String text) {
+        log(text, LogPanel.NORMAL, LogPanel.BLACK);
+    }
+
+    private void log(String text, AttributeSet attributeSet) {
+        log(text, attributeSet, LogPanel.BLACK);
+    }
+
+    /**
+     * Log message of this station
+     */
+    private void log(String text, AttributeSet... attributeSet) {
+
+        // Prefix of station is put after leading line breaks
+        int start = 0;
+        while (start < text.length() && text.charAt(start) == '\n')
+            start++;
+
+        controller.updateLog(text.substring(0, start) + station.getLogPrefix() + text.substring(start), attributeSet);
+    }
+
+    private void printSchedule(List<BaseTestCase> schedule) {
+        long declaredCostMs = TestScheduler.estimateCostMs(testList);
+        long scheduledCostMs = TestScheduler.estimateCostMs(schedule);
+
+        log(String.format("Tests are ordered by configuration of devices: " +
+                        "estimated reconfiguration time %d ms instead of %d ms (saved %d ms)",
+                scheduledCostMs, declaredCostMs, declaredCostMs - scheduledCostMs));
+    }
+
     private void clearTestResultStates() {
         for (BaseTestCase testCase : testList)
             testResults.put(testCase.getId(), null);
@@ -128,11 +181,66 @@ public class TestManager {
         } finally {
             setTestRunning(false);
 
-            controller.updateLog("\n================================" +
+            log("\n================================" +
                     "\n=======   STOP TESTING   =======" +
                     "\n================================", LogPanel.BOLD);
             printTestResults(executionTimeMs);
+            printMetrics();
+            printSettleTimes();
+            printVoltageSearch();
+        }
+    }
+
+    private Set<CommandMetrics> getMetrics() {
+        // Receiver and stand may share the same connection
+        Set<CommandMetrics> metrics = Collections.newSetFromMap(new IdentityHashMap<CommandMetrics, Boolean>());
+        for (Device device : Arrays.asList(station.getReceiver(), station.getStand())) {
+            if (device != null && device.getMetrics() != null)
+                metrics.add(device.getMetrics());
         }
+
+        return metrics;
+    }
+
+    /**
+     * Devices may be changed by user between testing, so the first set of each setting is sent
+     */
+    private void invalidateSettings() {
+        for (Device device : Arrays.asList(station.getReceiver(), station.getStand())) {
+            if (device != null)
+                device.invalidateSettings();
+        }
+    }
+
+    private void resetMetrics() {
+        for (CommandMetrics metrics : getMetrics())
+            metrics.reset();
+    }
+
+    private void printMetrics() {
+        for (CommandMetrics metrics : getMetrics()) {
+            log("\nCommands metrics:", LogPanel.BOLD);
+            for (CommandMetrics.Snapshot snapshot : metrics.getSnapshots())
+                log("  " + snapshot);
+        }
+    }
+
+    private void printSettleTimes() {
+        SettleDetector detector = context.getSettleDetector();
+
+        log(String.format("\nSettle times of receiver (not settled in %d ms: %d):",
+                SettleDetector.MAX_SETTLE_MS, detector.getTimeouts()), LogPanel.BOLD);
+        for (String line : detector.getReport())
+            log("  " + line);
+    }
+
+    private void printVoltageSearch() {
+        CountDistribution iterations = context.getVoltageSearchIterations();
+
+        log(String.format("\nAuto set voltage: %d calls, iterations per call mean %.2f, max %d",
+                iterations.getTotal(), iterations.getMean(), iterations.getMax()), LogPanel.BOLD);
+        if (iterations.getTotal() > 0)
+            log("  calls by iterations: " + iterations);
     }
 
     private void printTestResults(long executionTimeMs) {
@@ -146,11 +254,11 @@ public class TestManager {
         int skippedCount = Collections.frequency(testStates, SKIP);
         int totalCount = passedCount + failedCount + skippedCount;
 
-        controller.updateLog(String.format("Total executed tests: %d.\nTest results:", totalCount), LogPanel.BOLD);
-        controller.updateLog(String.format("  %-10s%d", "Passed: ", passedCount), LogPanel.BOLD, LogPanel.GREEN);
-        controller.updateLog(String.format("  %-10s%d", "Failed: ", failedCount), LogPanel.BOLD, LogPanel.RED);
-        controller.updateLog(String.format("  %-10s%d", "Skipped: ", skippedCount), LogPanel.BOLD, LogPanel.GRAY);
-        controller.updateLog(String.format("\nTotal tests execute time: %d min %d sec %d msec",
+        log(String.format("Total executed tests: %d.\nTest results:", totalCount), LogPanel.BOLD);
+        log(String.format("  %-10s%d", "Passed: ", passedCount), LogPanel.BOLD, LogPanel.GREEN);
+        log(String.format("  %-10s%d", "Failed: ", failedCount), LogPanel.BOLD, LogPanel.RED);
+        log(String.format("  %-10s%d", "Skipped: ", skippedCount), LogPanel.BOLD, LogPanel.GRAY);
+        log(String.format("\nTotal tests execute time: %d min %d sec %d msec",
                 calendar.get(Calendar.MINUTE), calendar.get(Calendar.SECOND), calendar.get(Calendar.MILLISECOND)), LogPanel.BOLD);
     }
 
@@ -164,6 +272,20 @@ public class TestManager {
         return list.toArray(new Integer[]{});
     }
 
+    /**
+     * @return response curves measured by passed and failed test cases of the last testing: K - test ID
+     */
+    public Map<Integer, ResponseCurve> getResponseCurves() {
+        Map<Integer, ResponseCurve> curves = context.getResponseCurves();
+        for (Iterator<Integer> it = curves.keySet().iterator(); it.hasNext(); ) {
+            State state = testResults.get(it.next());
+            if (state != PASS && state != FAIL)
+                it.remove();
+        }
+
+        return curves;
+    }
+
     public enum State {
         PASS, FAIL, SKIP, ABORT, RUN
     }
@@ -189,7 +311,7 @@ public class TestManager {
             try {
                 if (testCase.isEnabled()) {
                     publish(resultState);
-                    testCase.runTest(controller.getReceiver(), controller.getStand());
+                    testCase.runTest(station.getReceiver(), station.getStand(), context);
                     resultState = PASS;
                 } else {
                     resultState = SKIP;
@@ -212,24 +334,24 @@ public class TestManager {
 
             switch (state) {
                 case RUN:
-                    controller.updateLog(String.format("#%d %s test is running...", id, name));
+                    log(String.format("#%d %s test is running...", id, name));
                     break;
                 case PASS:
-                    controller.updateLog(String.format("#%d %s test is passed.", id, name), LogPanel.NORMAL, LogPanel.GREEN);
+                    log(String.format("#%d %s test is passed.", id, name), LogPanel.NORMAL, LogPanel.GREEN);
                     break;
                 case FAIL:
-                    controller.updateLog(String.format("#%d %s test is failed.", id, name), LogPanel.NORMAL, LogPanel.RED);
+                    log(String.format("#%d %s test is failed.", id, name), LogPanel.NORMAL, LogPanel.RED);
 
-                    controller.updateLog("ERROR: " + error.getLocalizedMessage(), LogPanel.BOLD, LogPanel.RED);
+                    log("ERROR: " + error.getLocalizedMessage(), LogPanel.BOLD, LogPanel.RED);
                     if (error.getCause() != null)
-                        controller.updateLog("CAUSE: " + error.getCause().getLocalizedMessage(), LogPanel.BOLD, LogPanel.RED);
+                        log("CAUSE: " + error.getCause().getLocalizedMessage(), LogPanel.BOLD, LogPanel.RED);
                     break;
                 case SKIP:
-                    controller.updateLog(String.format("#%d %s is skipped", id, name));
+                    log(String.format("#%d %s is skipped", id, name));
                     break;
 
                 case ABORT:
-                    controller.updateLog("Testing aborted by user", LogPanel.BOLD, LogPanel.RED);
+                    log("Testing aborted by user", LogPanel.BOLD, LogPanel.RED);
                     break;
             }
 
@@ -0,0 +1,107 @@
+package model.tests;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scheduler of test cases: orders test cases to minimise reconfiguration of devices between them.
+ * <p>
+ * <p> Test cases with the same configuration are run one after another in declaration order, so settings aren't sent
+ * again (see settings cache of device) and voltage found by the previous test case is reused.
+ * Groups of test cases are ordered greedily: the next group is the one with the cheapest transition from
+ * the current configuration, ties are resolved by declaration order.
+ */
+class TestScheduler {
+
+    /* Estimated time of one confirmed setting */
+    static final long SETTING_COST_MS = 20;
+
+    /* Estimated time of additional voltage iteration (set voltage and wait levels), if voltage isn't reused */
+    static final long LEVELLING_COST_MS = SettleDetector.MAX_SETTLE_MS;
+
+    private TestScheduler() {
+    }
+
+    /**
+     * @param testCases test cases in declaration order
+     * @return the same test cases in execution order, test cases without configuration are run after configured
+     * ones and disabled test cases (which are only reported as skipped) are run the last
+     */
+    static List<BaseTestCase> schedule(List<? extends BaseTestCase> testCases) {
+
+        // Groups of test cases with the same configuration in order of the first occurrence
+        Map<TestConfiguration, List<BaseTestCase>> groups = new LinkedHashMap<>();
+        List<BaseTestCase> unconfigured = new ArrayList<>();
+        List<BaseTestCase> disabled = new ArrayList<>();
+
+        for (BaseTestCase testCase : testCases) {
+            TestConfiguration configuration = testCase.getConfiguration();
+            if (!testCase.isEnabled()) {
+                disabled.add(testCase);
+                continue;
+            }
+            if (configuration == null) {
+                unconfigured.add(testCase);
+                continue;
+            }
+
+            List<BaseTestCase> group = groups.get(configuration);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(configuration, group);
+            }
+            group.add(testCase);
+        }
+
+        List<BaseTestCase> result = new ArrayList<>(testCases.size());
+        TestConfiguration current = null;
+
+        while (!groups.isEmpty()) {
+            TestConfiguration next = null;
+            long nextCost = Long.MAX_VALUE;
+
+            for (TestConfiguration configuration : groups.keySet()) {
+                long cost = getTransitionCostMs(current, configuration);
+                if (cost < nextCost) {
+                    next = configuration;
+                    nextCost = cost;
+                }
+            }
+
+            result.addAll(groups.remove(next));
+            current = next;
+        }
+
+        result.addAll(unconfigured);
+        result.addAll(disabled);
+        return result;
+    }
+
+    /**
+     * @return estimated time of reconfiguration of devices between enabled test cases, which are run in given order
+     */
+    static long estimateCostMs(List<? extends BaseTestCase> testCases) {
+        long cost = 0;
+        TestConfiguration current = null;
+
+        for (BaseTestCase testCase : testCases) {
+            TestConfiguration configuration = testCase.getConfiguration();
+            if (!testCase.isEnabled() || configuration == null)
+                continue;
+
+            cost += getTransitionCostMs(current, configuration);
+            current = configuration;
+        }
+
+        return cost;
+    }
+
+    private static long getTransitionCostMs(TestConfiguration current, TestConfiguration next) {
+        if (next.equals(current))
+            return 0;
+
+        return next.getSettingChanges(current) * SETTING_COST_MS + LEVELLING_COST_MS;
+    }
+}
@@ -3,8 +3,6 @@ package model.tests;
 import model.Receiver;
 import model.Stand;
 
-import java.util.concurrent.TimeUnit;
-
 import static model.Receiver.MAX_LEVEL;
 import static packet.Command.*;
 
@@ -28,15 +26,13 @@ class TwoFrequencyTest extends AnalogFilterTest {
     }
 
     @Override
-    public void runTest(Receiver receiver, Stand stand) throws Exception, Error {
+    public void runTest(Receiver receiver, Stand stand, TestContext context) throws Exception, Error {
 
-        setUp(stand);
-        setUp(receiver);
-        autoSetVoltage(stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
+        setUp(receiver, stand);
+        autoSetVoltage(context, stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
 
         receiver.set(MODE_DEVICE, Receiver.Modes.MODE_INT_IFF.ordinal());
-        TimeUnit.MILLISECONDS.sleep(WAIT_CHANGE_VOLTAGE_MS);
-        short[] magnitudesAt1024Hz = receiver.getArray(GET_MAGNITUDES_DEVICE);
+        short[] magnitudesAt1024Hz = awaitSettled(context, receiver, GET_MAGNITUDES_DEVICE, receiverGain_dB);
 
         double magn1K_at1024Hz_prt = magnitudesAt1024Hz[0] * 100.0 / MAX_LEVEL;
         double magn8K_at1024Hz_prt = magnitudesAt1024Hz[1] * 100.0 / MAX_LEVEL;
@@ -51,8 +47,7 @@ class TwoFrequencyTest extends AnalogFilterTest {
 
         // Set up new frequency and wait completion transient process on receiver
         stand.set(FREQUENCY_STAND, FREQUENCY_8192);
-        TimeUnit.MILLISECONDS.sleep(WAIT_CHANGE_VOLTAGE_MS);
-        short[] magnitudesAt8192Hz = receiver.getArray(GET_MAGNITUDES_DEVICE);
+        short[] magnitudesAt8192Hz = awaitSettled(context, receiver, GET_MAGNITUDES_DEVICE, receiverGain_dB);
 
         double magn1K_at8192Hz_prt = magnitudesAt8192Hz[0] * 100.0 / MAX_LEVEL;
         double magn8K_at8192Hz_prt = magnitudesAt8192Hz[1] * 100.0 / MAX_LEVEL;
@@ -3,8 +3,7 @@ package model.tests;
 import model.Device;
 import model.Receiver;
 import model.Stand;
-
-import java.util.concurrent.TimeUnit;
+import packet.Packet;
 
 import static model.Receiver.MAX_LEVEL;
 import static packet.Command.*;
@@ -32,17 +31,14 @@ class WideBandTest extends AnalogFilterTest {
     }
 
     @Override
-    public void runTest(Receiver receiver, Stand stand) throws Exception, Error {
+    public void runTest(Receiver receiver, Stand stand, TestContext context) throws Exception, Error {
 
-        setUp(stand);
-        setUp(receiver);
-        short[] beforeLevels = autoSetVoltage(stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
+        setUp(receiver, stand);
+        short[] beforeLevels = autoSetVoltage(context, stand, receiver, receiverGain_dB, MIN_LEVEL_PRT, MAX_LEVEL_PRT, INIT_LEVEL_PRT);
 
         // Set up new frequency and wait completion transient process on receiver
         stand.set(FREQUENCY_STAND, END_FREQUENCY);
-        TimeUnit.MILLISECONDS.sleep(WAIT_CHANGE_VOLTAGE_MS);
-
-        short[] afterLevels = receiver.getArray(GET_LEVELS_DEVICE);
+        short[] afterLevels = awaitSettled(context, receiver, GET_LEVELS_DEVICE, receiverGain_dB);
 
         double before3_prt = beforeLevels[2] * 100.0 / MAX_LEVEL;
         double before4_prt = beforeLevels[3] * 100.0 / MAX_LEVEL;
@@ -69,12 +65,18 @@ class WideBandTest extends AnalogFilterTest {
         );
     }
 
+    @Override
+    TestConfiguration getConfiguration() {
+        return new TestConfiguration(receiverFrequency_Hz, receiverGain_dB, Receiver.BSType.WB);
+    }
+
     @Override
     void setUp(Receiver receiver) throws Exception {
-        receiver.set(MODE_DEVICE, Receiver.Modes.MODE_TESTLEVELS.ordinal());
-        receiver.set(TYPE_OF_SIGNAL_DEVICE, Device.SignalType.SOLID.ordinal());
-        receiver.set(BOTTOM_SENSOR_DEVICE, Receiver.BSType.WB.ordinal());
-        receiver.set(FREQUENCY_DEVICE, receiverFrequency_Hz);
-        receiver.set(GAIN_DEVICE, receiverGain_dB);
+        receiver.setAll(
+                new Packet(MODE_DEVICE, Receiver.Modes.MODE_TESTLEVELS.ordinal()),
+                new Packet(TYPE_OF_SIGNAL_DEVICE, Device.SignalType.SOLID.ordinal()),
+                new Packet(BOTTOM_SENSOR_DEVICE, Receiver.BSType.WB.ordinal()),
+                new Packet(FREQUENCY_DEVICE, receiverFrequency_Hz),
+                new Packet(GAIN_DEVICE, receiverGain_dB));
     }
 }
@@ -0,0 +1,111 @@
+package packet;
+
+/**
+ * CRC16 calculation (CRC-16/UMTS).
+ * <p>
+ * <p> CRC16 params:
+ * <p>  - Polynom           (hex)   0x8005
+ * <p>  - Initial value     (hex)   0
+ * <p>  - Final XOR value   (hex)   0
+ * <p>
+ * <p> Table-driven implementation processes one byte per step with 256-entry table,
+ * slice-by-8 implementation processes 8 bytes per step with eight tables and is used for large payloads.
+ */
+public final class CRC16 {
+
+    static final int POLYNOMIAL = 0x8005;
+
+    /* Payloads from this length are processed by slice-by-8 implementation */
+    private static final int SLICE_THRESHOLD = 8;
+
+    /* TABLES[k][v] - CRC of byte v followed by k zero bytes */
+    private static final char[][] TABLES = new char[8][256];
+
+    static {
+        for (int v = 0; v < 256; v++) {
+            int crc = v << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = ((crc & 0x8000) != 0) ? (crc << 1) ^ POLYNOMIAL : crc << 1;
+            }
+            TABLES[0][v] = (char) crc;
+        }
+
+        for (int k = 1; k < TABLES.length; k++) {
+            for (int v = 0; v < 256; v++) {
+                int crc = TABLES[k - 1][v];
+                TABLES[k][v] = (char) ((crc << 8) ^ TABLES[0][crc >>> 8]);
+            }
+        }
+    }
+
+    private CRC16() {
+    }
+
+    /**
+     * Calculate CRC16 with implementation suitable for buffer length
+     */
+    public static short calculate(byte[] buffer, int offset, int length) {
+        return (length < SLICE_THRESHOLD) ?
+                calculateByTable(buffer, offset, length) :
+                calculateBySlice8(buffer, offset, length);
+    }
+
+    /**
+     * Reference bitwise implementation: 8 shift/XOR steps with branches for every byte
+     */
+    static short calculateBitwise(byte[] buffer, int offset, int length) {
+        short crc_value = 0;
+
+        for (int j = offset; j < offset + length; j++) {
+            byte value = buffer[j];
+
+            for (int i = 0x80; i != 0; i >>= 1) {
+
+                if ((crc_value & 0x8000) != 0) {
+                    crc_value = (short) ((crc_value << 1) ^ POLYNOMIAL);
+                } else {
+                    crc_value = (short) (crc_value << 1);
+                }
+
+                if ((value & i) != 0) {
+                    crc_value ^= POLYNOMIAL;
+                }
+            }
+        }
+        return crc_value;
+    }
+
+    static short calculateByTable(byte[] buffer, int offset, int length) {
+        char[] table = TABLES[0];
+        int crc = 0;
+
+        for (int i = offset; i < offset + length; i++) {
+            crc = ((crc << 8) ^ table[((crc >>> 8) ^ buffer[i]) & 0xFF]) & 0xFFFF;
+        }
+        return (short) crc;
+    }
+
+    static short calculateBySlice8(byte[] buffer, int offset, int length) {
+        char[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3],
+                t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+        int crc = 0;
+        int i = offset;
+        int end = offset + length;
+
+        for (; i + 8 <= end; i += 8) {
+            // Current CRC value is merged into first 2 bytes of slice
+            int b0 = ((crc >>> 8) ^ buffer[i]) & 0xFF;
+            int b1 = (crc ^ buffer[i + 1]) & 0xFF;
+
+            crc = t7[b0] ^ t6[b1] ^
+                    t5[buffer[i + 2] & 0xFF] ^ t4[buffer[i + 3] & 0xFF] ^
+                    t3[buffer[i + 4] & 0xFF] ^ t2[buffer[i + 5] & 0xFF] ^
+                    t1[buffer[i + 6] & 0xFF] ^ t0[buffer[i + 7] & 0xFF];
+        }
+
+        for (; i < end; i++) {
+            crc = ((crc << 8) ^ t0[((crc >>> 8) ^ buffer[i]) & 0xFF]) & 0xFFFF;
+        }
+        return (short) crc;
+    }
+}
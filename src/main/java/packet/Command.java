@@ -5,58 +5,114 @@ package packet;
  */
 public enum Command {
     NO_COMMAND(0),
-    FREQUENCY_DEVICE(1),
-    GAIN_DEVICE(2),
-    TYPE_OF_SIGNAL_DEVICE(3),
-    BOTTOM_SENSOR_DEVICE(4),
-    MODE_DEVICE(5),
-    SOUND_DEVICE(6),
-    BACKLIGHT_DEVICE(7),
+    FREQUENCY_DEVICE(1, Flags.CONFIRMATION | Flags.SETTING),
+    GAIN_DEVICE(2, Flags.CONFIRMATION | Flags.SETTING),
+    TYPE_OF_SIGNAL_DEVICE(3, Flags.CONFIRMATION | Flags.SETTING),
+    BOTTOM_SENSOR_DEVICE(4, Flags.CONFIRMATION | Flags.SETTING),
+    MODE_DEVICE(5, Flags.CONFIRMATION | Flags.SETTING),
+    SOUND_DEVICE(6, Flags.CONFIRMATION),
+    BACKLIGHT_DEVICE(7, Flags.CONFIRMATION | Flags.SETTING),
     CHECK_DISPLAY_DEVICE(8),
     CHECK_KEYBOARD_DEVICE(9),
     CHECK_CONNECTION_DEVICE(10),
-    INVALID_CRC_DEVICE(11),
-    INVALID_CMD_DEVICE(12),
-    INVALID_DATA_DEVICE(13),
+    INVALID_CRC_DEVICE(11, Flags.ERROR_REPLY),
+    INVALID_CMD_DEVICE(12, Flags.ERROR_REPLY),
+    INVALID_DATA_DEVICE(13, Flags.ERROR_REPLY),
     GET_INFO_DEVICE(14),
     GET_EXT_SENSOR_DEVICE(15),
     GET_GAIN_DEVICE(16),
     GET_LEVELS_DEVICE(17),
     GET_MAGNITUDES_DEVICE(18),
     GET_CALIBR_COEFFS_DEVICE(19),
-    WRITE_CALIBR_COEFFS_DEVICE(20),
-    WRITE_PCB_ID_DEVICE(21),
-    ERROR_DEVICE(22),
+    WRITE_CALIBR_COEFFS_DEVICE(20, Flags.CONFIRMATION),
+    WRITE_PCB_ID_DEVICE(21, Flags.CONFIRMATION),
+    ERROR_DEVICE(22, Flags.ERROR_REPLY),
 
     /********************************
      * Reserve values prior to 50
      *******************************/
-    FREQUENCY_STAND(50),
-    VOLTAGE_STAND(51),
-    TYPE_OF_SIGNAL_STAND(52),
-    EXT_SENSOR_STAND(53),
-    CHECK_CONNECTION_STAND(54),
-    INVALID_CMD_STAND(55),
-    INVALID_CRC_STAND(56),
-    INVALID_DATA_STAND(57),
-    GET_INFO_STAND(58),
-    ERROR_STAND(59);
+    FREQUENCY_STAND(50, Flags.STAND | Flags.CONFIRMATION | Flags.SETTING),
+    VOLTAGE_STAND(51, Flags.STAND | Flags.CONFIRMATION | Flags.SETTING),
+    TYPE_OF_SIGNAL_STAND(52, Flags.STAND | Flags.CONFIRMATION | Flags.SETTING),
+    EXT_SENSOR_STAND(53, Flags.STAND | Flags.CONFIRMATION | Flags.SETTING),
+    CHECK_CONNECTION_STAND(54, Flags.STAND),
+    INVALID_CMD_STAND(55, Flags.STAND | Flags.ERROR_REPLY),
+    INVALID_CRC_STAND(56, Flags.STAND | Flags.ERROR_REPLY),
+    INVALID_DATA_STAND(57, Flags.STAND | Flags.ERROR_REPLY),
+    GET_INFO_STAND(58, Flags.STAND),
+    ERROR_STAND(59, Flags.STAND | Flags.ERROR_REPLY);
+
+    /* Commands indexed by id: lookup of received command without scans and allocations */
+    private static final Command[] COMMANDS_BY_ID;
+
+    static {
+        int maxId = 0;
+        for (Command command : values()) {
+            maxId = Math.max(maxId, command.id);
+        }
+
+        COMMANDS_BY_ID = new Command[maxId + 1];
+        for (Command command : values()) {
+            COMMANDS_BY_ID[command.id] = command;
+        }
+    }
 
     private final int id;
+    private final int flags;
 
     Command(int id) {
+        this(id, 0);
+    }
+
+    Command(int id, int flags) {
         this.id = id;
+        this.flags = flags;
     }
 
     public static Command getCommand(int id) {
-        for (Command command : values()) {
-            if (command.getId() == id)
-                return command;
-        }
-        return null;
+        return (id >= 0 && id < COMMANDS_BY_ID.length) ? COMMANDS_BY_ID[id] : null;
     }
 
     public int getId() {
         return id;
     }
+
+    /**
+     * @return true, if device confirms execution of this command by packet with the same command
+     */
+    public boolean isConfirmationRequired() {
+        return (flags & Flags.CONFIRMATION) != 0;
+    }
+
+    /**
+     * @return true, if this command is reply with error information
+     */
+    public boolean isErrorReply() {
+        return (flags & Flags.ERROR_REPLY) != 0;
+    }
+
+    /**
+     * @return true, if this command is command of stand, false - of receiver
+     */
+    public boolean isStandCommand() {
+        return (flags & Flags.STAND) != 0;
+    }
+
+    /**
+     * @return true, if this command sets value of device setting, which is kept until the next set
+     * (so repeated set of the same value changes nothing)
+     */
+    public boolean isSetting() {
+        return (flags & Flags.SETTING) != 0;
+    }
+
+    /**
+     * Bits of command attributes
+     */
+    private static class Flags {
+        static final int CONFIRMATION = 1;
+        static final int ERROR_REPLY = 1 << 1;
+        static final int STAND = 1 << 2;
+        static final int SETTING = 1 << 3;
+    }
 }
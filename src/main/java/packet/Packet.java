@@ -2,10 +2,11 @@ package packet;
 
 import exception.InvalidCRC;
 import exception.InvalidPacketSize;
-import org.apache.commons.lang.ArrayUtils;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -31,7 +32,6 @@ import java.util.Arrays;
 public class Packet {
 
     public static final short DATA_COUNT_LENGTH = 2;
-    private static final short CRC_POLYNOMIAL = (short) 0x8005;
     // Length of packet parts (bytes)
     private static final short COMMAND_LENGTH = 2;
     private static final short CRC16_LENGTH = 2;
@@ -39,14 +39,26 @@ public class Packet {
     private static final short DATA_LENGTH = 512;
     public static final short MAX_FRAME_LENGTH = COMMAND_LENGTH + DATA_LENGTH + CRC16_LENGTH;
 
+    // Byte order of typed data: device sends levels big-endian, but calibration coefficients little-endian
+    private static final ByteOrder SHORT_ORDER = ByteOrder.BIG_ENDIAN;
+    private static final ByteOrder FLOAT_ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int SHORT_SIZE = Short.SIZE / Byte.SIZE;
+    private static final int FLOAT_SIZE = Float.SIZE / Byte.SIZE;
+
     private Command command;
     private byte[] data;
     private short CRC;
 
+    /* Data array was allocated by unpack and never given away, so next unpack may reuse it */
+    private boolean dataReusable = false;
+
     public Packet(Packet packet) {
         this.command = packet.command;
         this.data = packet.data;
         this.CRC = packet.CRC;
+
+        // Data array is shared between packets now
+        packet.dataReusable = false;
     }
 
     public Packet() {
@@ -85,7 +97,7 @@ public class Packet {
 
     private byte[] toByteArray(float[] data) {
         byte byteArray[] = new byte[data.length * Float.SIZE / Byte.SIZE];
-        ByteBuffer.wrap(byteArray).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(data);
+        ByteBuffer.wrap(byteArray).order(FLOAT_ORDER).asFloatBuffer().put(data);
         return byteArray;
     }
 
@@ -103,7 +115,7 @@ public class Packet {
     public int hashCode() {
         int result = getCommand() != null ? getCommand().hashCode() : 0;
         result = 31 * result + getCRC();
-        result = 31 * result + Arrays.hashCode(getData());
+        result = 31 * result + Arrays.hashCode(data);
         return result;
     }
 
@@ -116,7 +128,7 @@ public class Packet {
 
         return getCRC() == packet.getCRC() &&
                 getCommand() == packet.getCommand() &&
-                Arrays.equals(getData(), packet.getData());
+                Arrays.equals(data, packet.data);
     }
 
     @Override
@@ -144,37 +156,97 @@ public class Packet {
     }
 
     public byte[] getData() {
+        dataReusable = false;
         return data;
     }
 
     void setData(byte[] data) {
         this.data = data;
+        this.dataReusable = false;
     }
 
     public void setData(int data) {
-        this.data = toByteArray(data);
+        setData(toByteArray(data));
     }
 
     public short[] getDataAsShortArray() {
-        short[] result = new short[data.length / 2];
-        try {
-            ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN).asShortBuffer().get(result);
-        } catch (Exception ignored) {
-        }
+        ShortBuffer view = getDataAsShortBuffer();
+        short[] result = new short[view.remaining()];
+        view.get(result);
 
         return result;
     }
 
     public float[] getDataAsFloatArray() {
-        float[] result = new float[data.length / 4];
-        try {
-            ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(result);
-        } catch (Exception ignored) {
-        }
+        FloatBuffer view = getDataAsFloatBuffer();
+        float[] result = new float[view.remaining()];
+        view.get(result);
 
         return result;
     }
 
+    /**
+     * Read-only view of data as big-endian shorts (levels and magnitudes of receiver), without copying.
+     * Trailing odd byte isn't included. View shares data array, so next unpack won't reuse it.
+     */
+    public ShortBuffer getDataAsShortBuffer() {
+        dataReusable = false;
+        return ByteBuffer.wrap(data).order(SHORT_ORDER).asShortBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * Read-only view of data as little-endian floats (calibration coefficients), without copying.
+     * Trailing bytes, which don't make whole float, aren't included. View shares data array, so next unpack won't reuse it.
+     */
+    public FloatBuffer getDataAsFloatBuffer() {
+        dataReusable = false;
+        return ByteBuffer.wrap(data).order(FLOAT_ORDER).asFloatBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return count of whole shorts in data
+     */
+    public int getShortCount() {
+        return data.length / SHORT_SIZE;
+    }
+
+    /**
+     * @return count of whole floats in data
+     */
+    public int getFloatCount() {
+        return data.length / FLOAT_SIZE;
+    }
+
+    /**
+     * @param index index of short in data (not byte offset)
+     * @return big-endian short of data, without any allocation
+     * @throws IndexOutOfBoundsException if data hasn't short with this index
+     */
+    public short getShort(int index) {
+        checkIndex(index, getShortCount());
+        int offset = index * SHORT_SIZE;
+        return (short) ((data[offset] << 8) | (data[offset + 1] & 0xFF));
+    }
+
+    /**
+     * @param index index of float in data (not byte offset)
+     * @return little-endian float of data, without any allocation
+     * @throws IndexOutOfBoundsException if data hasn't float with this index
+     */
+    public float getFloat(int index) {
+        checkIndex(index, getFloatCount());
+        int offset = index * FLOAT_SIZE;
+        return Float.intBitsToFloat((data[offset] & 0xFF) |
+                (data[offset + 1] & 0xFF) << 8 |
+                (data[offset + 2] & 0xFF) << 16 |
+                (data[offset + 3] & 0xFF) << 24);
+    }
+
+    private static void checkIndex(int index, int count) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Index " + index + " isn't in the range [0," + count + ")");
+    }
+
     public byte getDataAsByte() {
         return data[0];
     }
@@ -200,6 +272,7 @@ public class Packet {
 
     /**
      * Packed packet format:
+     * <p> Length (2 byte) </p>
      * <p> Command (2 byte) </p>
      * <p> Data (N byte(s)) </p>
      * <p> CRC16 (2 byte) </p>
@@ -208,18 +281,45 @@ public class Packet {
      */
     public byte[] pack() throws InvalidPacketSize {
 
+        byte[] packedData = new byte[DATA_COUNT_LENGTH + getFrameLength()];
+        pack(ByteBuffer.wrap(packedData));
+
+        return packedData;
+    }
+
+    /**
+     * Pack packet to buffer from its current position without intermediate arrays.
+     *
+     * @param out buffer with at least {@link #getPackedLength()} bytes remaining
+     */
+    public void pack(ByteBuffer out) throws InvalidPacketSize {
+
+        int frameLength = getFrameLength();
+
+        putShort(out, frameLength);                  // length
+        putShort(out, command.getId());              // command
+        out.put(data);                               // data
+        putShort(out, updateCRC());                  // CRC16
+    }
+
+    /**
+     * @return length of packed packet (bytes)
+     */
+    public int getPackedLength() throws InvalidPacketSize {
+        return DATA_COUNT_LENGTH + getFrameLength();
+    }
+
+    private int getFrameLength() throws InvalidPacketSize {
         int frameLength = COMMAND_LENGTH + data.length + CRC16_LENGTH;
         if (frameLength < MIN_FRAME_LENGTH || frameLength > MAX_FRAME_LENGTH)
             throw new InvalidPacketSize("Length of frame isn't in the range (" + MIN_FRAME_LENGTH + "," + MAX_FRAME_LENGTH + ")");
 
-        byte[] packedData = new byte[0];
-
-        packedData = ArrayUtils.addAll(packedData, toByteArray((short) frameLength));         // length
-        packedData = ArrayUtils.addAll(packedData, toByteArray((short) command.getId()));     // command
-        packedData = ArrayUtils.addAll(packedData, getData());                                          // data
-        packedData = ArrayUtils.addAll(packedData, toByteArray(updateCRC()));                 // CRC16
+        return frameLength;
+    }
 
-        return packedData;
+    private static void putShort(ByteBuffer out, int value) {
+        out.put((byte) (value >> 8));
+        out.put((byte) value);
     }
 
     /**
@@ -241,59 +341,73 @@ public class Packet {
      *
      * @param buffer byte array buffer
      * @return CRC16 sum
+     * @see CRC16
      */
     private short calculateCRC16(byte[] buffer) {
-        short crc_value = 0;
-
-        for (byte value : buffer) {
-
-            for (int i = 0x80; i != 0; i >>= 1) {
-
-                if ((crc_value & 0x8000) != 0) {
-                    crc_value = (short) ((crc_value << 1) ^ CRC_POLYNOMIAL);
-                } else {
-                    crc_value = (short) (crc_value << 1);
-                }
-
-                if ((value & i) != 0) {
-                    crc_value ^= CRC_POLYNOMIAL;
-                }
-            }
-        }
-        return crc_value;
+        return CRC16.calculate(buffer, 0, buffer.length);
     }
 
     public void unpack(byte[] sentData) throws InvalidCRC, InvalidPacketSize {
+        unpack(ByteBuffer.wrap(sentData));
+    }
+
+    /**
+     * Unpack packet from all remaining bytes of buffer without intermediate arrays.
+     * Data array of this packet is reused, if it has same length and nobody has got it by {@link #getData()}.
+     *
+     * @param in buffer, which position is moved to its limit
+     */
+    public void unpack(ByteBuffer in) throws InvalidCRC, InvalidPacketSize {
+
+        int start = in.position();
+        int length = in.remaining();
 
         // Get first 2 bytes - frameLength (in bytes)
-        short frameLength = getShortFromByteArray(ArrayUtils.subarray(sentData, 0, DATA_COUNT_LENGTH));
+        short frameLength = (length >= DATA_COUNT_LENGTH) ? getShort(in, start) : 0;
 
-        if (frameLength < MIN_FRAME_LENGTH || frameLength > MAX_FRAME_LENGTH)
+        if (frameLength < MIN_FRAME_LENGTH || frameLength > MAX_FRAME_LENGTH ||
+                length < DATA_COUNT_LENGTH + MIN_FRAME_LENGTH)
             throw new InvalidPacketSize("Length of frame " + frameLength + " isn't in the range (" + MIN_FRAME_LENGTH + "," + MAX_FRAME_LENGTH + ")");
 
         // Parsing packet
-        short CRC = getShortFromByteArray(ArrayUtils.subarray(sentData, sentData.length - CRC16_LENGTH, sentData.length));
-        short command_id = getShortFromByteArray(ArrayUtils.subarray(sentData, DATA_COUNT_LENGTH, DATA_COUNT_LENGTH + COMMAND_LENGTH));
-        byte[] data = ArrayUtils.subarray(sentData, DATA_COUNT_LENGTH + COMMAND_LENGTH, sentData.length - CRC16_LENGTH);
+        short CRC = getShort(in, start + length - CRC16_LENGTH);
+        short command_id = getShort(in, start + DATA_COUNT_LENGTH);
+        int dataStart = start + DATA_COUNT_LENGTH + COMMAND_LENGTH;
+        int dataLength = length - DATA_COUNT_LENGTH - COMMAND_LENGTH - CRC16_LENGTH;
+
+        // Check CRC before any field of packet is changed
+        byte[] data = null;
+        short calcCRC;
+        if (in.hasArray()) {
+            calcCRC = CRC16.calculate(in.array(), in.arrayOffset() + dataStart, dataLength);
+        } else {
+            data = new byte[dataLength];
+            in.position(dataStart);
+            in.get(data);
+            calcCRC = CRC16.calculate(data, 0, dataLength);
+        }
+        in.position(start + length);
 
-        // Check CRC
-        short calcCRC = calculateCRC16(data);
         if (CRC != calcCRC)
             throw new InvalidCRC("Incorrect CRC: received CRC value - " + CRC + ", calculated CRC value - " + calcCRC);
 
+        if (data == null) {
+            data = takeDataArray(dataLength);
+            System.arraycopy(in.array(), in.arrayOffset() + dataStart, data, 0, dataLength);
+        }
+
         // All checks DONE
         setCRC(CRC);
         setCommand(Command.getCommand(command_id));
-        setData(data);
+        this.data = data;
+        this.dataReusable = true;
     }
 
-    private short getShortFromByteArray(byte[] array) {
-        short result = 0;
-        try {
-            result = ByteBuffer.wrap(array).getShort();
-        } catch (Exception ignored) {
-        }
+    private byte[] takeDataArray(int length) {
+        return (dataReusable && data.length == length) ? data : new byte[length];
+    }
 
-        return result;
+    private static short getShort(ByteBuffer in, int index) {
+        return (short) ((in.get(index) << 8) | (in.get(index + 1) & 0xFF));
     }
 }
@@ -1,6 +1,7 @@
 package view;
 
 import controller.Controller;
+import model.Station;
 import model.tests.BaseTestCase;
 import model.tests.TestManager;
 import org.apache.commons.lang.StringEscapeUtils;
@@ -83,34 +84,43 @@ class TestsPanel extends JPanel implements ActionListener {
         testTableModel = new TestTableModel();
         jtTests = new JTable(testTableModel);
         jtTests.setDefaultRenderer(Object.class, new TestStateRenderer());
+        setColumnWidths();
+        jtTests.setRowHeight(20);
+        jtTests.setRowSelectionAllowed(false);
+
+        panel.add(new JScrollPane(jtTests));
+
+        return panel;
+    }
 
+    /**
+     * Columns are created again, when count of stations is changed, so widths are set after it
+     */
+    private void setColumnWidths() {
         TableColumnModel columnModel = jtTests.getColumnModel();
         columnModel.setColumnSelectionAllowed(false);
 
         TableColumn columnCheck = columnModel.getColumn(TestTableModel.COL_CHECK_INX);
         TableColumn columnID = columnModel.getColumn(TestTableModel.COL_ID_INX);
-        TableColumn columnState = columnModel.getColumn(TestTableModel.COL_STATE_INX);
 
         columnID.setMaxWidth(50);
         columnID.setResizable(false);
         columnCheck.setMaxWidth(30);
         columnCheck.setResizable(false);
-        columnState.setMaxWidth(80);
-        columnState.setResizable(false);
-
-        jtTests.setColumnModel(columnModel);
-        jtTests.setRowHeight(20);
-        jtTests.setRowSelectionAllowed(false);
-
-        panel.add(new JScrollPane(jtTests));
 
-        return panel;
+        for (int i = TestTableModel.COL_STATE_INX; i < columnModel.getColumnCount(); i++) {
+            TableColumn columnState = columnModel.getColumn(i);
+            columnState.setMaxWidth(80);
+            columnState.setResizable(false);
+        }
     }
 
     void fillTestList() {
         if (controller.isConnected()) {
             controller.getTestManager().fillTestList();
-            testTableModel.setDataSources(controller.getTestManager());
+            testTableModel.setDataSources(controller.getTestManager(), controller.getStations());
+            testTableModel.fireTableStructureChanged();
+            setColumnWidths();
             updateTestList();
         }
     }
@@ -121,6 +131,8 @@ class TestsPanel extends JPanel implements ActionListener {
 
     void clearTestList() {
         testTableModel.removeDataSources();
+        testTableModel.fireTableStructureChanged();
+        setColumnWidths();
         updateTestList();
     }
 
@@ -161,8 +173,7 @@ class TestsPanel extends JPanel implements ActionListener {
 
     private void setCheckFailedTests() {
         for (int i = 0; i < testTableModel.getRowCount(); i++) {
-            TestManager.State state = testTableModel.getTestResults().get(testTableModel.getTestList().get(i).getId());
-            testTableModel.setValueAt(state != null && state.equals(FAIL), i, TestTableModel.COL_CHECK_INX);
+            testTableModel.setValueAt(testTableModel.isFailed(i), i, TestTableModel.COL_CHECK_INX);
         }
     }
 
@@ -182,15 +193,41 @@ class TestsPanel extends JPanel implements ActionListener {
 
         private List<BaseTestCase> testList = new ArrayList<>();
         private Map<Integer, TestManager.State> testResults = new TreeMap<>();
+        /* Additional stations of multi-station mode: results of each station are shown in its own column */
+        private List<Station> stations = new ArrayList<>();
 
-        void setDataSources(TestManager testManager) {
+        void setDataSources(TestManager testManager, List<Station> stations) {
             this.testList = testManager.getTestList();
             this.testResults = testManager.getTestResults();
+            this.stations = stations;
         }
 
         void removeDataSources() {
             testList.clear();
             testResults.clear();
+            stations = new ArrayList<>();
+        }
+
+        /**
+         * @return result of test case on main station (column of state) or on additional one
+         */
+        private TestManager.State getState(int rowIndex, int columnIndex) {
+            Integer id = testList.get(rowIndex).getId();
+
+            return columnIndex == COL_STATE_INX ?
+                    testResults.get(id) :
+                    stations.get(columnIndex - COL_STATE_INX - 1).getTestManager().getTestResults().get(id);
+        }
+
+        /**
+         * @return true, if test case is failed on any station
+         */
+        boolean isFailed(int rowIndex) {
+            for (int i = COL_STATE_INX; i < getColumnCount(); i++) {
+                if (getState(rowIndex, i) == FAIL)
+                    return true;
+            }
+            return false;
         }
 
         List<BaseTestCase> getTestList() {
@@ -208,14 +245,18 @@ class TestsPanel extends JPanel implements ActionListener {
 
         @Override
         public int getColumnCount() {
-            return columnNames.size();
+            return columnNames.size() + stations.size();
         }
 
         @Override
         public Object getValueAt(int rowIndex, int columnIndex) {
 
             BaseTestCase testCase = testList.get(rowIndex);
-            TestManager.State state = testResults.get(testCase.getId());
+
+            if (columnIndex >= COL_STATE_INX) {
+                TestManager.State state = getState(rowIndex, columnIndex);
+                return state != null ? state.toString() : "";
+            }
 
             switch (columnIndex) {
                 case COL_CHECK_INX:
@@ -224,8 +265,6 @@ class TestsPanel extends JPanel implements ActionListener {
                     return testCase.getId();
                 case COL_DESC_INX:
                     return testCase.getName();
-                case COL_STATE_INX:
-                    return state != null ? state.toString() : "";
                 default:
                     return null;
             }
@@ -233,11 +272,16 @@ class TestsPanel extends JPanel implements ActionListener {
 
         @Override
         public String getColumnName(int column) {
-            return columnNames.get(column);
+            return column < columnNames.size() ?
+                    columnNames.get(column) :
+                    stations.get(column - columnNames.size()).getName();
         }
 
         @Override
         public Class<?> getColumnClass(int columnIndex) {
+            if (columnIndex >= COL_STATE_INX)
+                return String.class;
+
             switch (columnIndex) {
                 case COL_CHECK_INX:
                     return Boolean.class;
@@ -245,8 +289,6 @@ class TestsPanel extends JPanel implements ActionListener {
                     return Number.class;
                 case COL_DESC_INX:
                     return String.class;
-                case COL_STATE_INX:
-                    return String.class;
                 default:
                     return Object.class;
             }
@@ -270,7 +312,7 @@ class TestsPanel extends JPanel implements ActionListener {
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
             Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
 
-            if (column == TestTableModel.COL_STATE_INX) {
+            if (column >= TestTableModel.COL_STATE_INX) {
                 String state = (String) value;
                 if (!state.isEmpty()) {
                     switch (TestManager.State.valueOf(state)) {
@@ -13,6 +13,7 @@ import java.util.prefs.Preferences;
  */
 class ToolBar extends JPanel implements ActionListener {
     private static final String PREF_COM_PORT = "COM_PORT";
+    private static final String STRING_SAME_PORT = "Same port";
 
     private static final Insets NO_MARGIN = new Insets(0, 0, 0, 0);
     private static final int ICON_WIDTH = 30;
@@ -35,12 +36,15 @@ class ToolBar extends JPanel implements ActionListener {
     private final Controller controller;
 
     private JComboBox<String> jcbPorts;
+    private JComboBox<String> jcbStandPorts;
     private JButton jbRefresh;
     private JButton jbReconnect;
     private JButton jbStart;
     private JButton jbStop;
     private JButton jbHistory;
     private JButton jbLocation;
+    private JButton jbCharacterize;
+    private JButton jbAddStation;
 
     private String currentCOMPort;
 
@@ -64,6 +68,9 @@ class ToolBar extends JPanel implements ActionListener {
 
         jcbPorts = new JComboBox<>();
         jcbPorts.setEditable(false);
+        jcbStandPorts = new JComboBox<>();
+        jcbStandPorts.setEditable(false);
+        jcbStandPorts.setToolTipText("Port of stand, if it's connected separately from receiver");
 
         jbRefresh = new JButton(ICON_REFRESH);
         jbReconnect = new JButton(ICON_CONNECT);
@@ -71,6 +78,10 @@ class ToolBar extends JPanel implements ActionListener {
         jbStop = new JButton(ICON_STOP);
         jbHistory = new JButton(ICON_HISTORY);
         jbLocation = new JButton(ICON_LOCATION);
+        jbCharacterize = new JButton("Stand");
+        jbCharacterize.setToolTipText("Measure transfer of stand and store it to database");
+        jbAddStation = new JButton("+ Station");
+        jbAddStation.setToolTipText("Connect bench on selected port as additional station, which is tested in parallel");
 
         jbRefresh.setMargin(NO_MARGIN);
         jbReconnect.setMargin(NO_MARGIN);
@@ -85,14 +96,20 @@ class ToolBar extends JPanel implements ActionListener {
         jbStop.addActionListener(this);
         jbHistory.addActionListener(this);
         jbLocation.addActionListener(this);
+        jbCharacterize.addActionListener(this);
+        jbAddStation.addActionListener(this);
 
         bar.add(new JLabel("Port: "));
         bar.add(jcbPorts);
+        bar.add(new JLabel(" Stand: "));
+        bar.add(jcbStandPorts);
         bar.add(jbRefresh);
         bar.add(jbReconnect);
+        bar.add(jbAddStation);
         bar.addSeparator();
         bar.add(jbStart);
         bar.add(jbStop);
+        bar.add(jbCharacterize);
         bar.addSeparator();
         bar.add(jbHistory);
         bar.add(jbLocation);
@@ -106,19 +123,26 @@ class ToolBar extends JPanel implements ActionListener {
         boolean isConnected = controller.isConnected();
         boolean isTestRunning = controller.isTestRunning();
 
-        jcbPorts.setEnabled(!isConnected);
-        jbRefresh.setEnabled(!isConnected);
+        // Port of additional station is selected, while main station is connected
+        jcbPorts.setEnabled(!isTestRunning);
+        jbRefresh.setEnabled(!isTestRunning);
+        jcbStandPorts.setEnabled(!isConnected);
         jbReconnect.setEnabled(!isTestRunning);
         jbReconnect.setIcon(isConnected ? ICON_DISCONNECT : ICON_CONNECT);
 
         jbStart.setEnabled(isConnected && !isTestRunning);
         jbStop.setEnabled(isConnected && isTestRunning);
+        jbCharacterize.setEnabled(isConnected && !isTestRunning);
+        jbAddStation.setEnabled(isConnected && !isTestRunning);
 
         jbHistory.setEnabled(controller.isDBExist());
     }
 
     private void refreshCOMPortList() {
+        Object standPort = jcbStandPorts.getSelectedItem();
         jcbPorts.removeAllItems();
+        jcbStandPorts.removeAllItems();
+        jcbStandPorts.addItem(STRING_SAME_PORT);
 
         java.util.List<String> ports = controller.getCOMPortList();
 
@@ -129,11 +153,13 @@ class ToolBar extends JPanel implements ActionListener {
 
             for (String port : ports) {
                 jcbPorts.addItem(port);
+                jcbStandPorts.addItem(port);
             }
             jcbPorts.setEnabled(true);
         }
 
         jcbPorts.setSelectedItem(currentCOMPort);
+        jcbStandPorts.setSelectedItem(standPort != null ? standPort : STRING_SAME_PORT);
     }
 
     @Override
@@ -148,20 +174,25 @@ class ToolBar extends JPanel implements ActionListener {
 
             } else {
                 if (btn.equals(jbReconnect)) {
-                    currentCOMPort = getSelectedPort();
-
                     if (controller.isConnected()) {
                         controller.disconnect();
                     } else {
-                        controller.connect(currentCOMPort);
+                        currentCOMPort = getSelectedPort();
+                        controller.connect(currentCOMPort, getSelectedStandPort());
                     }
 
+                } else if (btn.equals(jbAddStation)) {
+                    controller.addStation((String) jcbPorts.getSelectedItem());
+
                 } else if (btn.equals(jbStart)) {
                     controller.startTesting();
 
                 } else if (btn.equals(jbStop)) {
                     controller.stopTesting();
 
+                } else if (btn.equals(jbCharacterize)) {
+                    controller.characterizeStand();
+
                 } else if (btn.equals(jbHistory)) {
                     controller.openHistory();
                 } else if (btn.equals(jbLocation)) {
@@ -179,6 +210,11 @@ class ToolBar extends JPanel implements ActionListener {
         return port;
     }
 
+    private String getSelectedStandPort() {
+        String port = (String) jcbStandPorts.getSelectedItem();
+        return (port == null || port.equals(STRING_SAME_PORT)) ? currentCOMPort : port;
+    }
+
     private void saveCOMPortToPref(String port) {
         Preferences prefs = Preferences.userNodeForPackage(ToolBar.class);
         prefs.put(PREF_COM_PORT, port);
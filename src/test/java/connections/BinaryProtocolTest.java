@@ -0,0 +1,164 @@
+package connections;
+
+import exception.InvalidProtocol;
+import org.junit.Test;
+import packet.Command;
+import packet.Packet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test binary length-prefixed protocol, its streaming decoder and frame scanner
+ */
+public class BinaryProtocolTest {
+
+    private final Protocol binary = new BinaryProtocol();
+    private final FrameDecoder decoder = binary.createDecoder();
+
+    private final byte[] packed1 = new Packet(Command.BACKLIGHT_DEVICE, new byte[]{1, 2, 3, 4}).pack();
+    private final byte[] packed2 = new Packet(Command.GET_LEVELS_DEVICE, new byte[]{(byte) 0xa5, (byte) 0xcd}).pack();
+
+    public BinaryProtocolTest() throws Exception {
+    }
+
+    @Test
+    public void youWrapAndUnwrapData() throws Exception {
+        byte[] code = binary.wrap(packed1);
+
+        assertEquals(binary.getWireLength(packed1.length), code.length);
+        assertEquals(BinaryProtocol.START_OF_FRAME, code[0]);
+        assertArrayEquals(packed1, binary.unwrap(code));
+    }
+
+    @Test
+    public void youHalveWireLengthOfModBus() throws Exception {
+        // ModBus: 2 * N + 3 bytes, binary: N + 3 bytes
+        assertEquals(new ModBus().wrap(packed1).length + 3, 2 * binary.wrap(packed1).length);
+    }
+
+    @Test(expected = InvalidProtocol.class)
+    public void youCantUnwrapFrameWithoutStart() throws Exception {
+        byte[] code = binary.wrap(packed1);
+        code[0] = 0;
+
+        binary.unwrap(code);
+    }
+
+    @Test(expected = InvalidProtocol.class)
+    public void youCantUnwrapTruncatedFrame() throws Exception {
+        byte[] code = binary.wrap(packed1);
+        byte[] truncated = new byte[code.length - 1];
+        System.arraycopy(code, 0, truncated, 0, truncated.length);
+
+        binary.unwrap(truncated);
+    }
+
+    @Test
+    public void youDecodeFrameByteByByte() throws Exception {
+        byte[] code = binary.wrap(packed1);
+
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < code.length; i++) {
+            List<byte[]> decoded = decoder.decode(code, i, 1);
+            if (i < code.length - 1)
+                assertTrue(decoded.isEmpty());
+            frames.addAll(decoded);
+        }
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(packed1, frames.get(0));
+    }
+
+    @Test
+    public void youDecodeJoinedFramesAfterGarbage() throws Exception {
+        byte[] garbage = {0x00, 0x11, BinaryProtocol.START_OF_FRAME, (byte) 0xff, (byte) 0xff};
+        byte[] stream = join(join(garbage, binary.wrap(packed1)), binary.wrap(packed2));
+
+        List<byte[]> frames = decoder.decode(stream, 0, stream.length);
+
+        assertEquals(2, frames.size());
+        assertArrayEquals(packed1, frames.get(0));
+        assertArrayEquals(packed2, frames.get(1));
+        assertEquals(1, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youDecodeFramesAfterFalseStartOfFrame() throws Exception {
+        // Length of false frame covers the first real frame and part of the second one
+        byte[] falseHeader = {BinaryProtocol.START_OF_FRAME, 0x00, 0x10};
+        byte[] stream = join(join(falseHeader, binary.wrap(packed1)), binary.wrap(packed2));
+
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < stream.length; i++)
+            frames.addAll(decoder.decode(stream, i, 1));
+
+        assertEquals(2, frames.size());
+        assertArrayEquals(packed1, frames.get(0));
+        assertArrayEquals(packed2, frames.get(1));
+        assertEquals(1, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youDecodeNextFrameAfterBrokenCRC() throws Exception {
+        byte[] broken = binary.wrap(packed1);
+        broken[BinaryProtocol.HEADER_LENGTH + 4] ^= 0x01;
+        byte[] stream = join(broken, binary.wrap(packed2));
+
+        List<byte[]> frames = decoder.decode(stream, 0, stream.length);
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(packed2, frames.get(0));
+        assertEquals(1, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youScanFrameAfterFalseStartOfFrame() throws Exception {
+        // False frame isn't complete, but the real frame behind it is
+        byte[] stream = join(new byte[]{BinaryProtocol.START_OF_FRAME, 0x00, 0x10}, binary.wrap(packed1));
+        FrameScanner scanner = binary.createScanner();
+
+        assertTrue(scanner.scan(stream, stream.length));
+        assertEquals(3, scanner.getFrameStart());
+        assertEquals(stream.length, scanner.getFrameEnd());
+    }
+
+    @Test
+    public void youScanFrameOnlyWhenItIsComplete() throws Exception {
+        byte[] stream = join(new byte[]{0x00, BinaryProtocol.START_OF_FRAME, 0x00, 0x00}, binary.wrap(packed1));
+        FrameScanner scanner = binary.createScanner();
+
+        assertFalse(scanner.scan(stream, stream.length - 1));
+        assertTrue(scanner.scan(stream, stream.length));
+        assertEquals(4, scanner.getFrameStart());
+        assertEquals(stream.length, scanner.getFrameEnd());
+    }
+
+    @Test
+    public void youSendAndReceivePacketOnLoopback() throws Exception {
+        FakeSerialPort port = new FakeSerialPort("LOOPBACK");
+        port.setEcho(true);
+
+        ConnectionManager connectionManager = new ConnectionManager(new UART(port), binary);
+        assertTrue(connectionManager.getConnection().open());
+
+        try {
+            Packet packet = new Packet(Command.CHECK_CONNECTION_DEVICE, new byte[]{BinaryProtocol.START_OF_FRAME, 2, 3, 4});
+
+            assertTrue(connectionManager.sendPacket(packet));
+            assertEquals(packet, connectionManager.receivePacket());
+        } finally {
+            connectionManager.close();
+            assertTrue(connectionManager.getConnection().close());
+        }
+    }
+
+    private static byte[] join(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package connections;
+
+import exception.InvalidCRC;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import packet.Command;
+import packet.Packet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test per-command metrics of connection manager on simulator
+ */
+public class CommandMetricsTest {
+
+    private SimulatedBench bench;
+    private ConnectionManager connectionManager;
+
+    @Before
+    public void setUp() throws Exception {
+        bench = new SimulatedBench(1);
+        connectionManager = new ConnectionManager(bench, new ModBus());
+        assertTrue(connectionManager.getConnection().open());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connectionManager.close();
+        assertTrue(connectionManager.getConnection().close());
+    }
+
+    @Test
+    public void youGetCountersOfRoundTrips() throws Exception {
+        bench.setLatencyMs(5);
+        Packet request = new Packet(Command.CHECK_CONNECTION_DEVICE, 1);
+
+        for (int i = 0; i < 3; i++) {
+            connectionManager.sendPacket(request);
+            connectionManager.receivePacket();
+        }
+
+        CommandMetrics.Snapshot snapshot = getSnapshot(Command.CHECK_CONNECTION_DEVICE);
+        int wireLength = new ModBus().getWireLength(request.getPackedLength());
+
+        assertEquals(3, snapshot.getRequests());
+        assertEquals(3, snapshot.getResponses());
+        assertEquals(3 * wireLength, snapshot.getBytesOut());
+        assertEquals(3 * wireLength, snapshot.getBytesIn());
+        assertEquals(3, snapshot.getRoundTrip().getCount());
+        assertTrue(snapshot.getRoundTrip().getPercentile(50) >= 4000000L);
+        assertTrue(snapshot.toString().startsWith(Command.CHECK_CONNECTION_DEVICE.toString()));
+    }
+
+    @Test
+    public void youGetCountersOfFailures() throws Exception {
+        bench.setFaultRates(0, 1, 0);
+        connectionManager.sendPacket(new Packet(Command.GET_LEVELS_DEVICE));
+        try {
+            connectionManager.receivePacket();
+            fail("Broken CRC is received");
+        } catch (InvalidCRC ignored) {
+        }
+
+        bench.setFaultRates(0, 0, 1);
+        connectionManager.sendPacket(new Packet(Command.GET_LEVELS_DEVICE));
+        connectionManager.receivePacket();
+
+        CommandMetrics.Snapshot snapshot = getSnapshot(Command.GET_LEVELS_DEVICE);
+
+        assertEquals(2, snapshot.getRequests());
+        assertEquals(1, snapshot.getCrcErrors());
+        assertEquals(1, snapshot.getErrorReplies());
+    }
+
+    @Test
+    public void youGetRoundTripOfEachPipelinedRequest() throws Exception {
+        bench.setLatencyMs(10);
+        List<Packet> requests = new ArrayList<>();
+        for (int i = 0; i < ConnectionManager.DEFAULT_WINDOW; i++)
+            requests.add(new Packet(Command.GET_LEVELS_DEVICE));
+
+        connectionManager.transact(requests, ConnectionManager.DEFAULT_WINDOW);
+
+        CommandMetrics.Snapshot snapshot = getSnapshot(Command.GET_LEVELS_DEVICE);
+
+        assertEquals(requests.size(), snapshot.getResponses());
+        assertEquals(requests.size(), snapshot.getRoundTrip().getCount());
+        assertTrue("Each response is timed from its own request", snapshot.getRoundTrip().getPercentile(0) >= 8000000L);
+    }
+
+    @Test
+    public void youGetFailuresOfPipelinedRequests() throws Exception {
+        bench.setFaultRates(0, 0, 1);
+        connectionManager.transact(Arrays.asList(
+                new Packet(Command.GET_LEVELS_DEVICE),
+                new Packet(Command.CHECK_CONNECTION_DEVICE, 1)), ConnectionManager.DEFAULT_WINDOW);
+
+        assertEquals(1, getSnapshot(Command.GET_LEVELS_DEVICE).getErrorReplies());
+        assertEquals(1, getSnapshot(Command.CHECK_CONNECTION_DEVICE).getErrorReplies());
+
+        bench.setFaultRates(1, 0, 0);
+        connectionManager.sendPacket(new Packet(Command.GET_LEVELS_DEVICE));
+        connectionManager.sendPacket(new Packet(Command.CHECK_CONNECTION_DEVICE, 1));
+        for (int i = 0; i < 2; i++) {
+            try {
+                connectionManager.receivePacket();
+                fail("Lost response is received");
+            } catch (Exception ignored) {
+            }
+        }
+
+        assertEquals(1, getSnapshot(Command.GET_LEVELS_DEVICE).getTimeouts());
+        assertEquals(1, getSnapshot(Command.CHECK_CONNECTION_DEVICE).getTimeouts());
+    }
+
+    @Test
+    public void youResetMetrics() throws Exception {
+        connectionManager.sendPacket(new Packet(Command.CHECK_CONNECTION_DEVICE, 1));
+        connectionManager.receivePacket();
+
+        connectionManager.getMetrics().reset();
+
+        assertTrue(connectionManager.getMetrics().getSnapshots().isEmpty());
+    }
+
+    private CommandMetrics.Snapshot getSnapshot(Command command) {
+        for (CommandMetrics.Snapshot snapshot : connectionManager.getMetrics().getSnapshots()) {
+            if (snapshot.getCommand() == command)
+                return snapshot;
+        }
+
+        fail("No metrics of " + command);
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package connections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import packet.Command;
+import packet.Packet;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ConnectionManager test on loopback fake port
+ */
+public class ConnectionManagerLoopbackTest {
+
+    private FakeSerialPort port;
+    private ConnectionManager connectionManager;
+
+    @Before
+    public void openConnection() throws Exception {
+        port = new FakeSerialPort("LOOPBACK");
+        port.setEcho(true);
+
+        connectionManager = new ConnectionManager(new UART(port), new ModBus());
+        assertTrue(connectionManager.getConnection().open());
+    }
+
+    @After
+    public void closeConnection() throws Exception {
+        connectionManager.close();
+        assertTrue(connectionManager.getConnection().close());
+    }
+
+    @Test
+    public void testSendAndReceivePacket() throws Exception {
+        Packet packet = new Packet(Command.CHECK_CONNECTION_DEVICE, new byte[]{1, 2, 3, 4});
+
+        assertTrue(connectionManager.sendPacket(packet));
+        assertEquals(packet, connectionManager.receivePacket());
+    }
+
+    @Test
+    public void testReceivePacketAfterBrokenFrame() throws Exception {
+        Packet packet = new Packet(Command.CHECK_CONNECTION_DEVICE, new byte[]{1, 2, 3, 4});
+
+        port.feed(new byte[]{0x3A, 0x31, 0x32, 0x7F, 0x2E, 0x2F});
+        assertTrue(connectionManager.sendPacket(packet));
+
+        assertEquals(packet, connectionManager.receivePacket());
+    }
+
+    @Test
+    public void testTransactPipelined() throws Exception {
+        List<Packet> requests = Arrays.asList(
+                new Packet(Command.MODE_DEVICE, 2),
+                new Packet(Command.TYPE_OF_SIGNAL_DEVICE, 0),
+                new Packet(Command.BOTTOM_SENSOR_DEVICE, 1),
+                new Packet(Command.FREQUENCY_DEVICE, 8192),
+                new Packet(Command.GAIN_DEVICE, 40));
+
+        assertEquals(requests, connectionManager.transact(requests, 2));
+    }
+
+    @Test
+    public void testTransactMatchesResponsesByCommand() throws Exception {
+        Packet request1 = new Packet(Command.FREQUENCY_DEVICE, 512);
+        Packet request2 = new Packet(Command.GAIN_DEVICE, 20);
+        Packet response1 = new Packet(Command.FREQUENCY_DEVICE, new byte[]{0});
+        Packet response2 = new Packet(Command.GAIN_DEVICE, new byte[]{1});
+
+        port.setEcho(false);
+        port.feed(wrap(response2));
+        port.feed(wrap(response1));
+
+        assertEquals(Arrays.asList(response1, response2),
+                connectionManager.transact(Arrays.asList(request1, request2), ConnectionManager.DEFAULT_WINDOW));
+    }
+
+    @Test
+    public void testTransactMatchesErrorToOldestRequest() throws Exception {
+        Packet request1 = new Packet(Command.FREQUENCY_DEVICE, 512);
+        Packet request2 = new Packet(Command.GAIN_DEVICE, 20);
+        Packet response1 = new Packet(Command.INVALID_DATA_DEVICE);
+        Packet response2 = new Packet(Command.GAIN_DEVICE, new byte[]{0});
+
+        port.setEcho(false);
+        port.feed(wrap(response2));
+        port.feed(wrap(response1));
+
+        assertEquals(Arrays.asList(response1, response2),
+                connectionManager.transact(Arrays.asList(request1, request2), ConnectionManager.DEFAULT_WINDOW));
+    }
+
+    @Test
+    public void testTransactMatchesUnknownCommandToOldestRequest() throws Exception {
+        Packet request1 = new Packet(Command.FREQUENCY_DEVICE, 512);
+        Packet request2 = new Packet(Command.GAIN_DEVICE, 20);
+        Packet response2 = new Packet(Command.GAIN_DEVICE, new byte[]{0});
+
+        byte[] unknownResponse = new Packet(Command.FREQUENCY_DEVICE, new byte[]{0}).pack();
+        unknownResponse[2] = 0x7F;      // command id, which isn't known
+
+        port.setEcho(false);
+        port.feed(new ModBus().wrap(unknownResponse));
+        port.feed(wrap(response2));
+
+        List<Packet> responses = connectionManager.transact(Arrays.asList(request1, request2),
+                ConnectionManager.DEFAULT_WINDOW);
+
+        assertNull(responses.get(0).getCommand());
+        assertEquals(response2, responses.get(1));
+
+        long errorReplies = 0;
+        for (CommandMetrics.Snapshot snapshot : connectionManager.getMetrics().getSnapshots()) {
+            if (snapshot.getCommand() == Command.FREQUENCY_DEVICE)
+                errorReplies = snapshot.getErrorReplies();
+        }
+        assertEquals(1, errorReplies);
+    }
+
+    @Test
+    public void testReceivePacketDropsResponseWithoutRequest() throws Exception {
+        Packet request = new Packet(Command.GET_GAIN_DEVICE);
+        Packet response = new Packet(Command.GET_GAIN_DEVICE, new byte[]{0, 20});
+
+        port.setEcho(false);
+        port.feed(wrap(new Packet(Command.GAIN_DEVICE, new byte[]{0})));
+        port.feed(wrap(response));
+
+        assertTrue(connectionManager.sendPacket(request));
+        assertEquals(response, connectionManager.receivePacket());
+
+        long droppedFrames = 0;
+        for (CommandMetrics.Snapshot snapshot : connectionManager.getMetrics().getSnapshots()) {
+            if (snapshot.getCommand() == Command.GAIN_DEVICE)
+                droppedFrames = snapshot.getDroppedFrames();
+        }
+        assertEquals(1, droppedFrames);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTransactRejectsWindowGreaterThanOutstandingRequests() throws Exception {
+        connectionManager.transact(Arrays.asList(new Packet(Command.GAIN_DEVICE, 20)), 65);
+    }
+
+    private static byte[] wrap(Packet packet) throws Exception {
+        return new ModBus().wrap(packet.pack());
+    }
+}
@@ -0,0 +1,155 @@
+package connections;
+
+import jssc.SerialPort;
+import jssc.SerialPortEvent;
+import jssc.SerialPortEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Serial port stub: feeds bytes to UART receive engine like real port does (by RXCHAR events)
+ */
+class FakeSerialPort extends SerialPort {
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    private SerialPortEventListener listener;
+    private byte[] inputBuffer = new byte[0];
+    private boolean opened = false;
+    private boolean echo = false;
+    private volatile long writeDelayMs = 0;
+
+    FakeSerialPort(String portName) {
+        super(portName);
+    }
+
+    /**
+     * Put bytes to input buffer of port and fire RXCHAR event
+     */
+    void feed(byte[] data) {
+        SerialPortEventListener eventListener;
+        int count;
+
+        synchronized (this) {
+            byte[] buffer = Arrays.copyOf(inputBuffer, inputBuffer.length + data.length);
+            System.arraycopy(data, 0, buffer, inputBuffer.length, data.length);
+            inputBuffer = buffer;
+
+            eventListener = listener;
+            count = inputBuffer.length;
+        }
+
+        if (eventListener != null)
+            eventListener.serialEvent(new SerialPortEvent(getPortName(), MASK_RXCHAR, count));
+    }
+
+    /**
+     * Feed bytes in separate thread after delay
+     */
+    void feedLater(final byte[] data, final long delayMs) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(delayMs);
+                    feed(data);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * In echo mode all written bytes are fed back to input buffer (loopback)
+     */
+    synchronized void setEcho(boolean echo) {
+        this.echo = echo;
+    }
+
+    /**
+     * Every write takes given time, interrupted write doesn't write anything
+     */
+    void setWriteDelayMs(long writeDelayMs) {
+        this.writeDelayMs = writeDelayMs;
+    }
+
+    synchronized byte[] getWrittenBytes() {
+        return written.toByteArray();
+    }
+
+    @Override
+    public synchronized boolean openPort() {
+        opened = true;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isOpened() {
+        return opened;
+    }
+
+    @Override
+    public boolean setParams(int baudRate, int dataBits, int stopBits, int parity, boolean setRTS, boolean setDTR) {
+        return true;
+    }
+
+    @Override
+    public synchronized void addEventListener(SerialPortEventListener listener, int mask) {
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized boolean removeEventListener() {
+        listener = null;
+        return true;
+    }
+
+    @Override
+    public synchronized byte[] readBytes(int byteCount) {
+        int count = Math.min(byteCount, inputBuffer.length);
+        byte[] result = Arrays.copyOf(inputBuffer, count);
+        inputBuffer = Arrays.copyOfRange(inputBuffer, count, inputBuffer.length);
+        return result;
+    }
+
+    @Override
+    public boolean writeBytes(byte[] buffer) {
+        try {
+            Thread.sleep(writeDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        boolean loopback;
+        synchronized (this) {
+            loopback = echo;
+            if (!loopback)
+                written.write(buffer, 0, buffer.length);
+        }
+
+        if (loopback)
+            feed(buffer);
+        return true;
+    }
+
+    @Override
+    public int getOutputBufferBytesCount() {
+        return 0;
+    }
+
+    @Override
+    public boolean purgePort(int flags) {
+        return true;
+    }
+
+    @Override
+    public synchronized boolean closePort() {
+        opened = false;
+        listener = null;
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package connections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test lock-free latency histogram
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void youGetValueWithBucketPrecision() throws Exception {
+        long[] values = {0, 1, 15, 16, 17, 1000, 123456789L, Long.MAX_VALUE};
+
+        for (long value : values) {
+            long bucketValue = LatencyHistogram.getBucketValue(LatencyHistogram.getBucket(value));
+
+            assertTrue(bucketValue <= value);
+            assertTrue(value - bucketValue <= value / 16);
+        }
+    }
+
+    @Test
+    public void youGetPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500500.0, snapshot.getMean(), 0.1);
+        assertEquals(1000000, snapshot.getMax());
+        assertEquals(500000.0, snapshot.getPercentile(50), 500000.0 / 16);
+        assertEquals(990000.0, snapshot.getPercentile(99), 990000.0 / 16);
+    }
+
+    @Test
+    public void youRecordFromManyThreads() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        histogram.record(i);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(400000, histogram.getSnapshot().getCount());
+        assertEquals(99999, histogram.getSnapshot().getMax());
+    }
+}
@@ -0,0 +1,84 @@
+package connections;
+
+import packet.Command;
+import packet.Packet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Encode + decode throughput of wire frames:
+ * Packet.pack() + ModBus.wrap() / ModBus.unwrap() + Packet.unpack() (before) vs fused ModBusCodec encoding
+ * and ModBusDecoder unpacking straight to packet, as receive path of ConnectionManager does (after).
+ * <p>
+ * <p> Run as application: java connections.ModBusCodecBenchmark [iterations]
+ */
+public class ModBusCodecBenchmark {
+
+    private static final int[] DATA_SIZES = {4, 64, 512};
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        final ModBus modbus = new ModBus();
+        final ModBusCodec codec = new ModBusCodec();
+        final ModBusDecoder decoder = new ModBusDecoder();
+        final List<byte[]> frames = new ArrayList<>();
+
+        System.out.printf("%-8s%20s%20s%n", "bytes", "pack+wrap MB/s", "fused codec MB/s");
+
+        for (int size : DATA_SIZES) {
+            byte[] data = new byte[size];
+            new Random(0).nextBytes(data);
+            final Packet packet = new Packet(Command.CHECK_CONNECTION_DEVICE, data);
+            final int wireLength = codec.encode(packet).length;
+
+            RoundTrip separate = new RoundTrip() {
+                @Override
+                public void run() throws Exception {
+                    byte[] wire = modbus.wrap(packet.pack());
+                    Packet received = new Packet();
+                    received.unpack(modbus.unwrap(wire));
+                    sink = received;
+                }
+            };
+
+            RoundTrip fused = new RoundTrip() {
+                @Override
+                public void run() throws Exception {
+                    byte[] wire = codec.encode(packet);
+                    Packet received = new Packet();
+                    if (!decoder.decode(wire, 0, wire.length, received, frames))
+                        throw new IllegalStateException("Frame isn't unpacked to packet");
+                    sink = received;
+                }
+            };
+
+            measure(separate, iterations / 10);
+            measure(fused, iterations / 10);
+
+            System.out.printf("%-8d%20.1f%20.1f%n", size,
+                    throughput(measure(separate, iterations), wireLength),
+                    throughput(measure(fused, iterations), wireLength));
+        }
+    }
+
+    private static double throughput(double nsPerOp, int wireLength) {
+        return wireLength / (nsPerOp / 1e9) / (1024 * 1024);
+    }
+
+    private static double measure(RoundTrip roundTrip, int iterations) throws Exception {
+        long startNs = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            roundTrip.run();
+        }
+        return (double) (System.nanoTime() - startNs) / iterations;
+    }
+
+    private interface RoundTrip {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,75 @@
+package connections;
+
+import exception.InvalidCRC;
+import org.junit.Test;
+import packet.Command;
+import packet.Packet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test fused Packet + ModBus codec against the decoder of receive path
+ */
+public class ModBusCodecTest {
+
+    private final Protocol modbus = new ModBus();
+    private final ModBusCodec codec = new ModBusCodec();
+    private final ModBusDecoder decoder = new ModBusDecoder();
+    private final List<byte[]> frames = new ArrayList<>();
+
+    @Test
+    public void youEncodeSameAsPackAndWrap() throws Exception {
+        Random random = new Random(0);
+
+        for (int length = 0; length <= 512; length += 31) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            Packet packet = new Packet(Command.CHECK_CONNECTION_DEVICE, data);
+
+            assertArrayEquals("data length " + length, modbus.wrap(packet.pack()), codec.encode(packet));
+        }
+    }
+
+    @Test
+    public void youDecodeSameAsUnwrapAndUnpack() throws Exception {
+        Packet sentPacket = new Packet(Command.GET_LEVELS_DEVICE, new byte[]{0x01, (byte) 0xab, 0x7f, (byte) 0x80});
+        byte[] wire = codec.encode(sentPacket);
+
+        Packet receivedPacket = new Packet();
+        assertTrue(decoder.decode(wire, 0, wire.length, receivedPacket, frames));
+
+        assertEquals(sentPacket, receivedPacket);
+    }
+
+    @Test
+    public void youDecodeUpperCaseCode() throws Exception {
+        Packet sentPacket = new Packet(Command.GET_LEVELS_DEVICE, new byte[]{(byte) 0xab, (byte) 0xcd});
+        byte[] wire = new String(codec.encode(sentPacket), "US-ASCII").toUpperCase().getBytes("US-ASCII");
+
+        Packet receivedPacket = new Packet();
+        assertTrue(decoder.decode(wire, 0, wire.length, receivedPacket, frames));
+
+        assertEquals(sentPacket, receivedPacket);
+    }
+
+    @Test
+    public void youDecodeBrokenDelimiters() throws Exception {
+        byte[] wire = codec.encode(new Packet(Command.GAIN_DEVICE, 20));
+        wire[wire.length - 1] = (byte) ~wire[wire.length - 1];
+
+        assertFalse(decoder.decode(wire, 0, wire.length, new Packet(), frames));
+        assertTrue(frames.isEmpty());
+    }
+
+    @Test(expected = InvalidCRC.class)
+    public void youDecodeBrokenCRC() throws Exception {
+        byte[] wire = codec.encode(new Packet(Command.GAIN_DEVICE, 20));
+        wire[wire.length - 3] = (byte) (wire[wire.length - 3] == '0' ? '1' : '0');
+
+        decoder.decode(wire, 0, wire.length, new Packet(), frames);
+    }
+}
@@ -0,0 +1,215 @@
+package connections;
+
+import org.junit.Test;
+import packet.Command;
+import packet.Packet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test streaming ModBus decoder
+ */
+public class ModBusDecoderTest {
+
+    private final Protocol modbus = new ModBus();
+    private final FrameDecoder decoder = modbus.createDecoder();
+
+    private final byte[] packed1 = new Packet(Command.BACKLIGHT_DEVICE, new byte[]{1, 2, 3, 4}).pack();
+    private final byte[] packed2 = new Packet(Command.GET_LEVELS_DEVICE, new byte[]{(byte) 0xab, (byte) 0xcd}).pack();
+
+    public ModBusDecoderTest() throws Exception {
+    }
+
+    @Test
+    public void youDecodeWholeFrame() throws Exception {
+        byte[] code = modbus.wrap(packed1);
+
+        List<byte[]> frames = decoder.decode(code, 0, code.length);
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(packed1, frames.get(0));
+    }
+
+    @Test
+    public void youDecodeFrameByteByByte() throws Exception {
+        byte[] code = modbus.wrap(packed1);
+
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < code.length; i++) {
+            List<byte[]> decoded = decoder.decode(code, i, 1);
+            if (i < code.length - 1)
+                assertTrue(decoded.isEmpty());
+            frames.addAll(decoded);
+        }
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(packed1, frames.get(0));
+    }
+
+    @Test
+    public void youDecodeJoinedFrames() throws Exception {
+        byte[] stream = join(modbus.wrap(packed1), modbus.wrap(packed2));
+
+        List<byte[]> frames = decoder.decode(stream, 0, stream.length);
+
+        assertEquals(2, frames.size());
+        assertArrayEquals(packed1, frames.get(0));
+        assertArrayEquals(packed2, frames.get(1));
+    }
+
+    @Test
+    public void youResynchroniseAfterGarbage() throws Exception {
+        byte[] stream = join(new byte[]{0x00, 0x2E, 0x2F, 0x31, 0x7F}, modbus.wrap(packed1));
+
+        List<byte[]> frames = decoder.decode(stream, 0, stream.length);
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(packed1, frames.get(0));
+        assertEquals(0, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youSkipBrokenFrame() throws Exception {
+        byte[] broken = modbus.wrap(packed1);
+        broken[3] = 'x';
+
+        byte[] stream = join(broken, modbus.wrap(packed2));
+        List<byte[]> frames = decoder.decode(stream, 0, stream.length);
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(packed2, frames.get(0));
+        assertEquals(1, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youSkipTruncatedFrame() throws Exception {
+        byte[] code = modbus.wrap(packed1);
+        byte[] truncated = new byte[code.length / 2];
+        System.arraycopy(code, 0, truncated, 0, truncated.length);
+
+        byte[] stream = join(truncated, modbus.wrap(packed2));
+        List<byte[]> frames = decoder.decode(stream, 0, stream.length);
+
+        assertEquals(1, frames.size());
+        assertArrayEquals(packed2, frames.get(0));
+        assertEquals(1, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youSkipFrameWithOddCodeLength() throws Exception {
+        byte[] code = new byte[]{0x3A, 0x31, 0x32, 0x33, 0x2E, 0x2F};
+
+        assertTrue(decoder.decode(code, 0, code.length).isEmpty());
+        assertEquals(1, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youKeepPartialFrameUntilReset() throws Exception {
+        byte[] code = modbus.wrap(packed1);
+        decoder.decode(code, 0, code.length - 3);
+
+        decoder.reset();
+
+        assertTrue(decoder.decode(code, code.length - 3, 3).isEmpty());
+    }
+
+    @Test
+    public void youUnpackTheOnlyFrameToPacket() throws Exception {
+        ModBusDecoder decoder = new ModBusDecoder();
+        byte[] code = modbus.wrap(packed1);
+        Deque<byte[]> frames = new ArrayDeque<>();
+
+        Packet packet = new Packet();
+        assertTrue(decoder.decode(code, 0, code.length, packet, frames));
+        assertTrue(frames.isEmpty());
+        assertArrayEquals(packed1, packet.pack());
+
+        // Rest of partial frame completes it
+        assertFalse(decoder.decode(code, 0, 5, packet, frames));
+        packet = new Packet();
+        assertTrue(decoder.decode(code, 5, code.length - 5, packet, frames));
+        assertTrue(frames.isEmpty());
+        assertArrayEquals(packed1, packet.pack());
+    }
+
+    @Test
+    public void youKeepPartialFrameAfterCompleteFrame() throws Exception {
+        ModBusDecoder decoder = new ModBusDecoder();
+        byte[] code2 = modbus.wrap(packed2);
+        byte[] stream = join(modbus.wrap(packed1), code2);
+        int partialEnd = stream.length - code2.length / 2;
+        Deque<byte[]> frames = new ArrayDeque<>();
+
+        // Complete frame is followed by start of the next one: both of them stay in stream order
+        assertFalse(decoder.decode(stream, 0, partialEnd, new Packet(), frames));
+        assertEquals(1, frames.size());
+        assertArrayEquals(packed1, frames.poll());
+
+        Packet packet = new Packet();
+        assertTrue(decoder.decode(stream, partialEnd, stream.length - partialEnd, packet, frames));
+        assertArrayEquals(packed2, packet.pack());
+        assertEquals(0, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youCompletePartialFrameBeforeCompleteFrame() throws Exception {
+        ModBusDecoder decoder = new ModBusDecoder();
+        byte[] code1 = modbus.wrap(packed1);
+        byte[] stream = join(code1, modbus.wrap(packed2));
+        Deque<byte[]> frames = new ArrayDeque<>();
+
+        assertFalse(decoder.decode(stream, 0, code1.length / 2, new Packet(), frames));
+        assertTrue(frames.isEmpty());
+
+        // Two frames completed by one slice aren't unpacked to packet
+        assertFalse(decoder.decode(stream, code1.length / 2, stream.length - code1.length / 2, new Packet(), frames));
+        assertEquals(2, frames.size());
+        assertArrayEquals(packed1, frames.poll());
+        assertArrayEquals(packed2, frames.poll());
+        assertEquals(0, decoder.getDroppedFrames());
+    }
+
+    @Test
+    public void youFindSameFramesByScannerAndDecoder() throws Exception {
+        byte[] broken = modbus.wrap(packed1);
+        broken[broken.length - 1] = 0x31;
+
+        byte[] stream = join(join(new byte[]{0x2E, 0x2F, 0x3A, 0x31}, broken), join(modbus.wrap(packed1), modbus.wrap(packed2)));
+        List<byte[]> decoded = decoder.decode(stream, 0, stream.length);
+
+        FrameScanner scanner = modbus.createScanner();
+        List<byte[]> scanned = new ArrayList<>();
+        for (int start = 0; ; start += scanner.getFrameEnd()) {
+            byte[] rest = Arrays.copyOfRange(stream, start, stream.length);
+            scanner.reset();
+            if (!scanner.scan(rest, rest.length))
+                break;
+
+            int frameLength = scanner.getFrameEnd() - scanner.getFrameStart();
+
+            Packet packet = new Packet();
+            assertTrue(new ModBusDecoder().decode(rest, scanner.getFrameStart(), frameLength, packet, new ArrayList<byte[]>()));
+            scanned.add(packet.pack());
+        }
+
+        assertEquals(2, decoded.size());
+        assertEquals(decoded.size(), scanned.size());
+        for (int i = 0; i < decoded.size(); i++)
+            assertArrayEquals(decoded.get(i), scanned.get(i));
+        assertEquals(2, decoder.getDroppedFrames());
+        assertFalse(new ModBusDecoder().decode(stream, 0, stream.length, new Packet(), new ArrayList<byte[]>()));
+    }
+
+    private static byte[] join(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package connections;
+
+import packet.Command;
+import packet.Packet;
+
+import java.util.Random;
+
+/**
+ * Bytes on the wire and line time of ModBus vs binary protocol frames at 115200 baud (8N1: 10 bits per byte),
+ * for typical payloads: levels of all frequencies, calibration coefficients and max size data.
+ * <p>
+ * <p> Run as application: java connections.ProtocolThroughputBenchmark [iterations]
+ */
+public class ProtocolThroughputBenchmark {
+
+    private static final int BAUD_RATE = 115200;
+    private static final int BITS_PER_BYTE = 10;
+
+    private static final String[] PAYLOAD_NAMES = {"levels", "calibr coeffs", "max data"};
+    private static final int[] PAYLOAD_SIZES = {16, 64, 512};
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        Protocol[] protocols = {new ModBus(), new BinaryProtocol()};
+
+        System.out.printf("%-16s%-18s%12s%14s%14s%n", "payload", "protocol", "wire bytes", "line time ms", "codec ns/op");
+
+        for (int i = 0; i < PAYLOAD_SIZES.length; i++) {
+            byte[] data = new byte[PAYLOAD_SIZES[i]];
+            new Random(0).nextBytes(data);
+            byte[] packed = new Packet(Command.CHECK_CONNECTION_DEVICE, data).pack();
+
+            for (Protocol protocol : protocols) {
+                int wireLength = protocol.wrap(packed).length;
+
+                measure(protocol, packed, iterations / 10);
+                double nsPerOp = measure(protocol, packed, iterations);
+
+                System.out.printf("%-16s%-18s%12d%14.2f%14.1f%n", PAYLOAD_NAMES[i], protocol, wireLength,
+                        lineTimeMs(wireLength), nsPerOp);
+            }
+        }
+    }
+
+    private static double lineTimeMs(int wireLength) {
+        return 1000.0 * wireLength * BITS_PER_BYTE / BAUD_RATE;
+    }
+
+    private static double measure(Protocol protocol, byte[] packed, int iterations) throws Exception {
+        long startNs = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = protocol.unwrap(protocol.wrap(packed));
+        }
+        return (double) (System.nanoTime() - startNs) / iterations;
+    }
+}
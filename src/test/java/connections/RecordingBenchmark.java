@@ -0,0 +1,95 @@
+package connections;
+
+import packet.Command;
+import packet.Packet;
+
+import java.io.File;
+
+/**
+ * Overhead of recording wire traffic: write + read round trip through fast in-memory connection
+ * without recording (before) and with recording to memory-mapped trace (after).
+ * <p>
+ * <p> Run as application: java connections.RecordingBenchmark [iterations]
+ */
+public class RecordingBenchmark {
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        File traceFile = File.createTempFile("recording", ".trace");
+        traceFile.deleteOnExit();
+
+        final byte[] frame = new ModBus().wrap(new Packet(Command.GET_LEVELS_DEVICE, new byte[16]).pack());
+
+        Connection memory = new MemoryConnection(frame);
+        Connection recording = new RecordingConnection(new MemoryConnection(frame), traceFile);
+        recording.open();
+
+        measure(memory, frame, iterations / 10);
+        measure(recording, frame, iterations / 10);
+
+        System.out.printf("%-24s%14s%n", "connection", "ns/round trip");
+        System.out.printf("%-24s%14.1f%n", "memory", measure(memory, frame, iterations));
+        System.out.printf("%-24s%14.1f%n", "memory + recording", measure(recording, frame, iterations));
+        System.out.printf("trace: %d bytes%n", traceFile.length());
+
+        recording.close();
+    }
+
+    private static double measure(Connection connection, byte[] frame, int iterations) throws Exception {
+        long startNs = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            connection.write(frame);
+            sink = connection.read(0);
+        }
+        return (double) (System.nanoTime() - startNs) / iterations;
+    }
+
+    /**
+     * Connection, which reads the same frame for each write immediately
+     */
+    private static class MemoryConnection implements Connection {
+
+        private final byte[] frame;
+
+        MemoryConnection(byte[] frame) {
+            this.frame = frame;
+        }
+
+        @Override
+        public boolean open() {
+            return true;
+        }
+
+        @Override
+        public byte[] read() {
+            return frame;
+        }
+
+        @Override
+        public byte[] read(long timeoutMs) {
+            return frame;
+        }
+
+        @Override
+        public boolean write(byte[] data) {
+            return true;
+        }
+
+        @Override
+        public boolean close() {
+            return true;
+        }
+
+        @Override
+        public boolean isOpened() {
+            return true;
+        }
+
+        @Override
+        public void setProtocol(Protocol protocol) {
+        }
+    }
+}
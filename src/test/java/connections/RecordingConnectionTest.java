@@ -0,0 +1,117 @@
+package connections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import packet.Command;
+import packet.Packet;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test record and replay of wire traffic
+ */
+public class RecordingConnectionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void youReplayRecordedSession() throws Exception {
+        File trace = folder.newFile("session.trace");
+
+        Packet[] responses = record(trace, 0,
+                new Packet(Command.CHECK_CONNECTION_DEVICE, 123),
+                new Packet(Command.GET_INFO_DEVICE));
+
+        ReplayConnection replay = new ReplayConnection(trace, false);
+        ConnectionManager connectionManager = new ConnectionManager(replay, new ModBus());
+        assertTrue(replay.open());
+        try {
+            assertTrue(connectionManager.sendPacket(new Packet(Command.CHECK_CONNECTION_DEVICE, 123)));
+            assertEquals(responses[0], connectionManager.receivePacket());
+            assertTrue(connectionManager.sendPacket(new Packet(Command.GET_INFO_DEVICE)));
+            assertEquals(responses[1], connectionManager.receivePacket());
+            assertTrue(replay.isFinished());
+        } finally {
+            connectionManager.close();
+            replay.close();
+        }
+    }
+
+    @Test
+    public void youAppendNextSessionToTrace() throws Exception {
+        File trace = folder.newFile("sessions.trace");
+
+        record(trace, 0, new Packet(Command.CHECK_CONNECTION_DEVICE, 1));
+        record(trace, 0, new Packet(Command.CHECK_CONNECTION_STAND, 2));
+
+        ReplayConnection replay = new ReplayConnection(trace, false);
+        ConnectionManager connectionManager = new ConnectionManager(replay, new ModBus());
+        assertTrue(replay.open());
+        try {
+            assertTrue(connectionManager.sendPacket(new Packet(Command.CHECK_CONNECTION_DEVICE, 1)));
+            assertEquals(1, connectionManager.receivePacket().getDataAsInt());
+            assertTrue(connectionManager.sendPacket(new Packet(Command.CHECK_CONNECTION_STAND, 2)));
+            assertEquals(2, connectionManager.receivePacket().getDataAsInt());
+        } finally {
+            connectionManager.close();
+            replay.close();
+        }
+    }
+
+    @Test
+    public void youReplayAtRecordedSpeed() throws Exception {
+        File trace = folder.newFile("slow.trace");
+        record(trace, 50, new Packet(Command.CHECK_CONNECTION_DEVICE, 1));
+
+        ReplayConnection replay = new ReplayConnection(trace, true);
+        ConnectionManager connectionManager = new ConnectionManager(replay, new ModBus());
+        assertTrue(replay.open());
+        try {
+            long startNs = System.nanoTime();
+            assertTrue(connectionManager.sendPacket(new Packet(Command.CHECK_CONNECTION_DEVICE, 1)));
+            connectionManager.receivePacket();
+
+            assertTrue(System.nanoTime() - startNs >= 40000000L);
+        } finally {
+            connectionManager.close();
+            replay.close();
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void youDetectDivergedReplay() throws Exception {
+        File trace = folder.newFile("diverged.trace");
+        record(trace, 0, new Packet(Command.CHECK_CONNECTION_DEVICE, 1));
+
+        ReplayConnection replay = new ReplayConnection(trace, false);
+        assertTrue(replay.open());
+
+        replay.write(new ModBus().wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 2).pack()));
+    }
+
+    private static Packet[] record(File trace, long latencyMs, Packet... requests) throws Exception {
+        SimulatedBench bench = new SimulatedBench(1);
+        bench.setLatencyMs(latencyMs);
+
+        RecordingConnection recording = new RecordingConnection(bench, trace);
+        ConnectionManager connectionManager = new ConnectionManager(recording, new ModBus());
+        assertTrue(recording.open());
+
+        Packet[] responses = new Packet[requests.length];
+        try {
+            for (int i = 0; i < requests.length; i++) {
+                assertTrue(connectionManager.sendPacket(requests[i]));
+                responses[i] = connectionManager.receivePacket();
+            }
+        } finally {
+            connectionManager.close();
+            recording.close();
+        }
+
+        return responses;
+    }
+}
@@ -0,0 +1,166 @@
+package connections;
+
+import exception.InvalidCRC;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import packet.Command;
+import packet.Packet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test simulator of receiver and stand
+ */
+public class SimulatedBenchTest {
+
+    private SimulatedBench bench;
+    private ConnectionManager connectionManager;
+
+    @Before
+    public void setUp() throws Exception {
+        bench = new SimulatedBench(1);
+        bench.setNoise(0);
+        bench.setTransientTimeMs(0);
+
+        connectionManager = new ConnectionManager(bench, new ModBus());
+        assertTrue(connectionManager.getConnection().open());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connectionManager.close();
+        assertTrue(connectionManager.getConnection().close());
+    }
+
+    @Test
+    public void youGetConfirmation() throws Exception {
+        Packet response = request(new Packet(Command.FREQUENCY_DEVICE, 1024));
+
+        assertEquals(Command.FREQUENCY_DEVICE, response.getCommand());
+        assertEquals(0, response.getDataAsByte());
+    }
+
+    @Test
+    public void youGetFailConfirmationOfInvalidValue() throws Exception {
+        Packet response = request(new Packet(Command.FREQUENCY_DEVICE, 1000));
+
+        assertEquals(Command.FREQUENCY_DEVICE, response.getCommand());
+        assertEquals(1, response.getDataAsByte());
+    }
+
+    @Test
+    public void youGetLevelsProportionalToVoltage() throws Exception {
+        request(new Packet(Command.GAIN_DEVICE, 20));
+        request(new Packet(Command.VOLTAGE_STAND, 5000));
+        short[] levels1 = request(new Packet(Command.GET_LEVELS_DEVICE)).getDataAsShortArray();
+
+        request(new Packet(Command.VOLTAGE_STAND, 10000));
+        short[] levels2 = request(new Packet(Command.GET_LEVELS_DEVICE)).getDataAsShortArray();
+
+        assertEquals(BenchModel.CHANNELS_COUNT, levels1.length);
+        for (int i = 0; i < levels1.length; i++) {
+            assertTrue(levels1[i] > 0);
+            assertEquals(2.0 * levels1[i], levels2[i], 2.0);
+        }
+    }
+
+    @Test
+    public void youGetRejectedLevelsOutOfFilterBand() throws Exception {
+        request(new Packet(Command.FREQUENCY_DEVICE, 1024));
+        request(new Packet(Command.FREQUENCY_STAND, 1024));
+        request(new Packet(Command.VOLTAGE_STAND, 10000));
+        short[] inBand = request(new Packet(Command.GET_LEVELS_DEVICE)).getDataAsShortArray();
+
+        request(new Packet(Command.FREQUENCY_STAND, 8192));
+        short[] outOfBand = request(new Packet(Command.GET_LEVELS_DEVICE)).getDataAsShortArray();
+
+        for (int i = 0; i < inBand.length; i++) {
+            assertTrue(outOfBand[i] * 10 < inBand[i]);
+        }
+    }
+
+    @Test
+    public void youGetResponseAfterLatency() throws Exception {
+        bench.setLatencyMs(50);
+
+        long startNs = System.nanoTime();
+        request(new Packet(Command.CHECK_CONNECTION_STAND, 7));
+
+        assertTrue(System.nanoTime() - startNs >= 50000000L);
+    }
+
+    @Test(expected = InvalidCRC.class)
+    public void youGetInjectedCRCError() throws Exception {
+        bench.setFaultRates(0, 1, 0);
+
+        request(new Packet(Command.CHECK_CONNECTION_DEVICE, 7));
+    }
+
+    @Test
+    public void youGetInjectedErrorReply() throws Exception {
+        bench.setFaultRates(0, 0, 1);
+
+        assertEquals(Command.ERROR_STAND, request(new Packet(Command.GET_INFO_STAND)).getCommand());
+    }
+
+    @Test
+    public void youGetResponseOnBinaryProtocol() throws Exception {
+        ConnectionManager binaryManager = new ConnectionManager(bench, new BinaryProtocol());
+        try {
+            assertTrue(binaryManager.sendPacket(new Packet(Command.CHECK_CONNECTION_DEVICE, 7)));
+            assertEquals(7, binaryManager.receivePacket().getDataAsInt());
+        } finally {
+            binaryManager.close();
+        }
+    }
+
+    /**
+     * Test responses to requests in flight of failed transaction aren't taken for response of next request
+     */
+    @Test
+    public void youGetOwnResponseAfterFailedTransaction() throws Exception {
+        SimulatedBench faultyBench = new SimulatedBench(1) {
+            private int writesCount = 0;
+
+            @Override
+            public synchronized boolean write(byte[] data) throws Exception {
+                // Response in the middle of window is broken
+                setFaultRates(0, ++writesCount == 3 ? 1 : 0, 0);
+                return super.write(data);
+            }
+        };
+        faultyBench.setLatencyMs(5);
+
+        ConnectionManager faultyManager = new ConnectionManager(faultyBench, new ModBus());
+        assertTrue(faultyManager.getConnection().open());
+        try {
+            List<Packet> requests = new ArrayList<>();
+            for (int i = 0; i < ConnectionManager.DEFAULT_WINDOW; i++)
+                requests.add(new Packet(Command.GAIN_DEVICE, 20 + 10 * (i % 2)));
+
+            try {
+                faultyManager.transact(requests, ConnectionManager.DEFAULT_WINDOW);
+                fail("Broken CRC is received");
+            } catch (InvalidCRC ignored) {
+            }
+
+            assertTrue(faultyManager.sendPacket(new Packet(Command.GET_GAIN_DEVICE)));
+            Packet response = faultyManager.receivePacket();
+
+            assertEquals(Command.GET_GAIN_DEVICE, response.getCommand());
+            assertEquals(30, response.getDataAsShortArray()[0]);
+        } finally {
+            faultyManager.close();
+            faultyManager.getConnection().close();
+        }
+    }
+
+    private Packet request(Packet packet) throws Exception {
+        assertTrue(connectionManager.sendPacket(packet));
+        return connectionManager.receivePacket();
+    }
+}
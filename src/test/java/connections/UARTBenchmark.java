@@ -0,0 +1,82 @@
+package connections;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import packet.Command;
+import packet.Packet;
+
+import java.util.concurrent.*;
+
+/**
+ * Packet round-trip overhead of UART on loopback fake port:
+ * executor per write (before) vs long-lived I/O thread (after).
+ * <p>
+ * <p> Run as application: java connections.UARTBenchmark [iterations]
+ */
+public class UARTBenchmark {
+
+    private static final ThreadFactory THREAD_FACTORY_WRITER = new ThreadFactoryBuilder().setNameFormat("Writer-%d").setDaemon(true).build();
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+        final FakeSerialPort port = new FakeSerialPort("LOOPBACK");
+        port.setEcho(true);
+
+        final UART uart = new UART(port);
+        uart.open();
+
+        final byte[] frame = new ModBus().wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+
+        RoundTrip executorPerWrite = new RoundTrip() {
+            @Override
+            public void run() throws Exception {
+                // Write path of UART before persistent I/O thread
+                ExecutorService writeExecutor = Executors.newSingleThreadExecutor(THREAD_FACTORY_WRITER);
+                try {
+                    writeExecutor.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            return port.writeBytes(frame);
+                        }
+                    }).get(200, TimeUnit.MILLISECONDS);
+                } finally {
+                    writeExecutor.shutdownNow();
+                }
+                uart.read();
+            }
+        };
+
+        RoundTrip persistentIOThread = new RoundTrip() {
+            @Override
+            public void run() throws Exception {
+                uart.write(frame);
+                uart.read();
+            }
+        };
+
+        // Warm up both paths
+        measure(executorPerWrite, iterations / 10);
+        measure(persistentIOThread, iterations / 10);
+
+        double beforeNs = measure(executorPerWrite, iterations);
+        double afterNs = measure(persistentIOThread, iterations);
+
+        System.out.printf("Packet round trip, executor per write:    %8.1f us/op%n", beforeNs / 1000);
+        System.out.printf("Packet round trip, persistent I/O thread: %8.1f us/op%n", afterNs / 1000);
+        System.out.printf("Overhead reduced by %.1f us per packet%n", (beforeNs - afterNs) / 1000);
+
+        uart.close();
+    }
+
+    private static double measure(RoundTrip roundTrip, int iterations) throws Exception {
+        long startNs = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            roundTrip.run();
+        }
+        return (double) (System.nanoTime() - startNs) / iterations;
+    }
+
+    private interface RoundTrip {
+        void run() throws Exception;
+    }
+}
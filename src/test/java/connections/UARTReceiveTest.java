@@ -0,0 +1,194 @@
+package connections;
+
+import exception.InvalidPacketSize;
+import jssc.SerialPortException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import packet.Command;
+import packet.Packet;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test UART receive engine on fake serial port
+ */
+public class UARTReceiveTest {
+
+    /* Deadline of read, which is far beyond time of receiving frame on any machine */
+    private static final long LONG_DEADLINE_MS = 5000;
+
+    private final Protocol protocol = new ModBus();
+
+    private FakeSerialPort port;
+    private UART uart;
+
+    @Before
+    public void openFakePort() throws Exception {
+        port = new FakeSerialPort("FAKE");
+        uart = new UART(port);
+        assertTrue(uart.open());
+    }
+
+    @After
+    public void closeFakePort() throws Exception {
+        assertTrue(uart.close());
+    }
+
+    @Test
+    public void youReadFrameFedByEvents() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+
+        port.feedLater(frame, 10);
+
+        assertArrayEquals(frame, uart.read());
+    }
+
+    @Test
+    public void youReadFrameFedByParts() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.GET_INFO_DEVICE, new byte[]{1, 2, 3, 4, 5, 6}).pack());
+        int half = frame.length / 2;
+
+        port.feed(Arrays.copyOfRange(frame, 0, half));
+        port.feedLater(Arrays.copyOfRange(frame, half, frame.length), 5);
+
+        assertArrayEquals(frame, uart.read());
+    }
+
+    @Test
+    public void youReadFrameFasterThanPollingDelay() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+
+        long startNs = System.nanoTime();
+        port.feedLater(frame, 1);
+        assertArrayEquals(frame, uart.read(LONG_DEADLINE_MS));
+        long elapsedMs = (System.nanoTime() - startNs) / 1000000;
+
+        // Frame is returned, when it is received, not at deadline of read
+        assertTrue("Read took " + elapsedMs + " ms", elapsedMs < LONG_DEADLINE_MS / 2);
+    }
+
+    @Test
+    public void youReadFrameRightAfterEndOfFrame() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+
+        port.feed(frame);
+
+        long startNs = System.nanoTime();
+        assertArrayEquals(frame, uart.read(LONG_DEADLINE_MS));
+        long elapsedMs = (System.nanoTime() - startNs) / 1000000;
+
+        // End of frame completes read, it doesn't wait for more bytes until deadline
+        assertTrue("Read took " + elapsedMs + " ms", elapsedMs < LONG_DEADLINE_MS / 2);
+    }
+
+    @Test
+    public void youReadJoinedFramesOneByOne() throws Exception {
+        byte[] frame1 = protocol.wrap(new Packet(Command.FREQUENCY_DEVICE, new byte[]{0}).pack());
+        byte[] frame2 = protocol.wrap(new Packet(Command.GAIN_DEVICE, new byte[]{1}).pack());
+
+        byte[] joined = Arrays.copyOf(frame1, frame1.length + frame2.length);
+        System.arraycopy(frame2, 0, joined, frame1.length, frame2.length);
+        port.feed(joined);
+
+        assertArrayEquals(frame1, uart.read());
+        assertArrayEquals(frame2, uart.read());
+    }
+
+    @Test
+    public void youReadFrameAfterGarbage() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+
+        port.feed(new byte[]{0x00, 0x2E, 0x3A, 0x31, 0x32});
+        port.feed(frame);
+
+        assertArrayEquals(frame, uart.read());
+    }
+
+    @Test
+    public void youKeepFrameOnOverflowOfBuffer() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+        byte[] maxFrame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, new byte[512]).pack());
+
+        // Frame isn't taken yet, while garbage longer than buffer is received
+        port.feed(new byte[]{0x00, 0x2E});
+        port.feed(frame);
+        port.feed(new byte[3 * maxFrame.length]);
+
+        assertArrayEquals(frame, uart.read(LONG_DEADLINE_MS));
+    }
+
+    @Test
+    public void youReadFrameWithSplitEndOfFrame() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+
+        port.feed(Arrays.copyOf(frame, frame.length - 1));
+        port.feedLater(Arrays.copyOfRange(frame, frame.length - 1, frame.length), 5);
+
+        assertArrayEquals(frame, uart.read());
+    }
+
+    @Test(expected = InvalidPacketSize.class)
+    public void youReadNothing() throws Exception {
+        uart.read();
+    }
+
+    @Test
+    public void youReadIncompleteFrameUntilDeadline() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+        port.feed(Arrays.copyOf(frame, frame.length - 2));
+
+        long startNs = System.nanoTime();
+        assertArrayEquals(Arrays.copyOf(frame, frame.length - 2), uart.read(50));
+        long elapsedMs = (System.nanoTime() - startNs) / 1000000;
+
+        // Incomplete frame isn't returned before deadline
+        assertTrue("Read took " + elapsedMs + " ms", elapsedMs >= 50);
+    }
+
+    @Test
+    public void youWriteWithSameIOThread() throws Exception {
+        final byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+
+        int threadsBefore = Thread.activeCount();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(uart.write(frame));
+        }
+
+        assertTrue(Thread.activeCount() <= threadsBefore + 1);
+    }
+
+    @Test(expected = SerialPortException.class)
+    public void youWriteToClosedPort() throws Exception {
+        uart.close();
+        uart.write(new byte[]{1});
+    }
+
+    @Test
+    public void youDontSendFrameAfterWriteTimeout() throws Exception {
+        byte[] staleFrame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 4321).pack());
+
+        port.setWriteDelayMs(1000);
+        try {
+            uart.write(staleFrame);
+            fail("Write must be timed out");
+        } catch (TimeoutException ignored) {
+        }
+
+        port.setWriteDelayMs(0);
+        assertTrue(uart.write(frame));
+        assertArrayEquals(frame, port.getWrittenBytes());
+    }
+
+    @Test
+    public void youWriteToPort() throws Exception {
+        byte[] frame = protocol.wrap(new Packet(Command.CHECK_CONNECTION_DEVICE, 1234).pack());
+
+        assertTrue(uart.write(frame));
+        assertArrayEquals(frame, port.getWrittenBytes());
+    }
+}
@@ -51,12 +51,14 @@ public class UARTTest {
                 }
             }).when(mockUART).write(any(byte[].class));
 
-            when(mockUART.read()).thenAnswer(new Answer<byte[]>() {
+            Answer<byte[]> readAnswer = new Answer<byte[]>() {
                 @Override
                 public byte[] answer(InvocationOnMock invocation) throws Throwable {
                     return mockData;
                 }
-            });
+            };
+            when(mockUART.read()).thenAnswer(readAnswer);
+            when(mockUART.read(anyLong())).thenAnswer(readAnswer);
         } catch (Exception ignored) {
         }
 
@@ -0,0 +1,131 @@
+package model;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import connections.Connection;
+import connections.ConnectionManager;
+import connections.ModBus;
+import connections.Protocol;
+import exception.FailReceivePacket;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static packet.Command.*;
+
+/**
+ * Test asynchronous API of device on loopback connection
+ */
+public class DeviceAsyncTest {
+
+    private LoopbackConnection connection;
+    private ConnectionManager CM;
+    private Receiver receiver;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new LoopbackConnection();
+        CM = new ConnectionManager(connection, new ModBus());
+        receiver = new Receiver(null, CM);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CM.close();
+    }
+
+    @Test
+    public void youGetIntegerAsync() throws Exception {
+        ListenableFuture<Integer> future = receiver.getIntegerAsync(CHECK_CONNECTION_DEVICE, 12345);
+
+        assertEquals(12345, (int) future.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void youOverlapAsyncOperations() throws Exception {
+        ListenableFuture<Void> gain = receiver.setAsync(GAIN_DEVICE, 20);
+        ListenableFuture<Integer> check = receiver.getIntegerAsync(CHECK_CONNECTION_DEVICE, 42);
+
+        List<Object> results = Futures.allAsList(Arrays.<ListenableFuture<?>>asList(gain, check)).get(1, TimeUnit.SECONDS);
+
+        assertNull(results.get(0));
+        assertEquals(42, results.get(1));
+    }
+
+    @Test
+    public void youGetFailureOfAsyncOperation() throws Exception {
+        connection.setBroken(true);
+
+        try {
+            receiver.getArrayAsync(GET_LEVELS_DEVICE).get(1, TimeUnit.SECONDS);
+            fail("Operation on broken connection is completed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof FailReceivePacket);
+        }
+    }
+
+    @Test(expected = FailReceivePacket.class)
+    public void youGetFailureOfBlockingOperationAsIs() throws Exception {
+        connection.setBroken(true);
+
+        receiver.getArray(GET_LEVELS_DEVICE);
+    }
+
+    /**
+     * Connection which reads all written frames back
+     */
+    private static class LoopbackConnection implements Connection {
+
+        private final BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>();
+        private volatile boolean broken = false;
+
+        void setBroken(boolean broken) {
+            this.broken = broken;
+        }
+
+        @Override
+        public boolean open() {
+            return true;
+        }
+
+        @Override
+        public byte[] read() throws Exception {
+            return read(1000);
+        }
+
+        @Override
+        public byte[] read(long timeoutMs) throws Exception {
+            byte[] frame = frames.poll(timeoutMs, TimeUnit.MILLISECONDS);
+            if (broken || frame == null)
+                throw new Exception("No frame has been read");
+            return frame;
+        }
+
+        @Override
+        public boolean write(byte[] data) {
+            return frames.add(data);
+        }
+
+        @Override
+        public boolean close() {
+            return true;
+        }
+
+        @Override
+        public boolean isOpened() {
+            return true;
+        }
+
+        @Override
+        public void setProtocol(Protocol protocol) {
+        }
+    }
+}
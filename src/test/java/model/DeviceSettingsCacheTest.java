@@ -0,0 +1,105 @@
+package model;
+
+import connections.CommandMetrics;
+import connections.ConnectionManager;
+import connections.ModBus;
+import connections.SimulatedBench;
+import exception.FailSendPacket;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import packet.Packet;
+
+import static org.junit.Assert.*;
+import static packet.Command.*;
+
+/**
+ * Test cache of device settings: repeated set of the same value isn't sent to device
+ */
+public class DeviceSettingsCacheTest {
+
+    private SimulatedBench bench;
+    private ConnectionManager CM;
+    private Receiver receiver;
+
+    @Before
+    public void setUp() throws Exception {
+        bench = new SimulatedBench(1);
+        CM = new ConnectionManager(bench, new ModBus());
+        CM.getConnection().open();
+        receiver = new Receiver(null, CM);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CM.close();
+        CM.getConnection().close();
+    }
+
+    @Test
+    public void youSkipSetOfSameValue() throws Exception {
+        receiver.set(GAIN_DEVICE, 20);
+        receiver.set(GAIN_DEVICE, 20);
+        assertEquals(1, bench.getRequestsCount());
+
+        receiver.set(GAIN_DEVICE, 30);
+        assertEquals(2, bench.getRequestsCount());
+        assertEquals(1, getCachedSettings());
+    }
+
+    @Test
+    public void youDontCacheNotSettings() throws Exception {
+        receiver.set(SOUND_DEVICE, 1);
+        receiver.set(SOUND_DEVICE, 1);
+
+        assertEquals(2, bench.getRequestsCount());
+    }
+
+    @Test
+    public void youSkipSetAllOfSameValues() throws Exception {
+        receiver.setAll(new Packet(FREQUENCY_DEVICE, 1024), new Packet(GAIN_DEVICE, 20));
+        receiver.setAll(new Packet(FREQUENCY_DEVICE, 1024), new Packet(GAIN_DEVICE, 20));
+
+        assertEquals(2, bench.getRequestsCount());
+        assertEquals(2, getCachedSettings());
+    }
+
+    @Test
+    public void youSetLastValueOfSequence() throws Exception {
+        receiver.set(GAIN_DEVICE, 20);
+        receiver.setAll(new Packet(GAIN_DEVICE, 10), new Packet(GAIN_DEVICE, 20));
+
+        assertEquals(3, bench.getRequestsCount());
+        assertEquals(20, receiver.getArray(GET_GAIN_DEVICE)[0]);
+    }
+
+    @Test
+    public void youSendSetAfterInvalidate() throws Exception {
+        receiver.set(GAIN_DEVICE, 20);
+        receiver.invalidateSettings();
+        receiver.set(GAIN_DEVICE, 20);
+
+        assertEquals(2, bench.getRequestsCount());
+    }
+
+    @Test
+    public void youSendSetAfterFailure() throws Exception {
+        receiver.set(GAIN_DEVICE, 20);
+        try {
+            receiver.set(FREQUENCY_DEVICE, 1000);
+            fail("Invalid frequency is confirmed");
+        } catch (FailSendPacket ignored) {
+        }
+        receiver.set(GAIN_DEVICE, 20);
+
+        assertEquals(3, bench.getRequestsCount());
+    }
+
+    private long getCachedSettings() {
+        long count = 0;
+        for (CommandMetrics.Snapshot snapshot : CM.getMetrics().getSnapshots()) {
+            count += snapshot.getCachedSettings();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,83 @@
+package model;
+
+import connections.ConnectionManager;
+import connections.ModBus;
+import connections.SimulatedBench;
+import model.tests.FrequencySweep;
+import model.tests.SettleDetector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static packet.Command.*;
+
+/**
+ * Test frequency sweep on simulator of receiver and stand
+ */
+public class FrequencySweepTest {
+
+    private static final int FREQUENCY = 512;
+    private static final int GAIN = 20;
+    private static final double LEVEL_PRT = 93.0;
+
+    private SimulatedBench bench;
+    private ConnectionManager CM;
+    private Receiver receiver;
+    private Stand stand;
+
+    @Before
+    public void setUp() throws Exception {
+        bench = new SimulatedBench(1);
+        bench.setNoise(0);
+        bench.setTransientTimeMs(0);
+        CM = new ConnectionManager(bench, new ModBus());
+        CM.getConnection().open();
+        receiver = new Receiver(null, CM);
+        stand = new Stand(null, CM);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CM.close();
+        CM.getConnection().close();
+    }
+
+    /**
+     * Test log grid has both bounds and no repeated frequencies
+     */
+    @Test
+    public void youGetLogGrid() throws Exception {
+        assertArrayEquals(new int[]{100, 1000}, FrequencySweep.logGrid(100, 1000, 1));
+        assertArrayEquals(new int[]{10, 22, 46, 100}, FrequencySweep.logGrid(10, 100, 3));
+        assertArrayEquals(new int[]{1, 2, 3}, FrequencySweep.logGrid(1, 3, 100));
+        assertArrayEquals(new int[]{512}, FrequencySweep.logGrid(512, 512, 10));
+    }
+
+    /**
+     * Test curve has maximum on frequency of receiver filter
+     */
+    @Test
+    public void youSweepResponseOfFilter() throws Exception {
+        receiver.set(FREQUENCY_DEVICE, FREQUENCY);
+        receiver.set(GAIN_DEVICE, GAIN);
+        stand.set(VOLTAGE_STAND, stand.calcVoltage(LEVEL_PRT, GAIN, FREQUENCY));
+
+        int[] frequencies = FrequencySweep.logGrid(100, 8192, 8);
+        ResponseCurve curve = new FrequencySweep(new SettleDetector(), 4).run(receiver, stand, frequencies, FREQUENCY, GAIN, 4);
+
+        assertEquals(frequencies.length, curve.getPointsCount());
+        assertEquals(4, curve.getChannelsCount());
+
+        int peak = 0;
+        for (int point = 1; point < curve.getPointsCount(); point++) {
+            if (curve.getLevel(point, 0) > curve.getLevel(peak, 0))
+                peak = point;
+        }
+        assertTrue(Math.abs(Math.log((double) curve.getFrequency(peak) / FREQUENCY)) < Math.log(10) / 16);
+        assertTrue(curve.getLevel(0, 0) < curve.getLevel(peak, 0) / 2);
+        assertEquals(peak, curve.indexOf(curve.getFrequency(peak)));
+
+        assertEquals(curve, ResponseCurve.fromBytes(curve.toBytes()));
+    }
+}
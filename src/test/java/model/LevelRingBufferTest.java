@@ -0,0 +1,155 @@
+package model;
+
+import connections.ConnectionManager;
+import connections.ModBus;
+import connections.SimulatedBench;
+import org.junit.Test;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static packet.Command.*;
+
+/**
+ * Test ring buffer of level snapshots and streaming of receiver to it
+ */
+public class LevelRingBufferTest {
+
+    /**
+     * Test snapshots are read in order of publication and the oldest of them are overwritten
+     */
+    @Test
+    public void youReadTheLatestSnapshots() throws Exception {
+        LevelRingBuffer ring = new LevelRingBuffer(3, 2);
+        assertEquals(4, ring.getCapacity());
+        assertEquals(-1, ring.getSequence());
+
+        for (short i = 0; i < 6; i++)
+            ring.publish(100 + i, ShortBuffer.wrap(new short[]{i, (short) (10 * i), 1000}));
+
+        assertEquals(5, ring.getSequence());
+
+        long[] timestamps = new long[8];
+        short[] levels = new short[16];
+        assertEquals("Overwritten snapshots are skipped", 4, ring.read(0, timestamps, levels));
+        assertArrayEquals(new long[]{102, 103, 104, 105}, Arrays.copyOf(timestamps, 4));
+        assertArrayEquals(new short[]{2, 20, 3, 30, 4, 40, 5, 50}, Arrays.copyOf(levels, 8));
+
+        timestamps = new long[2];
+        levels = new short[4];
+        assertEquals(2, ring.readLatest(timestamps, levels));
+        assertArrayEquals(new long[]{104, 105}, timestamps);
+        assertArrayEquals(new short[]{4, 40, 5, 50}, levels);
+
+        ring.publish(106, ShortBuffer.wrap(new short[]{6}));
+        assertEquals(1, ring.read(6, timestamps, levels));
+        assertEquals(6, levels[0]);
+        assertEquals("Missing value of snapshot is 0", 0, levels[1]);
+
+        assertArrayEquals("Snapshot has its own count of values", new short[]{6}, ring.read(6));
+        assertArrayEquals(new short[]{5, 50}, ring.read(5));
+        assertNull("Overwritten snapshot", ring.read(2));
+        assertNull("Unpublished snapshot", ring.read(7));
+    }
+
+    /**
+     * Test receiver publishes snapshots in background until streaming is stopped
+     */
+    @Test
+    public void youStreamLevelsOfReceiver() throws Exception {
+        SimulatedBench bench = new SimulatedBench(1);
+        ConnectionManager CM = new ConnectionManager(bench, new ModBus());
+        CM.getConnection().open();
+        try {
+            Receiver receiver = new Receiver(null, CM);
+            receiver.set(FREQUENCY_DEVICE, 512);
+
+            LevelRingBuffer stream = receiver.startStreaming(GET_LEVELS_DEVICE, 5);
+            assertTrue(receiver.isStreaming());
+            assertSame(stream, receiver.getStream());
+
+            long deadlineMs = System.currentTimeMillis() + 5000;
+            while (stream.getSequence() < 4 && System.currentTimeMillis() < deadlineMs)
+                Thread.sleep(5);
+
+            receiver.stopStreaming();
+            assertFalse(receiver.isStreaming());
+            assertNull(receiver.getStream());
+            assertEquals(0, stream.getFailedCount());
+
+            long sequence = stream.getSequence();
+            long requestsCount = bench.getRequestsCount();
+            assertTrue(sequence >= 4);
+
+            long[] timestamps = new long[4];
+            short[] levels = new short[4 * stream.getChannelsCount()];
+            assertEquals(4, stream.readLatest(timestamps, levels));
+            for (int i = 1; i < timestamps.length; i++)
+                assertTrue(timestamps[i] >= timestamps[i - 1]);
+
+            // Link is free for exclusive requests after streaming is stopped
+            Thread.sleep(20);
+            assertEquals(sequence, stream.getSequence());
+            assertEquals(requestsCount, bench.getRequestsCount());
+            receiver.getShortBuffer(GET_LEVELS_DEVICE);
+            assertEquals(requestsCount + 1, bench.getRequestsCount());
+        } finally {
+            CM.close();
+            CM.getConnection().close();
+        }
+    }
+
+    /**
+     * Test restarted streaming publishes to new stream, while the previous one stops,
+     * and invalid period doesn't leave streaming
+     */
+    @Test
+    public void youRestartStreaming() throws Exception {
+        SimulatedBench bench = new SimulatedBench(1);
+        ConnectionManager CM = new ConnectionManager(bench, new ModBus());
+        CM.getConnection().open();
+        try {
+            Receiver receiver = new Receiver(null, CM);
+
+            LevelRingBuffer first = receiver.startStreaming(GET_LEVELS_DEVICE, 5);
+            awaitSequence(first, 2);
+            assertSame(first, receiver.getStream(GET_LEVELS_DEVICE));
+            assertNull("Other command isn't streamed", receiver.getStream(GET_MAGNITUDES_DEVICE));
+
+            LevelRingBuffer second = receiver.startStreaming(GET_LEVELS_DEVICE, 5);
+            assertNotSame(first, second);
+            long firstSequence = first.getSequence();
+
+            awaitSequence(second, 2);
+            assertEquals("Previous stream is stopped", firstSequence, first.getSequence());
+
+            receiver.stopStreaming();
+            assertNull(receiver.getStream(GET_LEVELS_DEVICE));
+
+            try {
+                receiver.startStreaming(GET_LEVELS_DEVICE, 0);
+                fail("Period must be positive");
+            } catch (IllegalArgumentException e) {
+                assertFalse(receiver.isStreaming());
+            }
+
+            LevelRingBuffer third = receiver.startStreaming(GET_LEVELS_DEVICE, 5);
+            awaitSequence(third, 2);
+            receiver.stopStreaming();
+
+            assertEquals(0, first.getFailedCount() + second.getFailedCount() + third.getFailedCount());
+        } finally {
+            CM.close();
+            CM.getConnection().close();
+        }
+    }
+
+    private static void awaitSequence(LevelRingBuffer stream, long sequence) throws InterruptedException {
+        long deadlineMs = System.currentTimeMillis() + 5000;
+        while (stream.getSequence() < sequence && System.currentTimeMillis() < deadlineMs)
+            Thread.sleep(5);
+
+        assertTrue(stream.getSequence() >= sequence);
+    }
+}
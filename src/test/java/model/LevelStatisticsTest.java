@@ -0,0 +1,90 @@
+package model;
+
+import connections.ConnectionManager;
+import connections.ModBus;
+import connections.SimulatedBench;
+import org.junit.Test;
+
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.*;
+import static packet.Command.*;
+
+/**
+ * Test statistics of burst of level snapshots
+ */
+public class LevelStatisticsTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Test outlier doesn't change mean, but median is calculated from all values
+     */
+    @Test
+    public void youRejectOutliers() throws Exception {
+        LevelStatistics statistics = new LevelStatistics(
+                ShortBuffer.wrap(new short[]{500, 100}),
+                ShortBuffer.wrap(new short[]{502, 100}),
+                ShortBuffer.wrap(new short[]{501, 100}),
+                ShortBuffer.wrap(new short[]{1023, 101}),
+                ShortBuffer.wrap(new short[]{499, 100}));
+
+        assertEquals(5, statistics.getSamplesCount());
+        assertEquals(2, statistics.getChannelsCount());
+
+        assertEquals(501, statistics.getMedian(0), DELTA);
+        assertEquals(500.5, statistics.getMean(0), DELTA);
+        assertEquals(1, statistics.getRejectedCount(0));
+        assertTrue(statistics.getSpread(0) < 2);
+
+        // Value next to median isn't outlier, even if all others are equal
+        assertEquals(100.2, statistics.getMean(1), DELTA);
+        assertEquals(0, statistics.getRejectedCount(1));
+
+        assertArrayEquals(new short[]{501, 100}, statistics.getMeanLevels());
+    }
+
+    /**
+     * Test count of channels is the least count of levels in snapshots
+     */
+    @Test
+    public void youReduceOnlyCommonChannels() throws Exception {
+        LevelStatistics statistics = new LevelStatistics(
+                ShortBuffer.wrap(new short[]{10, 20, 30}),
+                ShortBuffer.wrap(new short[]{12, 22}));
+
+        assertEquals(2, statistics.getChannelsCount());
+        assertEquals(11, statistics.getMedian(0), DELTA);
+        assertEquals(21, statistics.getMean(1), DELTA);
+    }
+
+    /**
+     * Test burst of snapshots is taken from receiver by pipelined requests
+     */
+    @Test
+    public void youSampleLevelsOfReceiver() throws Exception {
+        SimulatedBench bench = new SimulatedBench(1);
+        ConnectionManager CM = new ConnectionManager(bench, new ModBus());
+        CM.getConnection().open();
+        try {
+            Receiver receiver = new Receiver(null, CM);
+            Stand stand = new Stand(null, CM);
+            receiver.set(FREQUENCY_DEVICE, 512);
+            receiver.set(GAIN_DEVICE, 20);
+            stand.set(FREQUENCY_STAND, 512);
+            stand.set(VOLTAGE_STAND, 1000);
+
+            long requestsCount = bench.getRequestsCount();
+            LevelStatistics statistics = receiver.sampleLevels(8);
+
+            assertEquals(8, bench.getRequestsCount() - requestsCount);
+            assertEquals(8, statistics.getSamplesCount());
+            assertTrue(statistics.getChannelsCount() >= 4);
+            for (int channel = 0; channel < statistics.getChannelsCount(); channel++)
+                assertTrue(statistics.getMean(channel) >= 0 && statistics.getMean(channel) <= Receiver.MAX_LEVEL);
+        } finally {
+            CM.close();
+            CM.getConnection().close();
+        }
+    }
+}
@@ -11,7 +11,9 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.TreeMap;
 
 import static model.tests.BaseTestCase.*;
 
@@ -156,6 +158,51 @@ public class ManagerDBTest {
         assertArrayEquals(currentCoeffs, (Object[]) rs.getObject(2));
     }
 
+    @Test
+    public void testInsertStandTransferToTable() throws Exception {
+        managerDB.connect(MOCK_URL);
+
+        StandTransfer transfer = new StandTransfer();
+        transfer.put(512, 20, 22.1);
+        transfer.put(512, 10, 21.9);
+        transfer.put(32768, 20, 22.6);
+
+        assertEquals(3, managerDB.insert(1, transfer));
+        assertTrue(managerDB.selectStandTransfer(2).isEmpty());
+        assertEquals(transfer.getPoints().toString(), managerDB.selectStandTransfer(1).getPoints().toString());
+
+        // New characteristic replaces old one
+        StandTransfer newTransfer = new StandTransfer();
+        newTransfer.put(1024, 20, 22.4);
+
+        assertEquals(1, managerDB.insert(1, newTransfer));
+        assertEquals(newTransfer.getPoints().toString(), managerDB.selectStandTransfer(1).getPoints().toString());
+    }
+
+    @Test
+    public void testInsertResponseCurvesToTable() throws Exception {
+        managerDB.connect(MOCK_URL);
+        insertReceiverRow();
+
+        ResponseCurve curve = new ResponseCurve(new int[]{100, 512, 1024}, 2);
+        curve.setLevels(0, new short[]{12, 14});
+        curve.setLevels(1, new short[]{1000, 998});
+        curve.setLevels(2, new short[]{30, 31});
+
+        Map<Integer, ResponseCurve> curves = new TreeMap<>();
+        curves.put(9, curve);
+        curves.put(10, new ResponseCurve(new int[]{50}, 4));
+
+        assertEquals(2, managerDB.insert(RECEIVER_ID, curves));
+        assertEquals(curves, managerDB.selectResponseCurves(RECEIVER_ID));
+        assertTrue(managerDB.selectResponseCurves(RECEIVER_ID + 1).isEmpty());
+
+        // New curves replace old ones
+        curves.remove(10);
+        assertEquals(1, managerDB.insert(RECEIVER_ID, curves));
+        assertEquals(curves, managerDB.selectResponseCurves(RECEIVER_ID));
+    }
+
     @Test
     public void testSelectFromTable() throws Exception {
         managerDB.connect(MOCK_URL);
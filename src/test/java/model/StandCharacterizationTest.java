@@ -0,0 +1,101 @@
+package model;
+
+import connections.ConnectionManager;
+import connections.ModBus;
+import connections.SimulatedBench;
+import model.tests.StandCharacterization;
+import model.tests.TestManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import packet.Packet;
+
+import static model.Receiver.MAX_LEVEL;
+import static org.junit.Assert.*;
+import static packet.Command.*;
+
+/**
+ * Test characterization of stand on simulator of receiver and uncalibrated stand
+ */
+public class StandCharacterizationTest {
+
+    private static final double STAND_OUTPUT_ERROR_DB = 4.0;
+
+    private SimulatedBench bench;
+    private ConnectionManager CM;
+    private Receiver receiver;
+    private Stand stand;
+    private StandCharacterization characterization;
+
+    @Before
+    public void setUp() throws Exception {
+        bench = new SimulatedBench(1);
+        bench.setTransientTimeMs(0);
+        bench.setStandOutputError(STAND_OUTPUT_ERROR_DB);
+
+        CM = new ConnectionManager(bench, new ModBus());
+        CM.getConnection().open();
+        receiver = new Receiver(null, CM);
+        stand = new Stand(null, CM);
+
+        TestManager testManager = new TestManager(null, null);
+        testManager.fillTestList();
+        characterization = new StandCharacterization(testManager.getTestList());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CM.close();
+        CM.getConnection().close();
+    }
+
+    @Test
+    public void youMeasureCascadeGainOfStand() throws Exception {
+        StandTransfer transfer = characterization.run(receiver, stand);
+
+        assertSame(transfer, stand.getTransfer());
+        assertEquals(22.0 + STAND_OUTPUT_ERROR_DB, transfer.getCascadeGain(512, 20), 0.3);
+        assertEquals(22.5 + STAND_OUTPUT_ERROR_DB, transfer.getCascadeGain(32768, 10), 0.3);
+    }
+
+    @Test
+    public void youSetLevelByFirstVoltage() throws Exception {
+        characterization.run(receiver, stand);
+
+        receiver.setAll(
+                new Packet(FREQUENCY_DEVICE, 1024),
+                new Packet(GAIN_DEVICE, 20));
+        stand.setAll(
+                new Packet(FREQUENCY_STAND, 1024),
+                new Packet(VOLTAGE_STAND, stand.calcVoltage(97.5, 20, 1024)));
+
+        short[] levels = receiver.getArray(GET_LEVELS_DEVICE);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(97.5, levels[i] * 100.0 / MAX_LEVEL, 2.5);
+        }
+    }
+
+    @Test
+    public void youKeepPreviousTransferIfMeasurementFails() throws Exception {
+        StandTransfer previousTransfer = new StandTransfer();
+        previousTransfer.put(512, 20, 25.0);
+        stand.setTransfer(previousTransfer);
+
+        // Level of receiver is below noise for any voltage
+        bench.setStandOutputError(-200.0);
+
+        try {
+            characterization.run(receiver, stand);
+            fail("Characterization of stand without signal is passed");
+        } catch (Exception e) {
+            assertSame(previousTransfer, stand.getTransfer());
+        }
+
+        // Stand doesn't stay at the last voltage of measurement
+        bench.setStandOutputError(0.0);
+        short[] levels = receiver.getArray(GET_LEVELS_DEVICE);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, levels[i]);
+        }
+    }
+}
@@ -58,7 +58,7 @@ public class StandTest {
         Stand stand = new Stand(controller, CM);
         Receiver receiver = new Receiver(controller, CM);
 
-        new TestManager(controller);
+        new TestManager(controller, null);
 
         for (int i = 40; i < 33000; i += 1) {
             stand.set(Command.FREQUENCY_STAND, i);
@@ -0,0 +1,59 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test transfer characteristic of stand
+ */
+public class StandTransferTest {
+
+    private StandTransfer transfer = new StandTransfer();
+
+    @Test
+    public void youGetNullForNotCharacterizedFrequency() throws Exception {
+        assertTrue(transfer.isEmpty());
+        assertNull(transfer.getCascadeGain(512, 20));
+
+        transfer.put(1024, 20, 22.1);
+        assertNull(transfer.getCascadeGain(512, 20));
+    }
+
+    @Test
+    public void youGetCascadeGainOfNearestGain() throws Exception {
+        transfer.put(512, 10, 21.0);
+        transfer.put(512, 20, 22.0);
+
+        assertEquals(21.0, transfer.getCascadeGain(512, 0), 0);
+        assertEquals(21.0, transfer.getCascadeGain(512, 15), 0);
+        assertEquals(22.0, transfer.getCascadeGain(512, 16), 0);
+        assertEquals(22.0, transfer.getCascadeGain(512, 20), 0);
+        assertEquals(22.0, transfer.getCascadeGain(512, 60), 0);
+    }
+
+    @Test
+    public void youGetPointsOrderedByFrequencyAndGain() throws Exception {
+        transfer.put(1024, 10, 22.3);
+        transfer.put(512, 20, 22.2);
+        transfer.put(512, 10, 22.1);
+
+        assertEquals(3, transfer.getPoints().size());
+        assertEquals(512, transfer.getPoints().get(0).getFrequency());
+        assertEquals(10, transfer.getPoints().get(0).getGain());
+        assertEquals(22.2, transfer.getPoints().get(1).getCascadeGain(), 0);
+        assertEquals(1024, transfer.getPoints().get(2).getFrequency());
+    }
+
+    @Test
+    public void youCalculateVoltageByTransfer() throws Exception {
+        Stand stand = new Stand(null, null);
+        int nominalVoltage = stand.calcVoltage(50.0, 20, 512);
+
+        transfer.put(512, 20, 28.0);
+        stand.setTransfer(transfer);
+
+        assertEquals(nominalVoltage / Math.pow(10, 6.0 / 20), stand.calcVoltage(50.0, 20, 512), 1);
+        assertEquals(28.0, stand.calcCascadeGain(50.0, 20, stand.calcVoltage(50.0, 20, 512)), 0.01);
+    }
+}
@@ -0,0 +1,228 @@
+package model;
+
+import connections.BinaryProtocol;
+import connections.Connection;
+import connections.ModBus;
+import connections.RecordingConnection;
+import connections.SimulatedBench;
+import connections.UART;
+import model.tests.BaseTestCase;
+import model.tests.TestContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import packet.Command;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test multi-station mode on simulators of benches
+ */
+public class StationsTest {
+
+    private Model model;
+
+    @Before
+    public void setUp() throws Exception {
+        model = new Model(ModelTest.createMockController());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        model.disconnectFromDevice();
+    }
+
+    /**
+     * Test each station has its own connection and devices
+     */
+    @Test
+    public void youAddStationsWithOwnDevices() throws Exception {
+        SimulatedBench bench = new SimulatedBench(1);
+
+        Station first = model.addStation("B", bench, new ModBus());
+        Station second = model.addStation("A", new SimulatedBench(2), new ModBus());
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertTrue(first.isConnected());
+        assertTrue(second.isConnected());
+        assertNotSame(first.getReceiver(), second.getReceiver());
+        assertNotSame(first.getStand(), second.getStand());
+        assertEquals(Arrays.asList(second, first), model.getStations());
+
+        assertNull("Name of station is unique", model.addStation("B", new SimulatedBench(3), new ModBus()));
+        assertNull("Connection is used by one station", model.addStation("C", bench, new ModBus()));
+
+        model.removeStation("B");
+        assertEquals(Arrays.asList(second), model.getStations());
+        assertFalse(first.isConnected());
+    }
+
+    /**
+     * Test stations, which are added at the same time by one connection, don't both get it
+     */
+    @Test
+    public void youAddTheOnlyStationByConnectionConcurrently() throws Exception {
+        final SimulatedBench bench = new SimulatedBench(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Station>> results = new ArrayList<>();
+            for (final String name : Arrays.asList("A", "B")) {
+                results.add(executor.submit(new Callable<Station>() {
+                    @Override
+                    public Station call() throws Exception {
+                        return model.addStation(name, bench, new ModBus());
+                    }
+                }));
+            }
+
+            int added = 0;
+            for (Future<Station> result : results) {
+                if (result.get() != null)
+                    added++;
+            }
+            assertEquals(1, added);
+            assertEquals(1, model.getStations().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test main station doesn't take connection of additional station
+     */
+    @Test
+    public void youDontConnectMainStationByConnectionOfStation() throws Exception {
+        SimulatedBench bench = new SimulatedBench(1);
+        Station additional = model.addStation("A", bench, new ModBus());
+
+        model.connectToDevice(bench, new ModBus());
+        assertFalse(model.getStation().isConnected());
+        assertTrue(additional.isConnected());
+
+        SimulatedBench mainBench = new SimulatedBench(2);
+        model.connectToDevice(mainBench, new ModBus());
+        assertTrue(model.getStation().isConnected());
+        assertNull(model.addStation("B", mainBench, new ModBus()));
+    }
+
+    /**
+     * Test receiver and stand of station are connected by separate connections of the same bench
+     */
+    @Test
+    public void youPassAllTestCasesWithSeparateConnections() throws Exception {
+        SimulatedBench receiverPort = new SimulatedBench(1);
+        SimulatedBench standPort = receiverPort.createPort();
+
+        Station station = model.addStation("A", receiverPort, standPort, new ModBus());
+
+        assertNotNull(station);
+        assertTrue(station.isConnected());
+        assertNotSame(station.getReceiver().getMetrics(), station.getStand().getMetrics());
+
+        TestContext context = new TestContext();
+        for (BaseTestCase testCase : station.getTestManager().getTestList())
+            testCase.runTest(station.getReceiver(), station.getStand(), context);
+
+        assertTrue(receiverPort.getRequestsCount() > 0);
+        assertTrue(standPort.getRequestsCount() > 0);
+
+        // Curves of test cases are kept by context of testing, not by test cases shared by stations
+        assertEquals(6, context.getResponseCurves().size());
+        assertTrue(new TestContext().getResponseCurves().isEmpty());
+    }
+
+    /**
+     * Test receiver and stand of station talk different protocols by their own connections
+     */
+    @Test
+    public void youConnectDevicesWithOwnProtocols() throws Exception {
+        SimulatedBench receiverPort = new SimulatedBench(1);
+        SimulatedBench standPort = receiverPort.createPort();
+
+        Station station = model.addStation("A", receiverPort, standPort, new BinaryProtocol(), new ModBus());
+
+        assertNotNull(station);
+        assertTrue(station.isConnected());
+        station.getReceiver().set(Command.GAIN_DEVICE, 20);
+        station.getStand().set(Command.VOLTAGE_STAND, 1000);
+
+        SimulatedBench port = new SimulatedBench(2);
+        assertNull("Shared connection has one protocol", model.addStation("C", port, port, new BinaryProtocol(), new ModBus()));
+        assertNotNull(model.addStation("C", port, port, new BinaryProtocol(), new BinaryProtocol()));
+    }
+
+    /**
+     * Test stations on different ports don't share connection, each port has the only one
+     */
+    @Test
+    public void youGetTheOnlyUARTOfEachPort() throws Exception {
+        assertSame(UART.getInstance("COM98"), UART.getInstance("COM98"));
+        assertNotSame(UART.getInstance("COM98"), UART.getInstance("COM99"));
+    }
+
+    /**
+     * Test traffic of port is recorded to its own trace file, if trace property is set
+     */
+    @Test
+    public void youRecordPortToTraceFileOfProperty() throws Exception {
+        assertSame(UART.getInstance("COM98"), model.getPortConnection("COM98"));
+
+        String tracePath = new File(System.getProperty("java.io.tmpdir"), "run.trace").getPath();
+        System.setProperty(Model.TRACE_PROPERTY, tracePath);
+        try {
+            Connection connection = model.getPortConnection("COM98");
+
+            assertTrue(connection instanceof RecordingConnection);
+            assertSame(connection, model.getPortConnection("COM98"));
+            assertNotSame(connection, model.getPortConnection("COM99"));
+            assertTrue(connection.toString().contains("run-COM98.trace"));
+        } finally {
+            System.clearProperty(Model.TRACE_PROPERTY);
+        }
+    }
+
+    /**
+     * Test stations run test cases at the same time
+     */
+    @Test
+    public void youPassAllTestCasesOnStationsInParallel() throws Exception {
+        model.addStation("A", new SimulatedBench(1), new ModBus());
+        model.addStation("B", new SimulatedBench(2), new ModBus());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (final Station station : model.getStations()) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (BaseTestCase testCase : station.getTestManager().getTestList()) {
+                            try {
+                                testCase.runTest(station.getReceiver(), station.getStand());
+                            } catch (AssertionError e) {
+                                throw new AssertionError(station + ", " + testCase.getName() + ": " + e.getMessage());
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> result : results)
+                result.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
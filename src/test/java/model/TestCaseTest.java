@@ -1,6 +1,7 @@
 package model;
 
 import model.tests.BaseTestCase;
+import model.tests.TestContext;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -14,7 +15,7 @@ public class TestCaseTest {
 
     private BaseTestCase testCase = new BaseTestCase(name) {
         @Override
-        public void runTest(Receiver receiver, Stand stand) throws Error, Exception {
+        public void runTest(Receiver receiver, Stand stand, TestContext context) throws Error, Exception {
         }
     };
 
@@ -0,0 +1,47 @@
+package model;
+
+import connections.ConnectionManager;
+import connections.ModBus;
+import connections.SimulatedBench;
+import model.tests.BaseTestCase;
+import model.tests.TestManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Run all test cases of test manager on simulator of receiver and stand
+ */
+public class TestCasesOnSimulatorTest {
+
+    private ConnectionManager CM;
+
+    @Before
+    public void setUp() throws Exception {
+        CM = new ConnectionManager(new SimulatedBench(1), new ModBus());
+        CM.getConnection().open();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CM.close();
+        CM.getConnection().close();
+    }
+
+    @Test
+    public void youPassAllTestCases() throws Exception {
+        Receiver receiver = new Receiver(null, CM);
+        Stand stand = new Stand(null, CM);
+
+        TestManager testManager = new TestManager(null, null);
+        testManager.fillTestList();
+
+        for (BaseTestCase testCase : testManager.getTestList()) {
+            try {
+                testCase.runTest(receiver, stand);
+            } catch (AssertionError e) {
+                throw new AssertionError(testCase.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
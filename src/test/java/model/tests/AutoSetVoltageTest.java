@@ -0,0 +1,178 @@
+package model.tests;
+
+import connections.CommandMetrics;
+import connections.ModBus;
+import connections.SimulatedBench;
+import controller.Controller;
+import model.Model;
+import model.Receiver;
+import model.Stand;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ShortBuffer;
+
+import static model.Receiver.MAX_LEVEL;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static packet.Command.GET_LEVELS_DEVICE;
+import static packet.Command.VOLTAGE_STAND;
+
+/**
+ * Test secant search of stand voltage on simulator, which stand output differs from model
+ */
+public class AutoSetVoltageTest {
+
+    private static final int FREQUENCY = 512;
+    private static final int GAIN = 20;
+
+    /* Real gain of stand relative to model and max count of iterations to reach level range from initial level */
+    private static final double[] GAIN_ERRORS = {0.3, 0.5, 0.7, 1.0, 1.3, 1.6, 2.0, 3.0};
+    private static final int[] MAX_ITERATIONS = {2, 2, 2, 2, 3, 3, 3, 4};
+
+    private final AnalogFilterTest testCase = new AnalogFilterTest("Auto set voltage", GAIN, FREQUENCY) {
+        @Override
+        public void runTest(Receiver receiver, Stand stand, TestContext context) {
+        }
+    };
+
+    private SimulatedBench bench;
+    private Model model;
+    private Receiver receiver;
+    private Stand stand;
+
+    @Before
+    public void setUp() throws Exception {
+        bench = new SimulatedBench(1);
+        bench.setNoise(0);
+        bench.setTransientTimeMs(0);
+
+        model = new Model(mock(Controller.class));
+        model.connectToDevice(bench, new ModBus());
+        receiver = model.getReceiver();
+        stand = model.getStand();
+
+        testCase.setUp(receiver, stand);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        model.disconnectFromDevice();
+    }
+
+    /**
+     * Test short response of receiver fails test case with clear message instead of index error
+     */
+    @Test
+    public void youFailOnShortLevelsResponse() throws Exception {
+        try {
+            testCase.findMaxLevel(ShortBuffer.wrap(new short[]{100, 200}), AnalogFilterTest.CHANNELS_COUNT);
+            fail("Short response isn't detected");
+        } catch (AssertionError e) {
+            assertEquals("Receiver has sent 2 levels instead of 4", e.getMessage());
+        }
+    }
+
+    /**
+     * Test level is set to range in claimed count of iterations, if gain of stand differs from model,
+     * including the first voltage, which saturates ADC
+     */
+    @Test
+    public void youSetLevelDespiteGainError() throws Exception {
+        for (int i = 0; i < GAIN_ERRORS.length; i++) {
+            bench.setStandOutputError(20 * Math.log10(GAIN_ERRORS[i]));
+            TestContext context = new TestContext();
+
+            short[] levels = autoSetVoltage(context);
+
+            double maxLevel_prt = Math.max(Math.max(levels[0], levels[1]), Math.max(levels[2], levels[3])) * 100.0 / MAX_LEVEL;
+            CountDistribution iterations = context.getVoltageSearchIterations();
+
+            assertTrue("Gain error " + GAIN_ERRORS[i] + ": level " + maxLevel_prt,
+                    maxLevel_prt >= AnalogFilterTest.MIN_LEVEL_PRT && maxLevel_prt <= AnalogFilterTest.MAX_LEVEL_PRT);
+            assertEquals(1, iterations.getTotal());
+            assertTrue("Gain error " + GAIN_ERRORS[i] + ": " + iterations.getMax() + " iterations",
+                    iterations.getMax() <= MAX_ITERATIONS[i]);
+        }
+    }
+
+    /**
+     * Test saturated level isn't used as point of secant: voltage is halved until level is in range
+     */
+    @Test
+    public void youHalveVoltageOfSaturatedLevel() throws Exception {
+        bench.setStandOutputError(20 * Math.log10(3.0));
+        TestContext context = new TestContext();
+
+        stand.set(VOLTAGE_STAND, stand.calcVoltage(AnalogFilterTest.INIT_LEVEL_PRT, GAIN, FREQUENCY));
+        assertEquals("The first voltage saturates ADC", MAX_LEVEL, testCase.findMaxLevel(receiver.getShortBuffer(GET_LEVELS_DEVICE), AnalogFilterTest.CHANNELS_COUNT));
+
+        autoSetVoltage(context);
+
+        assertTrue(context.getVoltageSearchIterations().getMax() >= 2);
+    }
+
+    /**
+     * Test search starts from voltage found in the same context
+     */
+    @Test
+    public void youStartFromLevelledVoltage() throws Exception {
+        bench.setStandOutputError(20 * Math.log10(2.0));
+        TestContext context = new TestContext();
+
+        autoSetVoltage(context);
+        autoSetVoltage(context);
+
+        CountDistribution iterations = context.getVoltageSearchIterations();
+        assertEquals(2, iterations.getTotal());
+        assertEquals(1, iterations.getMin());
+    }
+
+    /**
+     * Test failed search records all its attempts
+     */
+    @Test
+    public void youRecordIterationsOfFailedSearch() throws Exception {
+        bench.setStandOutputError(-200);
+        TestContext context = new TestContext();
+
+        try {
+            autoSetVoltage(context);
+            fail("Level can't be set without signal");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Impossible to set level of signal"));
+        }
+
+        CountDistribution iterations = context.getVoltageSearchIterations();
+        assertEquals(1, iterations.getTotal());
+        assertEquals(15, iterations.getMax());
+    }
+
+    /**
+     * Test voltage is changed by at least 1 mcV, when secant step is rounded to 0: stand gain is so high,
+     * that level range is narrower than 1 mcV, so search fails, but doesn't set the same voltage again
+     */
+    @Test
+    public void youChangeVoltageWhenStepIsRoundedToZero() throws Exception {
+        bench.setStandOutputError(64);
+        TestContext context = new TestContext();
+
+        try {
+            autoSetVoltage(context);
+            fail("Level range is narrower than resolution of voltage");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Impossible to set level of signal"));
+        }
+
+        for (CommandMetrics.Snapshot snapshot : stand.getMetrics().getSnapshots()) {
+            if (snapshot.getCommand() == VOLTAGE_STAND)
+                assertEquals("Voltage is set again", 0, snapshot.getCachedSettings());
+        }
+    }
+
+    private short[] autoSetVoltage(TestContext context) throws Exception {
+        return testCase.autoSetVoltage(context, stand, receiver, GAIN,
+                AnalogFilterTest.MIN_LEVEL_PRT, AnalogFilterTest.MAX_LEVEL_PRT, AnalogFilterTest.INIT_LEVEL_PRT);
+    }
+}
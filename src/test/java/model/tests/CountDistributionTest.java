@@ -0,0 +1,35 @@
+package model.tests;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test distribution of counts
+ */
+public class CountDistributionTest {
+
+    @Test
+    public void youGetStatisticsOfCounts() throws Exception {
+        CountDistribution distribution = new CountDistribution(15);
+        assertEquals(0, distribution.getTotal());
+        assertEquals(-1, distribution.getMax());
+
+        distribution.record(1);
+        distribution.record(1);
+        distribution.record(3);
+        distribution.record(15);
+
+        assertEquals(4, distribution.getTotal());
+        assertEquals(2, distribution.getOccurrences(1));
+        assertEquals(1, distribution.getMin());
+        assertEquals(15, distribution.getMax());
+        assertEquals(5.0, distribution.getMean(), 1e-9);
+        assertEquals("1: 2, 3: 1, 15: 1", distribution.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void youRecordCountOutOfRange() throws Exception {
+        new CountDistribution(15).record(16);
+    }
+}
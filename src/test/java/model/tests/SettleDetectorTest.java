@@ -0,0 +1,150 @@
+package model.tests;
+
+import connections.ConnectionManager;
+import connections.ModBus;
+import connections.SimulatedBench;
+import model.Device;
+import model.LevelRingBuffer;
+import model.Receiver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static packet.Command.GET_LEVELS_DEVICE;
+import static packet.Command.VOLTAGE_STAND;
+
+/**
+ * Test settle detector on simulator of receiver and stand
+ */
+public class SettleDetectorTest {
+
+    private static final int FREQUENCY = 512;
+    private static final int GAIN = 20;
+
+    private SimulatedBench bench;
+    private ConnectionManager CM;
+    private Device device;
+    private SettleDetector detector = new SettleDetector();
+
+    @Before
+    public void setUp() throws Exception {
+        bench = new SimulatedBench(1);
+        bench.setNoise(0);
+        CM = new ConnectionManager(bench, new ModBus());
+        CM.getConnection().open();
+        device = new Receiver(null, CM);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CM.close();
+        CM.getConnection().close();
+    }
+
+    @Test
+    public void youGetLevelsAtOnceWithoutTransient() throws Exception {
+        bench.setTransientTimeMs(0);
+        device.set(VOLTAGE_STAND, 3000);
+
+        long startNs = System.nanoTime();
+        ShortBuffer levels = detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+
+        assertTrue(levels.get(0) > 0);
+        assertTrue(elapsedMs < SettleDetector.MAX_SETTLE_MS);
+        assertEquals(0, detector.getTimeouts());
+        assertEquals(1, detector.getSettleTimes(FREQUENCY, GAIN).getCount());
+        assertTrue(detector.getSettleTimes(FREQUENCY, GAIN).getMax() <
+                TimeUnit.MILLISECONDS.toNanos(SettleDetector.MIN_DWELL_MS + SettleDetector.SAMPLE_PERIOD_MS));
+    }
+
+    @Test
+    public void youWaitCompletionOfTransient() throws Exception {
+        bench.setTransientTimeMs(0);
+        device.set(VOLTAGE_STAND, 3000);
+        short[] steadyLevels = SettleDetector.toArray(detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN));
+
+        bench.setTransientTimeMs(30);
+        device.set(VOLTAGE_STAND, 0);
+        detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN);
+        detector.reset();
+
+        device.set(VOLTAGE_STAND, 3000);
+        ShortBuffer levels = detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN);
+
+        for (int i = 0; i < steadyLevels.length; i++) {
+            assertEquals(steadyLevels[i], levels.get(i), 0.03 * steadyLevels[i]);
+        }
+        assertEquals(0, detector.getTimeouts());
+        assertTrue(detector.getSettleTimes(FREQUENCY, GAIN).getMax() >= TimeUnit.MILLISECONDS.toNanos(SettleDetector.SAMPLE_PERIOD_MS));
+    }
+
+    /**
+     * Test levels before change aren't taken for settled levels, if receiver reacts to change with delay
+     */
+    @Test
+    public void youWaitDelayedTransient() throws Exception {
+        bench.setTransientTimeMs(0);
+        device.set(VOLTAGE_STAND, 3000);
+        short[] steadyLevels = SettleDetector.toArray(detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN));
+
+        device.set(VOLTAGE_STAND, 0);
+        detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN);
+
+        bench.setTransientDelayMs(40);
+        bench.setTransientTimeMs(5);
+        device.set(VOLTAGE_STAND, 3000);
+        ShortBuffer levels = detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN);
+
+        for (int i = 0; i < steadyLevels.length; i++) {
+            assertEquals(steadyLevels[i], levels.get(i), 0.03 * steadyLevels[i]);
+        }
+        assertEquals(0, detector.getTimeouts());
+    }
+
+    @Test
+    public void youGetLastLevelsIfTheyArentStable() throws Exception {
+        bench.setTransientTimeMs(0);
+        bench.setNoise(0.5);
+        device.set(VOLTAGE_STAND, 3000);
+
+        long startNs = System.nanoTime();
+        detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+
+        assertTrue(elapsedMs >= SettleDetector.MAX_SETTLE_MS);
+        assertEquals(1, detector.getTimeouts());
+        assertEquals(1, detector.getReport().size());
+    }
+
+    /**
+     * Test levels are taken from stream of receiver instead of own requests
+     */
+    @Test
+    public void youTakeLevelsFromStream() throws Exception {
+        bench.setTransientTimeMs(0);
+        device.set(VOLTAGE_STAND, 3000);
+        short[] steadyLevels = SettleDetector.toArray(detector.await(device, GET_LEVELS_DEVICE, FREQUENCY, GAIN));
+
+        Receiver receiver = (Receiver) device;
+        long requestsCount = bench.getRequestsCount();
+        LevelRingBuffer stream = receiver.startStreaming(GET_LEVELS_DEVICE, 5);
+        try {
+            while (stream.getSequence() < 0)
+                TimeUnit.MILLISECONDS.sleep(5);
+
+            ShortBuffer levels = detector.await(receiver, GET_LEVELS_DEVICE, FREQUENCY, GAIN);
+            receiver.stopStreaming();
+
+            assertArrayEquals(steadyLevels, SettleDetector.toArray(levels));
+            assertEquals("Only requests of streaming", stream.getSequence() + 1 + stream.getFailedCount(),
+                    bench.getRequestsCount() - requestsCount);
+        } finally {
+            receiver.stopStreaming();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package model.tests;
+
+import model.Receiver;
+import model.Stand;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test ordering of test cases by configuration of devices
+ */
+public class TestSchedulerTest {
+
+    private static final TestConfiguration AT_512_HZ = new TestConfiguration(512, 20, Receiver.BSType.FILTER);
+    private static final TestConfiguration AT_8192_HZ = new TestConfiguration(8192, 20, Receiver.BSType.FILTER);
+    private static final TestConfiguration AT_512_HZ_WB = new TestConfiguration(512, 20, Receiver.BSType.WB);
+
+    /**
+     * Test cases with the same configuration are run one after another in declaration order
+     */
+    @Test
+    public void youGroupTestCasesByConfiguration() {
+        BaseTestCase first = new ConfiguredTestCase(AT_512_HZ);
+        BaseTestCase second = new ConfiguredTestCase(AT_8192_HZ);
+        BaseTestCase third = new ConfiguredTestCase(AT_512_HZ);
+        BaseTestCase fourth = new ConfiguredTestCase(AT_8192_HZ);
+        List<BaseTestCase> declared = Arrays.asList(first, second, third, fourth);
+
+        List<BaseTestCase> schedule = TestScheduler.schedule(declared);
+
+        assertEquals(Arrays.asList(first, third, second, fourth), schedule);
+        assertTrue(TestScheduler.estimateCostMs(schedule) < TestScheduler.estimateCostMs(declared));
+    }
+
+    /**
+     * Test the next group is the one with the cheapest transition from the current configuration
+     */
+    @Test
+    public void youChooseTheNearestConfiguration() {
+        BaseTestCase first = new ConfiguredTestCase(AT_512_HZ);
+        BaseTestCase second = new ConfiguredTestCase(AT_8192_HZ);
+        BaseTestCase third = new ConfiguredTestCase(AT_512_HZ_WB);
+
+        List<BaseTestCase> schedule = TestScheduler.schedule(Arrays.asList(first, second, third));
+
+        assertEquals(Arrays.asList(first, third, second), schedule);
+    }
+
+    /**
+     * Test disabled and not configured test cases are run after configured ones in declaration order
+     */
+    @Test
+    public void youRunDisabledAndNotConfiguredTestCasesLast() {
+        BaseTestCase disabled = new ConfiguredTestCase(AT_512_HZ);
+        disabled.setEnabled(false);
+        BaseTestCase unconfigured = new ConfiguredTestCase(null);
+        BaseTestCase first = new ConfiguredTestCase(AT_8192_HZ);
+        BaseTestCase second = new ConfiguredTestCase(AT_512_HZ);
+        List<BaseTestCase> declared = Arrays.asList(disabled, unconfigured, first, second);
+
+        List<BaseTestCase> schedule = TestScheduler.schedule(declared);
+
+        assertEquals(Arrays.asList(first, second, unconfigured, disabled), schedule);
+        assertEquals(TestScheduler.estimateCostMs(declared), TestScheduler.estimateCostMs(schedule));
+    }
+
+    private static class ConfiguredTestCase extends BaseTestCase {
+
+        private final TestConfiguration configuration;
+
+        ConfiguredTestCase(TestConfiguration configuration) {
+            super("Configured test case");
+            this.configuration = configuration;
+        }
+
+        @Override
+        public void runTest(Receiver receiver, Stand stand, TestContext context) {
+        }
+
+        @Override
+        TestConfiguration getConfiguration() {
+            return configuration;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package packet;
+
+import java.util.Random;
+
+/**
+ * CRC16 implementations throughput across payload sizes up to {@link Packet#MAX_FRAME_LENGTH}.
+ * <p>
+ * <p> Run as application: java packet.CRC16Benchmark [total MB per measurement]
+ */
+public class CRC16Benchmark {
+
+    private static final int[] PAYLOAD_SIZES = {4, 8, 16, 32, 64, 128, 256, Packet.MAX_FRAME_LENGTH};
+
+    private static volatile short sink;
+
+    public static void main(String[] args) {
+        long totalBytes = (args.length > 0 ? Long.parseLong(args[0]) : 64) * 1024 * 1024;
+
+        byte[] buffer = new byte[Packet.MAX_FRAME_LENGTH];
+        new Random(0).nextBytes(buffer);
+
+        Implementation[] implementations = {
+                new Implementation("bitwise") {
+                    @Override
+                    short calculate(byte[] buffer, int length) {
+                        return CRC16.calculateBitwise(buffer, 0, length);
+                    }
+                },
+                new Implementation("table") {
+                    @Override
+                    short calculate(byte[] buffer, int length) {
+                        return CRC16.calculateByTable(buffer, 0, length);
+                    }
+                },
+                new Implementation("slice-by-8") {
+                    @Override
+                    short calculate(byte[] buffer, int length) {
+                        return CRC16.calculateBySlice8(buffer, 0, length);
+                    }
+                }
+        };
+
+        // Warm up
+        for (Implementation implementation : implementations) {
+            for (int size : PAYLOAD_SIZES)
+                measure(implementation, buffer, size, totalBytes / 8);
+        }
+
+        System.out.printf("%-8s", "bytes");
+        for (Implementation implementation : implementations)
+            System.out.printf("%16s", implementation.name + " MB/s");
+        System.out.println();
+
+        for (int size : PAYLOAD_SIZES) {
+            System.out.printf("%-8d", size);
+            for (Implementation implementation : implementations)
+                System.out.printf("%16.1f", measure(implementation, buffer, size, totalBytes));
+            System.out.println();
+        }
+    }
+
+    private static double measure(Implementation implementation, byte[] buffer, int size, long totalBytes) {
+        long iterations = totalBytes / size;
+        short crc = 0;
+
+        long startNs = System.nanoTime();
+        for (long i = 0; i < iterations; i++) {
+            crc ^= implementation.calculate(buffer, size);
+        }
+        long elapsedNs = System.nanoTime() - startNs;
+        sink = crc;
+
+        return iterations * size / (elapsedNs / 1e9) / (1024 * 1024);
+    }
+
+    private abstract static class Implementation {
+        final String name;
+
+        Implementation(String name) {
+            this.name = name;
+        }
+
+        abstract short calculate(byte[] buffer, int length);
+    }
+}
@@ -0,0 +1,39 @@
+package packet;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test CRC16 implementations
+ */
+public class CRC16Test {
+
+    private static final byte[] CHECK_DATA = "123456789".getBytes();
+
+    @Test
+    public void youGetCheckValue() throws Exception {
+        assertEquals((short) 0xFEE8, CRC16.calculateBitwise(CHECK_DATA, 0, CHECK_DATA.length));
+        assertEquals((short) 0xFEE8, CRC16.calculateByTable(CHECK_DATA, 0, CHECK_DATA.length));
+        assertEquals((short) 0xFEE8, CRC16.calculateBySlice8(CHECK_DATA, 0, CHECK_DATA.length));
+        assertEquals((short) 0xFEE8, CRC16.calculate(CHECK_DATA, 0, CHECK_DATA.length));
+    }
+
+    @Test
+    public void youGetSameResultsForAllPayloadSizes() throws Exception {
+        Random random = new Random(0);
+        byte[] buffer = new byte[Packet.MAX_FRAME_LENGTH + 8];
+        random.nextBytes(buffer);
+
+        for (int length = 0; length <= Packet.MAX_FRAME_LENGTH; length++) {
+            int offset = length % 8;
+            short expected = CRC16.calculateBitwise(buffer, offset, length);
+
+            assertEquals("table, length " + length, expected, CRC16.calculateByTable(buffer, offset, length));
+            assertEquals("slice-by-8, length " + length, expected, CRC16.calculateBySlice8(buffer, offset, length));
+            assertEquals("length " + length, expected, CRC16.calculate(buffer, offset, length));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package packet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static packet.Command.*;
+
+/**
+ * Test command lookup and attributes
+ */
+public class CommandTest {
+
+    @Test
+    public void youGetEveryCommandById() throws Exception {
+        for (Command command : Command.values()) {
+            assertSame(command, Command.getCommand(command.getId()));
+        }
+    }
+
+    @Test
+    public void youGetNullForUnknownId() throws Exception {
+        assertNull(Command.getCommand(-1));
+        assertNull(Command.getCommand(30));
+        assertNull(Command.getCommand(Short.MAX_VALUE));
+    }
+
+    @Test
+    public void youGetConfirmationRequiredCommands() throws Exception {
+        for (Command command : Command.values()) {
+            int id = command.getId();
+            boolean expected = id >= FREQUENCY_DEVICE.getId() && id <= BACKLIGHT_DEVICE.getId() ||
+                    id == WRITE_CALIBR_COEFFS_DEVICE.getId() ||
+                    id == WRITE_PCB_ID_DEVICE.getId() ||
+                    id >= FREQUENCY_STAND.getId() && id <= EXT_SENSOR_STAND.getId();
+
+            assertEquals(command.toString(), expected, command.isConfirmationRequired());
+        }
+    }
+
+    @Test
+    public void youGetErrorReplyAndStandCommands() throws Exception {
+        assertTrue(INVALID_CRC_DEVICE.isErrorReply());
+        assertTrue(ERROR_STAND.isErrorReply());
+        assertFalse(GET_LEVELS_DEVICE.isErrorReply());
+
+        for (Command command : Command.values()) {
+            assertEquals(command.toString(), command.getId() >= FREQUENCY_STAND.getId(), command.isStandCommand());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package packet;
+
+import exception.InvalidCRC;
+import exception.InvalidPacketSize;
+import org.apache.commons.lang.ArrayUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+/**
+ * Packet encode/decode cost: pack() and unpack() of Packet before reusable buffers, copied as they were (before),
+ * vs encode/decode with reusable ByteBuffer and Packet (after).
+ * <p>
+ * <p> Allocation per operation is measured by allocated bytes counter of current thread.
+ * Run as application: java packet.PacketCodecBenchmark [iterations]
+ */
+public class PacketCodecBenchmark {
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+
+        final Packet packet = new Packet(Command.GET_LEVELS_DEVICE, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+
+        final BaselinePacket baselinePacket = new BaselinePacket(packet.getCommand(), packet.getData());
+
+        Codec byteArrays = new Codec() {
+            @Override
+            public void run() throws Exception {
+                BaselinePacket received = new BaselinePacket();
+                received.unpack(baselinePacket.pack());
+                sink = received;
+            }
+        };
+
+        final ByteBuffer buffer = ByteBuffer.allocate(Packet.DATA_COUNT_LENGTH + Packet.MAX_FRAME_LENGTH);
+        final Packet received = new Packet();
+
+        Codec reusableBuffer = new Codec() {
+            @Override
+            public void run() throws Exception {
+                buffer.clear();
+                packet.pack(buffer);
+                buffer.flip();
+                received.unpack(buffer);
+            }
+        };
+
+        measure(byteArrays, iterations / 10);
+        measure(reusableBuffer, iterations / 10);
+
+        report("baseline pack() and unpack()", byteArrays, iterations);
+        report("reusable ByteBuffer and Packet", reusableBuffer, iterations);
+    }
+
+    private static void report(String name, Codec codec, int iterations) throws Exception {
+        long allocatedBefore = allocatedBytes();
+        double ns = measure(codec, iterations);
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-32s %8.1f ns/op %8.1f B/op%n", name, ns, (double) allocated / iterations);
+    }
+
+    private static double measure(Codec codec, int iterations) throws Exception {
+        long startNs = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            codec.run();
+        }
+        return (double) (System.nanoTime() - startNs) / iterations;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private interface Codec {
+        void run() throws Exception;
+    }
+
+    /**
+     * Packing and unpacking of Packet before reusable buffers (with bitwise CRC16 and linear search of command)
+     */
+    private static class BaselinePacket {
+
+        private static final short DATA_COUNT_LENGTH = 2;
+        private static final short CRC_POLYNOMIAL = (short) 0x8005;
+        private static final short COMMAND_LENGTH = 2;
+        private static final short CRC16_LENGTH = 2;
+        private static final short MIN_FRAME_LENGTH = COMMAND_LENGTH + CRC16_LENGTH;
+        private static final short DATA_LENGTH = 512;
+        private static final short MAX_FRAME_LENGTH = COMMAND_LENGTH + DATA_LENGTH + CRC16_LENGTH;
+
+        private Command command;
+        private byte[] data;
+        private short CRC;
+
+        BaselinePacket() {
+            this.command = Command.NO_COMMAND;
+            this.data = new byte[0];
+            this.CRC = 0;
+        }
+
+        BaselinePacket(Command command, byte[] data) {
+            this.command = command;
+            this.data = data;
+            this.CRC = 0;
+        }
+
+        private byte[] toByteArray(short value) {
+            return ByteBuffer.allocate(Short.SIZE / Byte.SIZE).putShort(value).array();
+        }
+
+        byte[] getData() {
+            return data;
+        }
+
+        void setData(byte[] data) {
+            this.data = data;
+        }
+
+        void setCommand(Command command) {
+            this.command = command;
+        }
+
+        private void setCRC(short CRC) {
+            this.CRC = CRC;
+        }
+
+        byte[] pack() throws InvalidPacketSize {
+
+            int frameLength = COMMAND_LENGTH + data.length + CRC16_LENGTH;
+            if (frameLength < MIN_FRAME_LENGTH || frameLength > MAX_FRAME_LENGTH)
+                throw new InvalidPacketSize("Length of frame isn't in the range (" + MIN_FRAME_LENGTH + "," + MAX_FRAME_LENGTH + ")");
+
+            byte[] packedData = new byte[0];
+
+            packedData = ArrayUtils.addAll(packedData, toByteArray((short) frameLength));         // length
+            packedData = ArrayUtils.addAll(packedData, toByteArray((short) command.getId()));     // command
+            packedData = ArrayUtils.addAll(packedData, getData());                                          // data
+            packedData = ArrayUtils.addAll(packedData, toByteArray(updateCRC()));                 // CRC16
+
+            return packedData;
+        }
+
+        short updateCRC() {
+            CRC = calculateCRC16(data);
+            return CRC;
+        }
+
+        private short calculateCRC16(byte[] buffer) {
+            short crc_value = 0;
+
+            for (byte value : buffer) {
+
+                for (int i = 0x80; i != 0; i >>= 1) {
+
+                    if ((crc_value & 0x8000) != 0) {
+                        crc_value = (short) ((crc_value << 1) ^ CRC_POLYNOMIAL);
+                    } else {
+                        crc_value = (short) (crc_value << 1);
+                    }
+
+                    if ((value & i) != 0) {
+                        crc_value ^= CRC_POLYNOMIAL;
+                    }
+                }
+            }
+            return crc_value;
+        }
+
+        void unpack(byte[] sentData) throws InvalidCRC, InvalidPacketSize {
+
+            // Get first 2 bytes - frameLength (in bytes)
+            short frameLength = getShortFromByteArray(ArrayUtils.subarray(sentData, 0, DATA_COUNT_LENGTH));
+
+            if (frameLength < MIN_FRAME_LENGTH || frameLength > MAX_FRAME_LENGTH)
+                throw new InvalidPacketSize("Length of frame " + frameLength + " isn't in the range (" + MIN_FRAME_LENGTH + "," + MAX_FRAME_LENGTH + ")");
+
+            // Parsing packet
+            short CRC = getShortFromByteArray(ArrayUtils.subarray(sentData, sentData.length - CRC16_LENGTH, sentData.length));
+            short command_id = getShortFromByteArray(ArrayUtils.subarray(sentData, DATA_COUNT_LENGTH, DATA_COUNT_LENGTH + COMMAND_LENGTH));
+            byte[] data = ArrayUtils.subarray(sentData, DATA_COUNT_LENGTH + COMMAND_LENGTH, sentData.length - CRC16_LENGTH);
+
+            // Check CRC
+            short calcCRC = calculateCRC16(data);
+            if (CRC != calcCRC)
+                throw new InvalidCRC("Incorrect CRC: received CRC value - " + CRC + ", calculated CRC value - " + calcCRC);
+
+            // All checks DONE
+            setCRC(CRC);
+            setCommand(getCommand(command_id));
+            setData(data);
+        }
+
+        private static Command getCommand(int id) {
+            for (Command command : Command.values()) {
+                if (command.getId() == id)
+                    return command;
+            }
+            return null;
+        }
+
+        private short getShortFromByteArray(byte[] array) {
+            short result = 0;
+            try {
+                result = ByteBuffer.wrap(array).getShort();
+            } catch (Exception ignored) {
+            }
+
+            return result;
+        }
+    }
+}
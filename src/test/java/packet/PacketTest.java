@@ -3,10 +3,14 @@ package packet;
 import exception.InvalidCRC;
 import org.junit.Test;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 
@@ -91,6 +95,55 @@ public class PacketTest {
         assertArrayEquals(fArr, packet.getDataAsFloatArray(), 0.0001f);
     }
 
+    @Test
+    public void youGetDataAsFloatBuffer() throws Exception {
+        byte[] bArr = new byte[]{0x00, 0x00, (byte) 0x80, 0x3F, (byte) 0xCD, (byte) 0xCC, (byte) 0xCC, (byte) 0x3D, 0x01};
+
+        packet.setData(bArr);
+        FloatBuffer view = packet.getDataAsFloatBuffer();
+
+        assertTrue(view.isReadOnly());
+        assertEquals(2, view.remaining());
+        assertEquals(2, packet.getFloatCount());
+        assertEquals(1.0f, view.get(0), 0.0001f);
+        assertEquals(0.1f, packet.getFloat(1), 0.0001f);
+    }
+
+    @Test
+    public void youGetDataAsShortBufferWithoutCopy() throws Exception {
+        byte[] data = new byte[]{0x03, (byte) 0xFF, (byte) 0xFF, (byte) 0xFE, 0x00};
+
+        packet.setData(data);
+        ShortBuffer view = packet.getDataAsShortBuffer();
+
+        assertTrue(view.isReadOnly());
+        assertEquals(2, view.remaining());
+        assertEquals(1023, view.get(0));
+        assertEquals(-2, packet.getShort(1));
+
+        data[0] = 0x00;
+        assertEquals(0x00FF, view.get(0));
+        assertArrayEquals(new short[]{0x00FF, -2}, packet.getDataAsShortArray());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void youCantGetShortOutOfData() throws Exception {
+        packet.setData(new byte[]{0x01, 0x02, 0x03});
+        packet.getShort(1);
+    }
+
+    @Test
+    public void youDontReuseDataUnderView() throws Exception {
+        Packet receivedPacket = new Packet();
+        receivedPacket.unpack(new Packet(Command.GET_LEVELS_DEVICE, DATA_1234).pack());
+        ShortBuffer view = receivedPacket.getDataAsShortBuffer();
+
+        receivedPacket.unpack(new Packet(Command.GET_LEVELS_DEVICE, DATA_6789).pack());
+
+        assertEquals(0x0102, view.get(0));
+        assertEquals(0x0607, receivedPacket.getShort(0));
+    }
+
     @Test
     public void youGetByteArrayFromFloatArray() throws Exception {
         float[] fArr = new float[]{1.0f, 0.1f};
@@ -121,6 +174,12 @@ public class PacketTest {
                 new Object[]{"123456789".getBytes()}));
     }
 
+    private Object getPrivateField(Object targetObject, String fieldName) throws Exception {
+        Field field = targetObject.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(targetObject);
+    }
+
     private Object invokePrivateMethod(Object targetObject, String methodName, Class[] argClasses, Object[] argObjects) {
         try {
             Method method = targetObject.getClass().getDeclaredMethod(methodName, argClasses);
@@ -204,4 +263,91 @@ public class PacketTest {
         // Unpack sent data to received packet, catch InvalidCRC here!
         receivedPacket.unpack(sentData);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void youPackPacketToBuffer() throws Exception {
+        Packet somePacket = new Packet(Command.GAIN_DEVICE, DATA_6789);
+        byte[] packed = somePacket.pack();
+
+        ByteBuffer buffer = ByteBuffer.allocate(packed.length + 3);
+        buffer.put((byte) 0x55);
+        somePacket.pack(buffer);
+
+        assertEquals(1 + somePacket.getPackedLength(), buffer.position());
+        assertArrayEquals(packed, Arrays.copyOfRange(buffer.array(), 1, 1 + packed.length));
+    }
+
+    @Test
+    public void youUnpackPacketFromBuffer() throws Exception {
+        Packet sendPacket = new Packet(Command.GAIN_DEVICE, DATA_6789);
+        byte[] packed = sendPacket.pack();
+
+        ByteBuffer buffer = ByteBuffer.allocate(packed.length + 2);
+        buffer.put((byte) 0x55).put(packed).put((byte) 0x55);
+        buffer.position(1).limit(1 + packed.length);
+
+        Packet receivedPacket = new Packet();
+        receivedPacket.unpack(buffer);
+
+        assertEquals(sendPacket, receivedPacket);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void youUnpackPacketFromDirectBuffer() throws Exception {
+        Packet sendPacket = new Packet(Command.GAIN_DEVICE, DATA_6789);
+        byte[] packed = sendPacket.pack();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(packed.length);
+        buffer.put(packed).flip();
+
+        Packet receivedPacket = new Packet();
+        receivedPacket.unpack(buffer);
+
+        assertEquals(sendPacket, receivedPacket);
+    }
+
+    @Test
+    public void youReuseDataArrayOnUnpack() throws Exception {
+        Packet receivedPacket = new Packet();
+
+        receivedPacket.unpack(new Packet(Command.GAIN_DEVICE, DATA_1234).pack());
+        Object data = getPrivateField(receivedPacket, "data");
+
+        // Data array wasn't given away: next unpack of the same length writes to it
+        receivedPacket.unpack(new Packet(Command.GAIN_DEVICE, DATA_6789).pack());
+        assertSame(data, getPrivateField(receivedPacket, "data"));
+        assertArrayEquals(DATA_6789, receivedPacket.getData());
+    }
+
+    @Test
+    public void youDontReuseDataArrayTakenByGetData() throws Exception {
+        Packet receivedPacket = new Packet();
+
+        receivedPacket.unpack(new Packet(Command.GAIN_DEVICE, DATA_1234).pack());
+        byte[] data = receivedPacket.getData();
+
+        // Data array was given away: it must not be changed by next unpack
+        receivedPacket.unpack(new Packet(Command.GAIN_DEVICE, DATA_6789).pack());
+        assertArrayEquals(DATA_1234, data);
+        assertArrayEquals(DATA_6789, receivedPacket.getData());
+    }
+
+    @Test
+    public void youKeepPacketOnInvalidCRC() throws Exception {
+        Packet receivedPacket = new Packet();
+        receivedPacket.unpack(new Packet(Command.GAIN_DEVICE, DATA_1234).pack());
+
+        byte[] sentData = new Packet(Command.FREQUENCY_DEVICE, DATA_6789).pack();
+        sentData[sentData.length - 1] = (byte) ~sentData[sentData.length - 1];
+
+        try {
+            receivedPacket.unpack(ByteBuffer.wrap(sentData));
+            fail("Invalid CRC isn't detected");
+        } catch (InvalidCRC ignored) {
+        }
+
+        assertEquals(Command.GAIN_DEVICE, receivedPacket.getCommand());
+        assertArrayEquals(DATA_1234, receivedPacket.getData());
+    }
+}